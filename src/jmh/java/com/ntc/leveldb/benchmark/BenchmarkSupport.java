@@ -0,0 +1,60 @@
+/*
+ * Copyright 2026 nghiatc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ntc.leveldb.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Random;
+
+/**
+ *
+ * @author nghiatc
+ * @since Oct 18, 2026
+ */
+final class BenchmarkSupport {
+
+    private BenchmarkSupport() {}
+
+    static Path createTempDir(String name) throws IOException {
+        return Files.createTempDirectory("ntc-jleveldb-" + name);
+    }
+
+    static void deleteDir(Path dir) throws IOException {
+        if (dir != null && Files.exists(dir)) {
+            Files.walk(dir).sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    static String key(int i, int keySize) {
+        StringBuilder sb = new StringBuilder(keySize);
+        sb.append("k").append(i);
+        while (sb.length() < keySize) {
+            sb.append('_');
+        }
+        return sb.toString();
+    }
+
+    static String value(Random rnd, int valueSize) {
+        char[] cs = new char[valueSize];
+        for (int i = 0; i < valueSize; i++) {
+            cs[i] = (char) ('a' + rnd.nextInt(26));
+        }
+        return new String(cs);
+    }
+}
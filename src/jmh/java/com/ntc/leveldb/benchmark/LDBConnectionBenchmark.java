@@ -0,0 +1,230 @@
+/*
+ * Copyright 2026 nghiatc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ntc.leveldb.benchmark;
+
+import com.ntc.leveldb.LDBBufferPool;
+import com.ntc.leveldb.LDBConnection;
+import com.ntc.leveldb.NLSerializer;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Every public LDBConnection operation against a database pre-filled with
+ * keyCount keys. Thread count is set with -t.
+ *
+ * @author nghiatc
+ * @since Oct 18, 2026
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LDBConnectionBenchmark {
+
+    @Param({"16"})
+    public int keySize;
+
+    @Param({"100", "4096"})
+    public int valueSize;
+
+    @Param({"100"})
+    public int batchSize;
+
+    /** Bytes of LDBCache in front of get/getByte, 0 disables it. */
+    @Param({"0", "8388608"})
+    public long cacheSize;
+
+    @Param({"100000"})
+    public int keyCount;
+
+    private Path dir;
+    private LDBConnection conn;
+    private NLSerializer nls;
+    private String[] keys;
+    private byte[][] bkeys;
+    private String value;
+    private byte[] bvalue;
+    private final AtomicInteger writeSeq = new AtomicInteger();
+    private final LDBBufferPool pool = new LDBBufferPool();
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        dir = BenchmarkSupport.createTempDir("conn");
+        conn = new LDBConnection(dir.toString());
+        nls = conn.getNLSerializer();
+        if (cacheSize > 0) {
+            conn.enableCache(cacheSize, true);
+        }
+        Random rnd = new Random(42);
+        value = BenchmarkSupport.value(rnd, valueSize);
+        bvalue = nls.serializeString(value);
+        keys = new String[keyCount];
+        bkeys = new byte[keyCount][];
+        Map<String, String> batch = new LinkedHashMap<>();
+        for (int i = 0; i < keyCount; i++) {
+            keys[i] = BenchmarkSupport.key(i, keySize);
+            bkeys[i] = nls.serializeString(keys[i]);
+            batch.put(keys[i], value);
+            if (batch.size() == 1000) {
+                conn.putBatch(batch);
+                batch.clear();
+            }
+        }
+        conn.putBatch(batch);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        conn.close();
+        BenchmarkSupport.deleteDir(dir);
+    }
+
+    private int nextIndex() {
+        return ThreadLocalRandom.current().nextInt(keyCount);
+    }
+
+    private String writeKey() {
+        return "w" + writeSeq.incrementAndGet();
+    }
+
+    @Benchmark
+    public void put() {
+        conn.put(writeKey(), value);
+    }
+
+    @Benchmark
+    public void putByte() {
+        conn.putByte(nls.serializeString(writeKey()), bvalue);
+    }
+
+    @Benchmark
+    public void putBatch() throws Exception {
+        Map<String, String> map = new LinkedHashMap<>();
+        for (int i = 0; i < batchSize; i++) {
+            map.put(writeKey(), value);
+        }
+        conn.putBatch(map);
+    }
+
+    @Benchmark
+    public void putBatchByte() throws Exception {
+        Map<byte[], byte[]> map = new LinkedHashMap<>();
+        for (int i = 0; i < batchSize; i++) {
+            map.put(nls.serializeString(writeKey()), bvalue);
+        }
+        conn.putBatchByte(map);
+    }
+
+    @Benchmark
+    public String get() {
+        return conn.get(keys[nextIndex()]);
+    }
+
+    @Benchmark
+    public byte[] getByte() {
+        return conn.getByte(bkeys[nextIndex()]);
+    }
+
+    @Benchmark
+    public int getByteBuffer() {
+        ByteBuffer buf = conn.getBuffer(ByteBuffer.wrap(bkeys[nextIndex()]), pool);
+        int n = buf != null ? buf.remaining() : 0;
+        pool.release(buf);
+        return n;
+    }
+
+    @Benchmark
+    public String getMissing() {
+        return conn.get("missing" + nextIndex());
+    }
+
+    @Benchmark
+    public void getList(Blackhole bh) {
+        List<String> list = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            list.add(keys[nextIndex()]);
+        }
+        bh.consume(conn.getList(list));
+    }
+
+    @Benchmark
+    public void getListByte(Blackhole bh) {
+        List<byte[]> list = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            list.add(bkeys[nextIndex()]);
+        }
+        bh.consume(conn.getListByte(list));
+    }
+
+    @Benchmark
+    public void delete() {
+        conn.delete(writeKey());
+    }
+
+    @Benchmark
+    public void deleteByte() {
+        conn.deleteByte(nls.serializeString(writeKey()));
+    }
+
+    @Benchmark
+    public void deleteList() {
+        List<String> list = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            list.add(writeKey());
+        }
+        conn.deleteList(list);
+    }
+
+    @Benchmark
+    public void deleteBatch() throws Exception {
+        List<String> list = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            list.add(writeKey());
+        }
+        conn.deleteBatch(list);
+    }
+
+    @Benchmark
+    public void deleteBatchByte() throws Exception {
+        List<byte[]> list = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            list.add(nls.serializeString(writeKey()));
+        }
+        conn.deleteBatchByte(list);
+    }
+
+    @Benchmark
+    public int incInt() {
+        return conn.incInt("counter-int" + (nextIndex() & 1023), 1);
+    }
+
+    @Benchmark
+    public long incLong() {
+        return conn.incLong("counter-long" + (nextIndex() & 1023), 1);
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2026 nghiatc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ntc.leveldb.benchmark;
+
+import com.ntc.leveldb.LDBConnection;
+import java.nio.file.Path;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * incLong scaling across threads and distinct keys. For a scaling curve run
+ * it once per thread count, e.g. for t in 1 2 4 8 16 32 64 with -t $t.
+ *
+ * @author nghiatc
+ * @since Oct 18, 2026
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LDBCounterBenchmark {
+
+    @Param({"1", "4096"})
+    public int keys;
+
+    @Param({"false", "true"})
+    public boolean writeBehind;
+
+    private Path dir;
+    private LDBConnection conn;
+    private String[] names;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        dir = BenchmarkSupport.createTempDir("counter");
+        conn = new LDBConnection(dir.toString());
+        if (writeBehind) {
+            conn.enableCounterWriteBehind(100, 100000);
+        }
+        names = new String[keys];
+        for (int i = 0; i < keys; i++) {
+            names[i] = "counter" + i;
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        conn.close();
+        BenchmarkSupport.deleteDir(dir);
+    }
+
+    @Benchmark
+    public long incLong() {
+        return conn.incLong(names[ThreadLocalRandom.current().nextInt(keys)], 1);
+    }
+}
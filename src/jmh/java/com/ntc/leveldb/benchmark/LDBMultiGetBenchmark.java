@@ -0,0 +1,101 @@
+/*
+ * Copyright 2026 nghiatc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ntc.leveldb.benchmark;
+
+import com.ntc.leveldb.LDBConnection;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * getList serial vs parallel at several batch sizes.
+ *
+ * @author nghiatc
+ * @since Oct 18, 2026
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LDBMultiGetBenchmark {
+
+    @Param({"16", "256", "5000"})
+    public int batchSize;
+
+    /** Executor threads for getList, 0 reads on the caller thread. */
+    @Param({"0", "4"})
+    public int parallelism;
+
+    @Param({"200000"})
+    public int keyCount;
+
+    private Path dir;
+    private LDBConnection conn;
+    private ExecutorService executor;
+    private String[] keys;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        dir = BenchmarkSupport.createTempDir("multiget");
+        conn = new LDBConnection(dir.toString());
+        if (parallelism > 0) {
+            executor = Executors.newFixedThreadPool(parallelism);
+            conn.setMultiGetExecutor(executor, Math.max(batchSize / (parallelism + 1), 16));
+        }
+        Random rnd = new Random(42);
+        String value = BenchmarkSupport.value(rnd, 100);
+        keys = new String[keyCount];
+        Map<String, String> batch = new LinkedHashMap<>();
+        for (int i = 0; i < keyCount; i++) {
+            keys[i] = BenchmarkSupport.key(i, 16);
+            batch.put(keys[i], value);
+            if (batch.size() == 1000) {
+                conn.putBatch(batch);
+                batch.clear();
+            }
+        }
+        conn.putBatch(batch);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        conn.close();
+        if (executor != null) {
+            executor.shutdown();
+        }
+        BenchmarkSupport.deleteDir(dir);
+    }
+
+    @Benchmark
+    public Map<String, String> getList() {
+        List<String> list = new ArrayList<>(batchSize);
+        ThreadLocalRandom rnd = ThreadLocalRandom.current();
+        for (int i = 0; i < batchSize; i++) {
+            list.add(keys[rnd.nextInt(keyCount)]);
+        }
+        return conn.getList(list);
+    }
+}
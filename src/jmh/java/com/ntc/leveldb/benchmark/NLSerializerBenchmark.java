@@ -0,0 +1,113 @@
+/*
+ * Copyright 2026 nghiatc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ntc.leveldb.benchmark;
+
+import com.ntc.leveldb.NLSerializer;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * NLSerializer encode/decode. Run with -prof gc to see the allocation rate.
+ *
+ * @author nghiatc
+ * @since Oct 18, 2026
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NLSerializerBenchmark {
+
+    private final NLSerializer nls = new NLSerializer();
+    private final byte[] buf = new byte[16];
+    private int i = 123456789;
+    private long l = 1234567890123L;
+    private double d = Math.PI;
+    private byte[] bi;
+    private byte[] bl;
+    private byte[] bd;
+    private byte[] bs;
+
+    @Setup
+    public void setup() {
+        bi = nls.serializeInt(i);
+        bl = nls.serializeLong(l);
+        bd = nls.serializeDouble(d);
+        bs = nls.serializeString("nghiatc-benchmark-key");
+    }
+
+    @Benchmark
+    public byte[] serializeInt() {
+        return nls.serializeInt(i);
+    }
+
+    @Benchmark
+    public int serializeIntInto() {
+        return nls.serializeInt(i, buf, 0);
+    }
+
+    @Benchmark
+    public int deserializeInt() {
+        return nls.deserializeInt(bi);
+    }
+
+    @Benchmark
+    public byte[] serializeLong() {
+        return nls.serializeLong(l);
+    }
+
+    @Benchmark
+    public int serializeLongInto() {
+        return nls.serializeLong(l, buf, 0);
+    }
+
+    @Benchmark
+    public long deserializeLong() {
+        return nls.deserializeLong(bl);
+    }
+
+    @Benchmark
+    public byte[] serializeDouble() {
+        return nls.serializeDouble(d);
+    }
+
+    @Benchmark
+    public double deserializeDouble() {
+        return nls.deserializeDouble(bd);
+    }
+
+    @Benchmark
+    public byte[] serializeFloat() {
+        return nls.serializeFloat((float) d);
+    }
+
+    @Benchmark
+    public byte[] serializeBool() {
+        return nls.serializeBool(true);
+    }
+
+    @Benchmark
+    public byte[] serializeString() {
+        return nls.serializeString("nghiatc-benchmark-key");
+    }
+
+    @Benchmark
+    public String deserializeString() {
+        return nls.deserializeString(bs);
+    }
+}
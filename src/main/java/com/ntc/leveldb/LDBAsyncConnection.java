@@ -0,0 +1,311 @@
+/*
+ * Copyright 2026 nghiatc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ntc.leveldb;
+
+import java.io.Closeable;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import static org.fusesource.leveldbjni.JniDBFactory.bytes;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Non-blocking facade over an {@link LDBStore}. Calls run on a bounded I/O
+ * pool and return CompletableFutures, so event-loop and request threads never
+ * wait on JNI or compaction stalls. When the pool queue is full the returned
+ * future fails at once with RejectedExecutionException instead of blocking
+ * the caller.
+ * <p>
+ * Futures complete on the I/O threads; use the *Async variants of
+ * CompletableFuture with your own executor for heavy continuations.
+ * <p>
+ * Writes and deletes go through {@link LDBStore#writeByte} and
+ * {@link LDBStore#writeBatchByte}, so their futures fail when the write
+ * fails, e.g. with IllegalArgumentException for a reserved key. Null or
+ * empty keys and values are ignored, as by the blocking methods.
+ *
+ * @author nghiatc
+ * @since Oct 18, 2026
+ */
+public class LDBAsyncConnection implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(LDBAsyncConnection.class);
+
+    private final LDBStore store;
+    private final ExecutorService executor;
+    private final boolean ownExecutor;
+    private final Semaphore permits;
+    private final AtomicLong rejected = new AtomicLong();
+    private volatile boolean closed;
+
+    /**
+     * One thread per core and 1024 queued calls.
+     */
+    public LDBAsyncConnection(LDBStore store) {
+        this(store, Runtime.getRuntime().availableProcessors(), 1024);
+    }
+
+    public LDBAsyncConnection(LDBStore store, int threads, int queueCapacity) {
+        this(store, newPool(threads, queueCapacity), true, null);
+    }
+
+    /**
+     * Run calls on executor, which is not shut down by close.
+     */
+    public LDBAsyncConnection(LDBStore store, ExecutorService executor) {
+        this(store, executor, false, null);
+    }
+
+    private LDBAsyncConnection(LDBStore store, ExecutorService executor, boolean ownExecutor, Semaphore permits) {
+        this.store = store;
+        this.executor = executor;
+        this.ownExecutor = ownExecutor;
+        this.permits = permits;
+    }
+
+    /**
+     * One virtual thread per call, at most maxConcurrency in flight. Needs
+     * Java 21 or later at runtime.
+     *
+     * @throws UnsupportedOperationException on older runtimes
+     */
+    public static LDBAsyncConnection withVirtualThreads(LDBStore store, int maxConcurrency) {
+        ExecutorService executor;
+        try {
+            Method m = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            executor = (ExecutorService) m.invoke(null);
+        } catch (ReflectiveOperationException ex) {
+            throw new UnsupportedOperationException("Virtual threads need Java 21 or later", ex);
+        }
+        return new LDBAsyncConnection(store, executor, true, new Semaphore(Math.max(1, maxConcurrency)));
+    }
+
+    private static ExecutorService newPool(int threads, int queueCapacity) {
+        AtomicInteger seq = new AtomicInteger();
+        int n = Math.max(1, threads);
+        return new ThreadPoolExecutor(n, n, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(Math.max(1, queueCapacity)), r -> {
+            Thread t = new Thread(r, "ldb-async-" + seq.getAndIncrement());
+            t.setDaemon(true);
+            return t;
+        }, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    public LDBStore getStore() {
+        return store;
+    }
+
+    /**
+     * Calls refused because the pool was saturated or closed.
+     */
+    public long getRejectedCount() {
+        return rejected.get();
+    }
+
+    /**
+     * Calls waiting for a thread, -1 when not known for this executor.
+     */
+    public int getQueueSize() {
+        if (executor instanceof ThreadPoolExecutor) {
+            return ((ThreadPoolExecutor) executor).getQueue().size();
+        }
+        return -1;
+    }
+
+    private <T> CompletableFuture<T> submit(Callable<T> task) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        if (closed) {
+            rejected.incrementAndGet();
+            future.completeExceptionally(new RejectedExecutionException("LDBAsyncConnection is closed"));
+            return future;
+        }
+        if (permits != null && !permits.tryAcquire()) {
+            rejected.incrementAndGet();
+            future.completeExceptionally(new RejectedExecutionException("Too many calls in flight"));
+            return future;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    future.complete(task.call());
+                } catch (Throwable ex) {
+                    future.completeExceptionally(ex);
+                } finally {
+                    if (permits != null) {
+                        permits.release();
+                    }
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            if (permits != null) {
+                permits.release();
+            }
+            rejected.incrementAndGet();
+            future.completeExceptionally(ex);
+        }
+        return future;
+    }
+
+    public CompletableFuture<Void> putAsync(String key, String value) {
+        return putByteAsync(key != null ? bytes(key) : null, value != null ? bytes(value) : null);
+    }
+
+    public CompletableFuture<Void> putByteAsync(byte[] key, byte[] value) {
+        if (value == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return submit(() -> {
+            store.writeByte(key, value);
+            return null;
+        });
+    }
+
+    public CompletableFuture<Void> putBatchAsync(Map<String, String> mapData) {
+        Map<byte[], byte[]> mutations = new LinkedHashMap<>();
+        if (mapData != null) {
+            for (Map.Entry<String, String> e : mapData.entrySet()) {
+                if (e.getKey() != null && e.getValue() != null) {
+                    mutations.put(bytes(e.getKey()), bytes(e.getValue()));
+                }
+            }
+        }
+        return putBatchByteAsync(mutations);
+    }
+
+    public CompletableFuture<Void> putBatchByteAsync(Map<byte[], byte[]> mapData) {
+        Map<byte[], byte[]> mutations = new LinkedHashMap<>();
+        if (mapData != null) {
+            for (Map.Entry<byte[], byte[]> e : mapData.entrySet()) {
+                if (e.getValue() != null) {
+                    mutations.put(e.getKey(), e.getValue());
+                }
+            }
+        }
+        return writeBatchAsync(mutations);
+    }
+
+    public CompletableFuture<String> getAsync(String key) {
+        return submit(() -> store.get(key));
+    }
+
+    public CompletableFuture<byte[]> getByteAsync(byte[] key) {
+        return submit(() -> store.getByte(key));
+    }
+
+    public CompletableFuture<Map<String, String>> getListAsync(List<String> listKey) {
+        return submit(() -> store.getList(listKey));
+    }
+
+    public CompletableFuture<Map<byte[], byte[]>> getListByteAsync(List<byte[]> listKey) {
+        return submit(() -> store.getListByte(listKey));
+    }
+
+    public CompletableFuture<Void> deleteAsync(String key) {
+        return deleteByteAsync(key != null ? bytes(key) : null);
+    }
+
+    public CompletableFuture<Void> deleteByteAsync(byte[] key) {
+        return submit(() -> {
+            store.writeByte(key, null);
+            return null;
+        });
+    }
+
+    public CompletableFuture<Void> deleteBatchAsync(List<String> listKey) {
+        Map<byte[], byte[]> mutations = new LinkedHashMap<>();
+        if (listKey != null) {
+            for (String key : listKey) {
+                if (key != null) {
+                    mutations.put(bytes(key), null);
+                }
+            }
+        }
+        return writeBatchAsync(mutations);
+    }
+
+    public CompletableFuture<Void> deleteBatchByteAsync(List<byte[]> listKey) {
+        Map<byte[], byte[]> mutations = new LinkedHashMap<>();
+        if (listKey != null) {
+            for (byte[] key : listKey) {
+                mutations.put(key, null);
+            }
+        }
+        return writeBatchAsync(mutations);
+    }
+
+    /**
+     * Puts of the non-null values and deletes of the keys mapped to null, in
+     * one batch per store (per shard for ShardedLDBConnection).
+     */
+    public CompletableFuture<Void> writeBatchAsync(Map<byte[], byte[]> mutations) {
+        return submit(() -> {
+            store.writeBatchByte(mutations);
+            return null;
+        });
+    }
+
+    public CompletableFuture<Long> incLongAsync(String key, long value) {
+        return submit(() -> store.incLong(key, value));
+    }
+
+    /**
+     * Entries of scan(from, to, limit) collected into a list; keep limit
+     * small, the whole result is held in memory.
+     */
+    public CompletableFuture<List<Map.Entry<String, String>>> scanAsync(String from, String to, int limit) {
+        return submit(() -> collect(store.scan(from, to, limit)));
+    }
+
+    public CompletableFuture<List<Map.Entry<String, String>>> scanReverseAsync(String from, String to, int limit) {
+        return submit(() -> collect(store.scanReverse(from, to, limit)));
+    }
+
+    public CompletableFuture<List<Map.Entry<byte[], byte[]>>> scanByteAsync(byte[] from, byte[] to, int limit) {
+        return submit(() -> collect(store.scanByte(from, to, limit)));
+    }
+
+    private static <K, V> List<Map.Entry<K, V>> collect(LDBCursor<K, V> cursor) {
+        List<Map.Entry<K, V>> rs = new ArrayList<>();
+        try (LDBCursor<K, V> c = cursor) {
+            c.forEachRemaining(rs::add);
+        }
+        return rs;
+    }
+
+    /**
+     * Stop accepting calls and wait up to 30s for queued ones; the store stays open.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        if (!ownExecutor) {
+            return;
+        }
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+                logger.error("close: calls still running after 30s");
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
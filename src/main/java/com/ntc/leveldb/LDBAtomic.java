@@ -0,0 +1,148 @@
+/*
+ * Copyright 2026 nghiatc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ntc.leveldb;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Function;
+import org.iq80.leveldb.DB;
+import org.iq80.leveldb.WriteBatch;
+import org.iq80.leveldb.WriteOptions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Read-modify-write operations backing compareAndSet, putIfAbsent and update.
+ * Each one holds only the stripe lock of its key while it reads the current
+ * value from the DB and writes the new one, so updates of different keys run
+ * in parallel. The stripes are those of incInt/incLong and the TTL sweeper,
+ * and index changes go in the same WriteBatch as the value. On merge keys
+ * the current value includes the pending merge operands, see LDBMerger.
+ * <p>
+ * Every put and delete of the connection takes the same stripe lock, so no
+ * write lands between the read and the write. Only putQueued/deleteQueued,
+ * bulk load and import bypass the stripes, as they bypass indexes.
+ *
+ * @author nghiatc
+ * @since Oct 18, 2026
+ */
+public class LDBAtomic {
+
+    private static final Logger logger = LoggerFactory.getLogger(LDBAtomic.class);
+
+    private final DB db;
+    private final LDBStripedLock keyLocks;
+    private final LDBCache cache;
+    private final LDBIndexer indexer;
+    private final LDBMerger merger;
+
+    public LDBAtomic(DB db, LDBStripedLock keyLocks, LDBCache cache, LDBIndexer indexer, LDBMerger merger) {
+        this.db = db;
+        this.keyLocks = keyLocks;
+        this.cache = cache;
+        this.indexer = indexer;
+        this.merger = merger;
+    }
+
+    /**
+     * Set key to newValue if its value equals expected; null expected means
+     * absent and null newValue deletes the key.
+     */
+    public boolean compareAndSet(byte[] key, byte[] expected, byte[] newValue, WriteOptions wo) {
+        byte[][] rs = modify(key, current -> Arrays.equals(current, expected) ? newValue : current, wo);
+        return Arrays.equals(rs[0], expected);
+    }
+
+    /**
+     * Put value if key is absent. Returns the current value, or null when
+     * value was put.
+     */
+    public byte[] putIfAbsent(byte[] key, byte[] value, WriteOptions wo) {
+        return modify(key, current -> current != null ? current : value, wo)[0];
+    }
+
+    /**
+     * Replace the value of key, null when absent, with fn of it; fn returning
+     * null deletes the key and returning its argument writes nothing. fn runs
+     * under the stripe lock, keep it short. Returns the new value.
+     */
+    public byte[] update(byte[] key, Function<byte[], byte[]> fn, WriteOptions wo) {
+        return modify(key, fn, wo)[1];
+    }
+
+    private byte[][] modify(byte[] key, Function<byte[], byte[]> fn, WriteOptions wo) {
+        Lock lock = keyLocks.getLock(key);
+        lock.lock();
+        try {
+            byte[] raw;
+            byte[] current;
+            List<byte[]> operandKeys = Collections.emptyList();
+            if (merger.isMergeKey(key)) {
+                // Fold pending merges; only the operands folded are replaced, later ones still apply.
+                LDBMerger.Folded f = merger.read(key, null, System.currentTimeMillis());
+                raw = f.raw;
+                current = f.value;
+                operandKeys = f.operandKeys;
+            } else {
+                raw = db.get(key);
+                current = LDBTtl.unwrap(raw, System.currentTimeMillis());
+            }
+            byte[] next = fn.apply(current);
+            if (next != current) {
+                if (next != null) {
+                    LDBBytes.checkRecordKey(key);
+                }
+                write(key, raw, next, operandKeys, wo);
+            }
+            return new byte[][]{current, next};
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void write(byte[] key, byte[] raw, byte[] value, List<byte[]> operandKeys, WriteOptions wo) {
+        if (indexer.isActive() || !operandKeys.isEmpty()) {
+            WriteBatch batch = db.createWriteBatch();
+            try {
+                for (byte[] operandKey : operandKeys) {
+                    batch.delete(operandKey);
+                }
+                if (value != null) {
+                    batch.put(key, value);
+                } else {
+                    batch.delete(key);
+                }
+                indexer.write(batch, Collections.singletonList(key), Collections.singletonList(value),
+                        Collections.singletonList(raw), wo);
+            } finally {
+                try {
+                    batch.close();
+                } catch (IOException ex) {
+                    logger.error("write: ", ex);
+                }
+            }
+        } else if (value != null) {
+            db.put(key, value, wo);
+        } else {
+            db.delete(key, wo);
+        }
+        // Still under the lock, so the next update never reads a stale cached value.
+        cache.invalidate(key);
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2026 nghiatc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ntc.leveldb;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pool of direct ByteBuffers in power-of-two size classes, so large values
+ * can be read into reusable off-heap memory instead of fresh heap arrays.
+ * Buffers larger than maxBufferSize are allocated but never pooled, and at
+ * most maxPooledBytes are kept idle.
+ *
+ * @author nghiatc
+ * @since Oct 18, 2026
+ */
+public class LDBBufferPool {
+
+    public static final int MIN_BUFFER_SIZE = 4096;
+
+    private final int maxBufferSize;
+    private final long maxPooledBytes;
+    private final ConcurrentLinkedQueue<ByteBuffer>[] classes;
+    private final AtomicLong pooledBytes = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong allocations = new AtomicLong();
+
+    public LDBBufferPool() {
+        this(1 << 20, 64L * 1048576); // up to 1MB buffers, 64MB idle
+    }
+
+    @SuppressWarnings("unchecked")
+    public LDBBufferPool(int maxBufferSize, long maxPooledBytes) {
+        this.maxBufferSize = Integer.highestOneBit(Math.max(maxBufferSize, MIN_BUFFER_SIZE));
+        this.maxPooledBytes = maxPooledBytes;
+        classes = new ConcurrentLinkedQueue[classOf(this.maxBufferSize) + 1];
+        for (int i = 0; i < classes.length; i++) {
+            classes[i] = new ConcurrentLinkedQueue<>();
+        }
+    }
+
+    private static int classOf(int size) {
+        int cap = Math.max(MIN_BUFFER_SIZE, size);
+        return 32 - Integer.numberOfLeadingZeros(cap - 1) - Integer.numberOfTrailingZeros(MIN_BUFFER_SIZE);
+    }
+
+    /**
+     * Cleared direct buffer with at least capacity bytes remaining; its limit is set to capacity.
+     */
+    public ByteBuffer acquire(int capacity) {
+        if (capacity > maxBufferSize) {
+            allocations.incrementAndGet();
+            return ByteBuffer.allocateDirect(capacity);
+        }
+        int idx = classOf(capacity);
+        ByteBuffer buf = classes[idx].poll();
+        if (buf != null) {
+            pooledBytes.addAndGet(-buf.capacity());
+            hits.incrementAndGet();
+        } else {
+            allocations.incrementAndGet();
+            buf = ByteBuffer.allocateDirect(MIN_BUFFER_SIZE << idx);
+        }
+        buf.clear();
+        buf.limit(capacity);
+        return buf;
+    }
+
+    /**
+     * Return a buffer obtained from acquire. The caller must not use it afterwards.
+     */
+    public void release(ByteBuffer buf) {
+        if (buf == null || !buf.isDirect()) {
+            return;
+        }
+        int cap = buf.capacity();
+        if (cap > maxBufferSize || Integer.bitCount(cap) != 1 || cap < MIN_BUFFER_SIZE) {
+            return;
+        }
+        if (pooledBytes.addAndGet(cap) > maxPooledBytes) {
+            pooledBytes.addAndGet(-cap);
+            return;
+        }
+        classes[classOf(cap)].offer(buf);
+    }
+
+    public long getPooledBytes() {
+        return pooledBytes.get();
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getAllocations() {
+        return allocations.get();
+    }
+
+    public void clear() {
+        for (ConcurrentLinkedQueue<ByteBuffer> q : classes) {
+            ByteBuffer buf;
+            while ((buf = q.poll()) != null) {
+                pooledBytes.addAndGet(-buf.capacity());
+            }
+        }
+    }
+}
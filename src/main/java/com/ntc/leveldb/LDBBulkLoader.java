@@ -0,0 +1,423 @@
+/*
+ * Copyright 2026 nghiatc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ntc.leveldb;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.util.*;
+import org.iq80.leveldb.DB;
+import org.iq80.leveldb.WriteBatch;
+import org.iq80.leveldb.WriteOptions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Streaming bulk import. Entries are buffered up to memoryBudget bytes,
+ * sorted and spilled to temp files as runs, then all runs are merged and
+ * written to LevelDB in key order in batches of about batchBytes, which keeps
+ * level-0 files non-overlapping and the heap bounded whatever the input size.
+ * At most maxFanIn runs are open at once: with more, the oldest are first
+ * merged into larger runs, in as many passes as needed.
+ * <p>
+ * When a key occurs more than once the last one read wins. Entries must not
+ * be modified after the iterator returns them. Not thread-safe; use one loader
+ * per load.
+ *
+ * @author nghiatc
+ * @since Oct 18, 2026
+ */
+public class LDBBulkLoader {
+
+    private static final Logger logger = LoggerFactory.getLogger(LDBBulkLoader.class);
+
+    // Estimated heap cost of one buffered entry besides key and value bytes.
+    private static final int ENTRY_OVERHEAD = 64;
+
+    private final DB db;
+    private final WriteOptions writeOptions;
+    private final LDBCache cache;
+    private final LDBMetrics metrics;
+    private long memoryBudget = 64L * 1048576;
+    private int batchBytes = 4 * 1048576;
+    private int maxFanIn = 128;
+    private File tempDir;
+    private boolean compactAtEnd;
+
+    public LDBBulkLoader(DB db, WriteOptions writeOptions, LDBCache cache, LDBMetrics metrics) {
+        this.db = db;
+        this.writeOptions = writeOptions;
+        this.cache = cache;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Bytes of entries kept in memory before a sorted run is spilled. Default 64MB.
+     */
+    public LDBBulkLoader setMemoryBudget(long memoryBudget) {
+        this.memoryBudget = Math.max(1, memoryBudget);
+        return this;
+    }
+
+    /**
+     * Approximate size of each WriteBatch. Default 4MB.
+     */
+    public LDBBulkLoader setBatchBytes(int batchBytes) {
+        this.batchBytes = Math.max(1, batchBytes);
+        return this;
+    }
+
+    /**
+     * Runs merged at once, each holding an open file and a 64KB read buffer.
+     * Default 128, at least 2.
+     */
+    public LDBBulkLoader setMaxFanIn(int maxFanIn) {
+        this.maxFanIn = Math.max(2, maxFanIn);
+        return this;
+    }
+
+    /**
+     * Directory for spilled runs, java.io.tmpdir by default.
+     */
+    public LDBBulkLoader setTempDir(File tempDir) {
+        this.tempDir = tempDir;
+        return this;
+    }
+
+    /**
+     * Compact the whole key range once loading is done.
+     */
+    public LDBBulkLoader setCompactAtEnd(boolean compactAtEnd) {
+        this.compactAtEnd = compactAtEnd;
+        return this;
+    }
+
+    public Stats load(Iterator<? extends Map.Entry<byte[], byte[]>> entries) throws IOException {
+        long start = System.nanoTime();
+        Stats stats = new Stats();
+        List<Run> runs = new ArrayList<>();
+        List<Map.Entry<byte[], byte[]>> buffer = new ArrayList<>();
+        long bufferBytes = 0;
+        try {
+            while (entries.hasNext()) {
+                Map.Entry<byte[], byte[]> e = entries.next();
+                byte[] key = e.getKey();
+                byte[] value = e.getValue();
+                if (key == null || key.length == 0 || value == null || value.length == 0) {
+                    continue;
+                }
+                LDBBytes.checkRecordKey(key);
+                stats.entriesRead++;
+                buffer.add(e);
+                bufferBytes += key.length + value.length + ENTRY_OVERHEAD;
+                if (bufferBytes >= memoryBudget) {
+                    runs.add(spill(sort(buffer), runs.size(), stats));
+                    buffer = new ArrayList<>();
+                    bufferBytes = 0;
+                }
+            }
+            runs.add(new Run(runs.size(), sort(buffer).iterator()));
+            while (runs.size() > maxFanIn) {
+                // Oldest runs first, so the merged run keeps its place in the newest-wins order.
+                List<Run> group = runs.subList(0, maxFanIn);
+                Run merged = spillMerged(new ArrayList<>(group), stats);
+                group.clear();
+                runs.add(0, merged);
+            }
+            merge(runs, stats);
+        } finally {
+            for (Run run : runs) {
+                run.close();
+            }
+            // Also after a failed load, which may have written part of the entries.
+            cache.clear();
+        }
+        if (compactAtEnd) {
+            db.compactRange(null, null);
+        }
+        stats.elapsedNanos = System.nanoTime() - start;
+        return stats;
+    }
+
+    private static List<Map.Entry<byte[], byte[]>> sort(List<Map.Entry<byte[], byte[]>> buffer) {
+        // Stable sort: among equal keys the one read last is kept.
+        buffer.sort((a, b) -> LDBBytes.compare(a.getKey(), b.getKey()));
+        List<Map.Entry<byte[], byte[]>> rs = new ArrayList<>(buffer.size());
+        for (int i = 0; i < buffer.size(); i++) {
+            if (i + 1 < buffer.size() && LDBBytes.compare(buffer.get(i).getKey(), buffer.get(i + 1).getKey()) == 0) {
+                continue;
+            }
+            rs.add(buffer.get(i));
+        }
+        return rs;
+    }
+
+    private Run spill(List<Map.Entry<byte[], byte[]>> sorted, int seq, Stats stats) throws IOException {
+        File file = File.createTempFile("ldb-bulk-", ".run", tempDir);
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16))) {
+            for (Map.Entry<byte[], byte[]> e : sorted) {
+                writeEntry(out, e.getKey(), e.getValue());
+            }
+        } catch (IOException ex) {
+            Files.deleteIfExists(file.toPath());
+            throw ex;
+        }
+        stats.runsSpilled++;
+        stats.bytesSpilled += file.length();
+        return new Run(seq, file, sorted.size());
+    }
+
+    private static void writeEntry(DataOutputStream out, byte[] key, byte[] value) throws IOException {
+        out.writeInt(key.length);
+        out.write(key);
+        out.writeInt(value.length);
+        out.write(value);
+    }
+
+    /**
+     * Merge group, consecutive runs oldest first, into one run file that
+     * takes the place of its newest run.
+     */
+    private Run spillMerged(List<Run> group, Stats stats) throws IOException {
+        File file = File.createTempFile("ldb-bulk-", ".run", tempDir);
+        long[] count = new long[1];
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16))) {
+            merge(group, (key, value) -> {
+                writeEntry(out, key, value);
+                count[0]++;
+            });
+        } catch (IOException ex) {
+            Files.deleteIfExists(file.toPath());
+            throw ex;
+        }
+        stats.mergePasses++;
+        stats.bytesSpilled += file.length();
+        return new Run(group.get(group.size() - 1).seq, file, count[0]);
+    }
+
+    private interface Sink {
+        void accept(byte[] key, byte[] value) throws IOException;
+    }
+
+    /**
+     * Feed sink the entries of runs in key order, the newest of equal keys.
+     */
+    private static void merge(List<Run> runs, Sink sink) throws IOException {
+        // Smallest key first; for equal keys the newest run first.
+        PriorityQueue<Run> heap = new PriorityQueue<>((a, b) -> {
+            int c = LDBBytes.compare(a.key, b.key);
+            return c != 0 ? c : Integer.compare(b.seq, a.seq);
+        });
+        for (Run run : runs) {
+            if (run.advance()) {
+                heap.add(run);
+            }
+        }
+        byte[] lastKey = null;
+        while (!heap.isEmpty()) {
+            Run run = heap.poll();
+            byte[] key = run.key;
+            byte[] value = run.value;
+            if (run.advance()) {
+                heap.add(run);
+            }
+            if (lastKey != null && LDBBytes.compare(lastKey, key) == 0) {
+                continue;
+            }
+            lastKey = key;
+            sink.accept(key, value);
+        }
+    }
+
+    private void merge(List<Run> runs, Stats stats) throws IOException {
+        try (BatchSink sink = new BatchSink(stats)) {
+            merge(runs, sink);
+            sink.write();
+        }
+    }
+
+    /**
+     * Writes merged entries to the DB in batches of about batchBytes.
+     */
+    private final class BatchSink implements Sink, Closeable {
+        private final Stats stats;
+        private WriteBatch batch = db.createWriteBatch();
+        private long size;
+        private int count;
+
+        BatchSink(Stats stats) {
+            this.stats = stats;
+        }
+
+        @Override
+        public void accept(byte[] key, byte[] value) throws IOException {
+            batch.put(key, value);
+            size += key.length + value.length;
+            count++;
+            if (size >= batchBytes) {
+                write();
+                batch.close();
+                batch = db.createWriteBatch();
+            }
+        }
+
+        void write() {
+            if (count == 0) {
+                return;
+            }
+            long start = metrics.start();
+            try {
+                db.write(batch, writeOptions);
+            } catch (RuntimeException ex) {
+                metrics.error(LDBMetrics.Op.PUT_BATCH);
+                throw ex;
+            }
+            metrics.record(LDBMetrics.Op.PUT_BATCH, start, size, 0);
+            stats.entriesWritten += count;
+            stats.bytesWritten += size;
+            stats.batches++;
+            size = 0;
+            count = 0;
+        }
+
+        @Override
+        public void close() throws IOException {
+            batch.close();
+        }
+    }
+
+    /**
+     * Sorted source of entries: the in-memory tail or a spilled file.
+     */
+    private static class Run implements Closeable {
+        private final int seq;
+        private final Iterator<Map.Entry<byte[], byte[]>> memory;
+        private final File file;
+        private DataInputStream in;
+        private long remaining;
+        private byte[] key;
+        private byte[] value;
+
+        Run(int seq, Iterator<Map.Entry<byte[], byte[]>> memory) {
+            this.seq = seq;
+            this.memory = memory;
+            this.file = null;
+        }
+
+        Run(int seq, File file, long count) {
+            this.seq = seq;
+            this.memory = null;
+            this.file = file;
+            this.remaining = count;
+        }
+
+        boolean advance() throws IOException {
+            if (memory != null) {
+                if (!memory.hasNext()) {
+                    return false;
+                }
+                Map.Entry<byte[], byte[]> e = memory.next();
+                key = e.getKey();
+                value = e.getValue();
+                return true;
+            }
+            if (remaining == 0) {
+                close();
+                return false;
+            }
+            if (in == null) {
+                in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 1 << 16));
+            }
+            key = new byte[in.readInt()];
+            in.readFully(key);
+            value = new byte[in.readInt()];
+            in.readFully(value);
+            remaining--;
+            return true;
+        }
+
+        @Override
+        public void close() {
+            if (file == null) {
+                return;
+            }
+            try {
+                if (in != null) {
+                    in.close();
+                    in = null;
+                }
+                Files.deleteIfExists(file.toPath());
+            } catch (IOException ex) {
+                logger.error("close run: ", ex);
+            }
+        }
+    }
+
+    public static class Stats {
+        private long entriesRead;
+        private long entriesWritten;
+        private long batches;
+        private long bytesWritten;
+        private int runsSpilled;
+        private int mergePasses;
+        private long bytesSpilled;
+        private long elapsedNanos;
+
+        public long getEntriesRead() {
+            return entriesRead;
+        }
+
+        /**
+         * Entries written after dropping duplicate keys.
+         */
+        public long getEntriesWritten() {
+            return entriesWritten;
+        }
+
+        public long getBatches() {
+            return batches;
+        }
+
+        public long getBytesWritten() {
+            return bytesWritten;
+        }
+
+        public int getRunsSpilled() {
+            return runsSpilled;
+        }
+
+        /**
+         * Intermediate merges needed to stay within maxFanIn open runs.
+         */
+        public int getMergePasses() {
+            return mergePasses;
+        }
+
+        public long getBytesSpilled() {
+            return bytesSpilled;
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            return "Stats{" + "entriesRead=" + entriesRead + ", entriesWritten=" + entriesWritten
+                    + ", batches=" + batches + ", bytesWritten=" + bytesWritten + ", runsSpilled=" + runsSpilled
+                    + ", mergePasses=" + mergePasses + ", bytesSpilled=" + bytesSpilled + ", elapsedMs=" + elapsedNanos / 1000000 + '}';
+        }
+    }
+}
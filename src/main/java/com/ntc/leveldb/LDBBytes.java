@@ -0,0 +1,156 @@
+/*
+ * Copyright 2026 nghiatc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ntc.leveldb;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Helpers for LevelDB's default bytewise (unsigned lexicographic) key order.
+ *
+ * @author nghiatc
+ * @since Oct 18, 2026
+ */
+public final class LDBBytes {
+
+    /**
+     * Prefixes of the index entries and merge operands stored next to the
+     * records. Puts of keys starting with them are rejected and scans skip
+     * them; every other key, 0x00-prefixed ones included, is a record.
+     */
+    static final byte[] INDEX_PREFIX = {0, 'i', 'd', 'x', 0};
+    static final byte[] MERGE_PREFIX = {0, 'm', 'r', 'g', 0};
+
+    private LDBBytes() {}
+
+    public static boolean isReserved(byte[] key) {
+        return reservedPrefix(key) != null;
+    }
+
+    /**
+     * The reserved prefix key starts with, or null for a record key.
+     */
+    static byte[] reservedPrefix(byte[] key) {
+        if (key.length > 0 && key[0] == 0) {
+            if (startsWith(key, INDEX_PREFIX)) {
+                return INDEX_PREFIX;
+            }
+            if (startsWith(key, MERGE_PREFIX)) {
+                return MERGE_PREFIX;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Throw IllegalArgumentException when key is in a reserved range.
+     */
+    public static void checkRecordKey(byte[] key) {
+        if (isReserved(key)) {
+            throw new IllegalArgumentException("Keys starting with the index or merge prefix are reserved.");
+        }
+    }
+
+    public static int compare(byte[] a, byte[] b) {
+        int n = Math.min(a.length, b.length);
+        for (int i = 0; i < n; i++) {
+            int c = (a[i] & 0xFF) - (b[i] & 0xFF);
+            if (c != 0) {
+                return c;
+            }
+        }
+        return a.length - b.length;
+    }
+
+    public static boolean startsWith(byte[] key, byte[] prefix) {
+        if (key.length < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (key[i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Smallest key greater than every key starting with prefix, or null when
+     * no such key exists (prefix is empty or all 0xFF).
+     */
+    public static byte[] prefixEnd(byte[] prefix) {
+        for (int i = prefix.length - 1; i >= 0; i--) {
+            if (prefix[i] != (byte) 0xFF) {
+                byte[] end = new byte[i + 1];
+                System.arraycopy(prefix, 0, end, 0, i + 1);
+                end[i]++;
+                return end;
+            }
+        }
+        return null;
+    }
+
+    public static byte[] concat(byte[] a, byte[] b) {
+        byte[] rs = new byte[a.length + b.length];
+        System.arraycopy(a, 0, rs, 0, a.length);
+        System.arraycopy(b, 0, rs, a.length, b.length);
+        return rs;
+    }
+
+    /**
+     * Remaining bytes of buf, without moving its position. Returns the
+     * backing array itself when it spans exactly the remaining bytes.
+     */
+    public static byte[] toArray(ByteBuffer buf) {
+        if (buf.hasArray() && buf.arrayOffset() + buf.position() == 0 && buf.remaining() == buf.array().length) {
+            return buf.array();
+        }
+        byte[] rs = new byte[buf.remaining()];
+        buf.duplicate().get(rs);
+        return rs;
+    }
+
+    /**
+     * Self-delimiting form of b that sorts like b: 0x00 becomes 0x00 0xFF and
+     * 0x00 0x01 terminates it, so escape(b) + suffix keys group by b.
+     */
+    public static byte[] escape(byte[] b) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(b.length + 2);
+        for (byte x : b) {
+            out.write(x);
+            if (x == 0) {
+                out.write(0xFF);
+            }
+        }
+        out.write(0);
+        out.write(1);
+        return out.toByteArray();
+    }
+
+    /**
+     * Bytes escaped at offset from of buf, the inverse of escape.
+     */
+    public static byte[] unescape(byte[] buf, int from) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (int i = from; i + 1 < buf.length && !(buf[i] == 0 && buf[i + 1] == 1); i++) {
+            out.write(buf[i]);
+            if (buf[i] == 0) {
+                i++;
+            }
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,275 @@
+/*
+ * Copyright 2026 nghiatc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ntc.leveldb;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * On-heap read-through cache for hot keys, bounded by bytes and split in
+ * LRU segments with their own lock. Writes through the connection invalidate
+ * the key; a load only fills the cache when no write hit its segment in the
+ * meantime, so a stale value read before a write never gets cached.
+ * Optionally remembers missing keys (negative cache).
+ * <p>
+ * The cache is disabled until {@link #enable(long, boolean)} is called; while
+ * disabled every call is a cheap no-op.
+ *
+ * @author nghiatc
+ * @since Oct 18, 2026
+ */
+public class LDBCache {
+
+    /** Per entry bookkeeping overhead counted against the byte budget. */
+    private static final int ENTRY_OVERHEAD = 64;
+    private static final int SEGMENTS = 16;
+    private static final byte[] MISSING = new byte[0];
+
+    private final Segment[] segments = new Segment[SEGMENTS];
+    private volatile boolean enabled;
+    private volatile boolean negativeCache;
+    private long maxBytes;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder negativeHits = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public LDBCache() {
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public boolean isNegativeCache() {
+        return negativeCache;
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    public synchronized void enable(long maxBytes, boolean negativeCache) {
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException("maxBytes must be positive: " + maxBytes);
+        }
+        this.maxBytes = maxBytes;
+        for (Segment seg : segments) {
+            synchronized (seg) {
+                seg.maxBytes = Math.max(maxBytes / SEGMENTS, 1);
+                seg.evict();
+            }
+        }
+        this.negativeCache = negativeCache;
+        this.enabled = true;
+    }
+
+    public synchronized void disable() {
+        enabled = false;
+        clear();
+    }
+
+    /**
+     * Cached value, {@link #isMissing(byte[])} for a cached absent key, or
+     * null when the key is not cached. The returned array must not be modified.
+     */
+    public byte[] get(byte[] key) {
+        if (!enabled) {
+            return null;
+        }
+        Segment seg = segment(key);
+        byte[] v;
+        synchronized (seg) {
+            v = seg.map.get(new Key(key));
+        }
+        if (v == null) {
+            misses.increment();
+        } else if (v == MISSING) {
+            negativeHits.increment();
+        } else {
+            hits.increment();
+        }
+        return v;
+    }
+
+    public static boolean isMissing(byte[] value) {
+        return value == MISSING;
+    }
+
+    /**
+     * Version to pass to {@link #putLoaded} after reading the key from the DB.
+     */
+    public long beginLoad(byte[] key) {
+        if (!enabled) {
+            return 0;
+        }
+        Segment seg = segment(key);
+        synchronized (seg) {
+            return seg.version;
+        }
+    }
+
+    /**
+     * Cache a value read from the DB, null for an absent key. Ignored when
+     * the segment was written since beginLoad.
+     */
+    public void putLoaded(byte[] key, byte[] value, long version) {
+        if (!enabled || (value == null && !negativeCache)) {
+            return;
+        }
+        Segment seg = segment(key);
+        synchronized (seg) {
+            if (seg.version != version) {
+                return;
+            }
+            // Copy so callers can not modify cached bytes.
+            Key k = new Key(key.clone());
+            byte[] v = value != null ? value.clone() : MISSING;
+            byte[] old = seg.map.put(k, v);
+            if (old != null) {
+                seg.bytes -= weight(key, old);
+            }
+            seg.bytes += weight(key, v);
+            seg.evict();
+        }
+    }
+
+    public void invalidate(byte[] key) {
+        if (!enabled) {
+            return;
+        }
+        Segment seg = segment(key);
+        synchronized (seg) {
+            seg.version++;
+            byte[] old = seg.map.remove(new Key(key));
+            if (old != null) {
+                seg.bytes -= weight(key, old);
+            }
+        }
+    }
+
+    public void invalidateAll(Collection<byte[]> keys) {
+        if (!enabled) {
+            return;
+        }
+        for (byte[] key : keys) {
+            if (key != null) {
+                invalidate(key);
+            }
+        }
+    }
+
+    public void clear() {
+        for (Segment seg : segments) {
+            synchronized (seg) {
+                seg.version++;
+                seg.map.clear();
+                seg.bytes = 0;
+            }
+        }
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getNegativeHitCount() {
+        return negativeHits.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    public long getSizeBytes() {
+        long rs = 0;
+        for (Segment seg : segments) {
+            synchronized (seg) {
+                rs += seg.bytes;
+            }
+        }
+        return rs;
+    }
+
+    public long getEntryCount() {
+        long rs = 0;
+        for (Segment seg : segments) {
+            synchronized (seg) {
+                rs += seg.map.size();
+            }
+        }
+        return rs;
+    }
+
+    private Segment segment(byte[] key) {
+        int h = Arrays.hashCode(key);
+        h ^= (h >>> 16);
+        return segments[h & (SEGMENTS - 1)];
+    }
+
+    private static long weight(byte[] key, byte[] value) {
+        return key.length + value.length + ENTRY_OVERHEAD;
+    }
+
+    private class Segment {
+        private final LinkedHashMap<Key, byte[]> map = new LinkedHashMap<>(64, 0.75f, true);
+        private long maxBytes;
+        private long bytes;
+        private long version;
+
+        private void evict() {
+            Iterator<Map.Entry<Key, byte[]>> it = map.entrySet().iterator();
+            while (bytes > maxBytes && it.hasNext()) {
+                Map.Entry<Key, byte[]> e = it.next();
+                bytes -= weight(e.getKey().bytes, e.getValue());
+                it.remove();
+                evictions.increment();
+            }
+        }
+    }
+
+    private static final class Key {
+        private final byte[] bytes;
+        private final int hash;
+
+        Key(byte[] bytes) {
+            this.bytes = bytes;
+            this.hash = Arrays.hashCode(bytes);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key && Arrays.equals(bytes, ((Key) o).bytes);
+        }
+    }
+}
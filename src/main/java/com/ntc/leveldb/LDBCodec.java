@@ -0,0 +1,52 @@
+/*
+ * Copyright 2026 nghiatc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ntc.leveldb;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Converts values of type T to and from LevelDB bytes. Implementations write
+ * into the caller's buffer and read relative to the source position, so a
+ * key can be encoded after a prefix in a single array.
+ *
+ * @author nghiatc
+ * @since Oct 18, 2026
+ * @param <T> value type
+ */
+public interface LDBCodec<T> {
+
+    /**
+     * Exact number of bytes encode will write for value.
+     */
+    int encodedSize(T value);
+
+    void encode(T value, ByteBuffer dst);
+
+    /**
+     * Decode from the remaining bytes of src.
+     */
+    T decode(ByteBuffer src);
+
+    default byte[] encode(T value) {
+        byte[] rs = new byte[encodedSize(value)];
+        encode(value, ByteBuffer.wrap(rs));
+        return rs;
+    }
+
+    default T decode(byte[] b) {
+        return b != null ? decode(ByteBuffer.wrap(b)) : null;
+    }
+}
@@ -0,0 +1,315 @@
+/*
+ * Copyright 2026 nghiatc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ntc.leveldb;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Built-in codecs. INT, LONG and STRING match NLSerializer, incInt/incLong
+ * and put(String, String), so typed and untyped code can share data. The
+ * ORDERED_* codecs flip the sign bit so that bytewise key order is numeric
+ * order, for range scans over numeric keys; they start with a 0x01 marker so
+ * no key can collide with the reserved index and merge prefixes.
+ *
+ * @author nghiatc
+ * @since Oct 18, 2026
+ */
+public final class LDBCodecs {
+
+    private LDBCodecs() {}
+
+    private static final byte ORDERED_MARK = 0x01;
+
+    public static final LDBCodec<byte[]> BYTES = new LDBCodec<byte[]>() {
+        @Override
+        public int encodedSize(byte[] value) {
+            return value.length;
+        }
+
+        @Override
+        public void encode(byte[] value, ByteBuffer dst) {
+            dst.put(value);
+        }
+
+        @Override
+        public byte[] decode(ByteBuffer src) {
+            byte[] rs = new byte[src.remaining()];
+            src.get(rs);
+            return rs;
+        }
+
+        @Override
+        public byte[] encode(byte[] value) {
+            return value;
+        }
+
+        @Override
+        public byte[] decode(byte[] b) {
+            return b;
+        }
+    };
+
+    /**
+     * UTF-8 text.
+     */
+    public static final LDBCodec<String> STRING = new LDBCodec<String>() {
+        @Override
+        public int encodedSize(String value) {
+            int n = 0;
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c < 0x80) {
+                    n += 1;
+                } else if (c < 0x800) {
+                    n += 2;
+                } else if (Character.isHighSurrogate(c) && i + 1 < value.length() && Character.isLowSurrogate(value.charAt(i + 1))) {
+                    n += 4;
+                    i++;
+                } else if (Character.isSurrogate(c)) {
+                    n += 1; // Unpaired surrogate is written as '?', as String.getBytes does.
+                } else {
+                    n += 3;
+                }
+            }
+            return n;
+        }
+
+        @Override
+        public void encode(String value, ByteBuffer dst) {
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c < 0x80) {
+                    dst.put((byte) c);
+                } else if (c < 0x800) {
+                    dst.put((byte) (0xC0 | (c >> 6)));
+                    dst.put((byte) (0x80 | (c & 0x3F)));
+                } else if (Character.isHighSurrogate(c) && i + 1 < value.length() && Character.isLowSurrogate(value.charAt(i + 1))) {
+                    int cp = Character.toCodePoint(c, value.charAt(++i));
+                    dst.put((byte) (0xF0 | (cp >> 18)));
+                    dst.put((byte) (0x80 | ((cp >> 12) & 0x3F)));
+                    dst.put((byte) (0x80 | ((cp >> 6) & 0x3F)));
+                    dst.put((byte) (0x80 | (cp & 0x3F)));
+                } else if (Character.isSurrogate(c)) {
+                    dst.put((byte) '?');
+                } else {
+                    dst.put((byte) (0xE0 | (c >> 12)));
+                    dst.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+                    dst.put((byte) (0x80 | (c & 0x3F)));
+                }
+            }
+        }
+
+        @Override
+        public String decode(ByteBuffer src) {
+            String rs;
+            if (src.hasArray()) {
+                rs = new String(src.array(), src.arrayOffset() + src.position(), src.remaining(), StandardCharsets.UTF_8);
+                src.position(src.limit());
+            } else {
+                byte[] b = new byte[src.remaining()];
+                src.get(b);
+                rs = new String(b, StandardCharsets.UTF_8);
+            }
+            return rs;
+        }
+    };
+
+    public static final LDBCodec<Boolean> BOOLEAN = new FixedCodec<Boolean>(NLSerializer.BOOL_SIZE) {
+        @Override
+        public void encode(Boolean value, ByteBuffer dst) {
+            dst.put((byte) (value ? 1 : 0));
+        }
+
+        @Override
+        public Boolean decode(ByteBuffer src) {
+            return src.get() != 0;
+        }
+    };
+
+    /**
+     * 4 bytes big-endian, same as NLSerializer.serializeInt and incInt.
+     */
+    public static final LDBCodec<Integer> INT = new FixedCodec<Integer>(NLSerializer.INT_SIZE) {
+        @Override
+        public void encode(Integer value, ByteBuffer dst) {
+            dst.putInt(value);
+        }
+
+        @Override
+        public Integer decode(ByteBuffer src) {
+            return src.getInt();
+        }
+    };
+
+    /**
+     * 8 bytes big-endian, same as NLSerializer.serializeLong and incLong.
+     */
+    public static final LDBCodec<Long> LONG = new FixedCodec<Long>(NLSerializer.LONG_SIZE) {
+        @Override
+        public void encode(Long value, ByteBuffer dst) {
+            dst.putLong(value);
+        }
+
+        @Override
+        public Long decode(ByteBuffer src) {
+            return src.getLong();
+        }
+    };
+
+    public static final LDBCodec<Float> FLOAT = new FixedCodec<Float>(NLSerializer.FLOAT_SIZE) {
+        @Override
+        public void encode(Float value, ByteBuffer dst) {
+            dst.putFloat(value);
+        }
+
+        @Override
+        public Float decode(ByteBuffer src) {
+            return src.getFloat();
+        }
+    };
+
+    public static final LDBCodec<Double> DOUBLE = new FixedCodec<Double>(NLSerializer.DOUBLE_SIZE) {
+        @Override
+        public void encode(Double value, ByteBuffer dst) {
+            dst.putDouble(value);
+        }
+
+        @Override
+        public Double decode(ByteBuffer src) {
+            return src.getDouble();
+        }
+    };
+
+    /**
+     * 0x01 then 4 bytes big-endian with the sign bit flipped: bytewise order is numeric order.
+     */
+    public static final LDBCodec<Integer> ORDERED_INT = new FixedCodec<Integer>(1 + NLSerializer.INT_SIZE) {
+        @Override
+        public void encode(Integer value, ByteBuffer dst) {
+            dst.put(ORDERED_MARK);
+            dst.putInt(value ^ Integer.MIN_VALUE);
+        }
+
+        @Override
+        public Integer decode(ByteBuffer src) {
+            src.get();
+            return src.getInt() ^ Integer.MIN_VALUE;
+        }
+    };
+
+    /**
+     * 0x01 then 8 bytes big-endian with the sign bit flipped: bytewise order is numeric order.
+     */
+    public static final LDBCodec<Long> ORDERED_LONG = new FixedCodec<Long>(1 + NLSerializer.LONG_SIZE) {
+        @Override
+        public void encode(Long value, ByteBuffer dst) {
+            dst.put(ORDERED_MARK);
+            dst.putLong(value ^ Long.MIN_VALUE);
+        }
+
+        @Override
+        public Long decode(ByteBuffer src) {
+            src.get();
+            return src.getLong() ^ Long.MIN_VALUE;
+        }
+    };
+
+    /**
+     * Zigzag varint, 1 to 10 bytes; small values of either sign stay small.
+     * Not order-preserving, use it for values rather than keys.
+     */
+    public static final LDBCodec<Long> VARLONG = new LDBCodec<Long>() {
+        @Override
+        public int encodedSize(Long value) {
+            return varintSize((value << 1) ^ (value >> 63));
+        }
+
+        @Override
+        public void encode(Long value, ByteBuffer dst) {
+            writeVarint((value << 1) ^ (value >> 63), dst);
+        }
+
+        @Override
+        public Long decode(ByteBuffer src) {
+            long v = readVarint(src);
+            return (v >>> 1) ^ -(v & 1);
+        }
+    };
+
+    /**
+     * Zigzag varint, 1 to 5 bytes.
+     */
+    public static final LDBCodec<Integer> VARINT = new LDBCodec<Integer>() {
+        @Override
+        public int encodedSize(Integer value) {
+            return varintSize(((value << 1) ^ (value >> 31)) & 0xFFFFFFFFL);
+        }
+
+        @Override
+        public void encode(Integer value, ByteBuffer dst) {
+            writeVarint(((value << 1) ^ (value >> 31)) & 0xFFFFFFFFL, dst);
+        }
+
+        @Override
+        public Integer decode(ByteBuffer src) {
+            int v = (int) readVarint(src);
+            return (v >>> 1) ^ -(v & 1);
+        }
+    };
+
+    static int varintSize(long v) {
+        int n = 1;
+        while ((v & ~0x7FL) != 0) {
+            v >>>= 7;
+            n++;
+        }
+        return n;
+    }
+
+    static void writeVarint(long v, ByteBuffer dst) {
+        while ((v & ~0x7FL) != 0) {
+            dst.put((byte) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        dst.put((byte) v);
+    }
+
+    static long readVarint(ByteBuffer src) {
+        long rs = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = src.get();
+            rs |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return rs;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint");
+    }
+
+    private abstract static class FixedCodec<T> implements LDBCodec<T> {
+        private final int size;
+
+        FixedCodec(int size) {
+            this.size = size;
+        }
+
+        @Override
+        public int encodedSize(T value) {
+            return size;
+        }
+    }
+}
@@ -0,0 +1,222 @@
+/*
+ * Copyright 2026 nghiatc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ntc.leveldb;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import org.iq80.leveldb.CompressionType;
+import org.iq80.leveldb.Options;
+import org.iq80.leveldb.WriteOptions;
+
+/**
+ * Tuning loaded from a properties file such as conf/development.properties.
+ * <p>
+ * Every key may be set per profile as "&lt;profile&gt;.&lt;key&gt;", and is
+ * overridden by the environment variable named after the key in upper case
+ * with dots as underscores (leveldb.cache.maxBytes -&gt; LEVELDB_CACHE_MAXBYTES),
+ * then by a -D system property of the same name. The profile comes from the
+ * caller, else from leveldb.profile / LEVELDB_PROFILE. Sizes accept KB, MB
+ * and GB suffixes.
+ *
+ * @author nghiatc
+ * @since Oct 18, 2026
+ */
+public class LDBConfig {
+
+    public static final String DEFAULT_PATH = "conf/development.properties";
+
+    private final Properties props;
+    private final String profile;
+    private final Map<String, String> env;
+
+    public LDBConfig(Properties props, String profile) {
+        this(props, profile, System.getenv());
+    }
+
+    LDBConfig(Properties props, String profile, Map<String, String> env) {
+        this.props = props;
+        this.env = env;
+        if (profile == null || profile.isEmpty()) {
+            profile = System.getProperty("leveldb.profile", env.get("LEVELDB_PROFILE"));
+        }
+        if (profile == null || profile.isEmpty()) {
+            profile = props.getProperty("leveldb.profile");
+        }
+        this.profile = profile;
+    }
+
+    public static LDBConfig load() throws IOException {
+        return load(DEFAULT_PATH, null);
+    }
+
+    public static LDBConfig load(String path, String profile) throws IOException {
+        Properties props = new Properties();
+        try (InputStream in = new FileInputStream(path)) {
+            props.load(new InputStreamReader(in, StandardCharsets.UTF_8));
+        }
+        return new LDBConfig(props, profile);
+    }
+
+    public String getProfile() {
+        return profile;
+    }
+
+    public String getString(String key, String defaultValue) {
+        String v = System.getProperty(key);
+        if (v == null) {
+            v = env.get(key.toUpperCase(Locale.ROOT).replace('.', '_'));
+        }
+        if (v == null && profile != null) {
+            v = props.getProperty(profile + "." + key);
+        }
+        if (v == null) {
+            v = props.getProperty(key);
+        }
+        return v != null && !v.trim().isEmpty() ? v.trim() : defaultValue;
+    }
+
+    public boolean getBoolean(String key, boolean defaultValue) {
+        String v = getString(key, null);
+        return v != null ? Boolean.parseBoolean(v) : defaultValue;
+    }
+
+    public int getInt(String key, int defaultValue) {
+        long v = getLong(key, defaultValue);
+        if (v < Integer.MIN_VALUE || v > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Value out of int range for " + key + ": " + v);
+        }
+        return (int) v;
+    }
+
+    public long getLong(String key, long defaultValue) {
+        String v = getString(key, null);
+        return v != null ? parseSize(key, v) : defaultValue;
+    }
+
+    static long parseSize(String key, String v) {
+        String s = v.toUpperCase(Locale.ROOT).replace("_", "");
+        long unit = 1;
+        if (s.endsWith("B") && s.length() > 1 && !Character.isDigit(s.charAt(s.length() - 2))) {
+            s = s.substring(0, s.length() - 1);
+        }
+        if (s.endsWith("K")) {
+            unit = 1024;
+        } else if (s.endsWith("M")) {
+            unit = 1048576;
+        } else if (s.endsWith("G")) {
+            unit = 1L << 30;
+        }
+        if (unit > 1) {
+            s = s.substring(0, s.length() - 1);
+        }
+        try {
+            return Math.multiplyExact(Long.parseLong(s.trim()), unit);
+        } catch (NumberFormatException | ArithmeticException ex) {
+            throw new IllegalArgumentException("Invalid value for " + key + ": " + v, ex);
+        }
+    }
+
+    /**
+     * LevelDB Options; unset keys keep LevelDB's defaults except the 50MB block cache.
+     */
+    public Options toOptions() {
+        Options defaults = new Options();
+        Options opts = new Options()
+                .createIfMissing(getBoolean("leveldb.createIfMissing", true))
+                .paranoidChecks(getBoolean("leveldb.paranoidChecks", defaults.paranoidChecks()))
+                .verifyChecksums(getBoolean("leveldb.verifyChecksums", defaults.verifyChecksums()))
+                .writeBufferSize(getInt("leveldb.writeBufferSize", defaults.writeBufferSize()))
+                .blockSize(getInt("leveldb.blockSize", defaults.blockSize()))
+                .blockRestartInterval(getInt("leveldb.blockRestartInterval", defaults.blockRestartInterval()))
+                .maxOpenFiles(getInt("leveldb.maxOpenFiles", defaults.maxOpenFiles()));
+        String compression = getString("leveldb.compression", null);
+        if (compression != null) {
+            opts.compressionType(CompressionType.valueOf(compression.toUpperCase(Locale.ROOT)));
+        }
+        opts.cacheSize(getLong("leveldb.cacheSize", 50 * 1048576));
+        return opts;
+    }
+
+    /**
+     * Open pathDB with {@link #toOptions()} and {@link #apply(LDBConfigurable)}.
+     */
+    public LDBConnection open(String pathDB) throws IOException {
+        LDBConnection conn = new LDBConnection(pathDB, toOptions());
+        try {
+            apply(conn);
+        } catch (RuntimeException ex) {
+            conn.close();
+            throw ex;
+        }
+        return conn;
+    }
+
+    /**
+     * Shared instance for pathDB, configured like {@link #open(String)} when
+     * this call creates it; an existing instance is returned as is.
+     */
+    public LDBSingleConnection openSingle(String pathDB) throws IOException {
+        return LDBSingleConnection.getInstance(pathDB, toOptions(), this::apply);
+    }
+
+    /**
+     * Turn on the features configured for the connection: write options,
+     * read cache, group commit, counter write-behind, write throttle, TTL
+     * sweeper, read session reaper, merge compaction and metrics with an
+     * optional JMX export. Call it once per connection.
+     */
+    public void apply(LDBConfigurable conn) {
+        conn.setWriteOptions(new WriteOptions().sync(getBoolean("leveldb.sync", false)));
+        conn.getReadOptions().fillCache(getBoolean("leveldb.fillCache", true));
+        long cacheBytes = getLong("leveldb.cache.maxBytes", 0);
+        if (cacheBytes > 0) {
+            conn.enableCache(cacheBytes, getBoolean("leveldb.cache.negative", false));
+        }
+        int groupBytes = getInt("leveldb.groupCommit.maxBatchBytes", 0);
+        if (groupBytes > 0) {
+            conn.enableGroupCommit(groupBytes, getLong("leveldb.groupCommit.maxLingerMs", 1),
+                    getInt("leveldb.groupCommit.maxQueued", LDBGroupCommit.DEFAULT_MAX_QUEUED));
+        }
+        long flushMs = getLong("leveldb.counter.flushIntervalMs", 0);
+        if (flushMs > 0) {
+            conn.enableCounterWriteBehind(flushMs, getInt("leveldb.counter.maxPendingDeltas", 10000));
+        }
+        if (getBoolean("leveldb.throttle.enabled", false)) {
+            conn.enableWriteThrottle(getLong("leveldb.throttle.maxBytesPerSec", 0), getLong("leveldb.throttle.latencyTargetMs", 0));
+        }
+        long sweepRate = getLong("leveldb.ttl.sweepEntriesPerSec", 0);
+        if (sweepRate > 0) {
+            conn.enableTtlSweeper(sweepRate, getInt("leveldb.ttl.sweepBatchSize", 1000));
+        }
+        conn.setReadSessionMaxAge(getLong("leveldb.readSession.maxAgeMs", 0));
+        long mergeRate = getLong("leveldb.merge.compactOperandsPerSec", 0);
+        if (mergeRate > 0) {
+            conn.enableMergeCompaction(mergeRate, getInt("leveldb.merge.compactBatchSize", 1000));
+        }
+        if (getBoolean("leveldb.metrics.enabled", false)) {
+            conn.enableMetrics();
+            if (getBoolean("leveldb.metrics.jmx", false)) {
+                conn.exportMetrics(new LDBMetricsJmxExporter());
+            }
+        }
+    }
+}
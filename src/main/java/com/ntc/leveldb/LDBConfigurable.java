@@ -0,0 +1,51 @@
+/*
+ * Copyright 2026 nghiatc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ntc.leveldb;
+
+import org.iq80.leveldb.ReadOptions;
+import org.iq80.leveldb.WriteOptions;
+
+/**
+ * Settings of {@link LDBConnection} and {@link LDBSingleConnection} that
+ * {@link LDBConfig#apply(LDBConfigurable)} turns on.
+ *
+ * @author nghiatc
+ * @since Oct 18, 2026
+ */
+public interface LDBConfigurable {
+
+    void setWriteOptions(WriteOptions wo);
+
+    ReadOptions getReadOptions();
+
+    void enableCache(long maxBytes, boolean negativeCache);
+
+    void enableGroupCommit(int maxBatchBytes, long maxLingerMs, int maxQueued);
+
+    void enableCounterWriteBehind(long flushIntervalMs, int maxPendingDeltas);
+
+    void enableWriteThrottle(long maxBytesPerSec, long latencyTargetMs);
+
+    void enableTtlSweeper(long maxEntriesPerSec, int batchSize);
+
+    void setReadSessionMaxAge(long maxAgeMillis);
+
+    void enableMergeCompaction(long maxOperandsPerSec, int batchSize);
+
+    void enableMetrics();
+
+    void exportMetrics(LDBMetricsExporter exporter);
+}
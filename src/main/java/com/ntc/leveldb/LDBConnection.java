@@ -17,13 +17,24 @@ package com.ntc.leveldb;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import org.fusesource.leveldbjni.JniDBFactory;
 import static org.fusesource.leveldbjni.JniDBFactory.asString;
 import static org.fusesource.leveldbjni.JniDBFactory.bytes;
 import static org.fusesource.leveldbjni.JniDBFactory.factory;
 import org.iq80.leveldb.DB;
 import org.iq80.leveldb.Options;
+import org.iq80.leveldb.ReadOptions;
+import org.iq80.leveldb.Snapshot;
 import org.iq80.leveldb.WriteBatch;
+import org.iq80.leveldb.WriteOptions;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -32,7 +43,7 @@ import org.slf4j.LoggerFactory;
  * @author nghiatc
  * @since Jul 28, 2016
  */
-public class LDBConnection {
+public class LDBConnection implements LDBStore, LDBConfigurable {
 
     private final Logger logger = LoggerFactory.getLogger(LDBConnection.class);
 
@@ -40,6 +51,21 @@ public class LDBConnection {
     private DB db;
     private Options options;
     private NLSerializer nls;
+    private LDBStripedLock keyLocks;
+    private LDBCounter counter;
+    private LDBMultiGet multiGet;
+    private LDBWriteThrottle throttle;
+    private LDBTtlSweeper ttlSweeper;
+    private LDBIndexer indexer;
+    private LDBAtomic atomic;
+    private LDBMerger merger;
+    private LDBReadSessions readSessions;
+    private final LDBCache cache = new LDBCache();
+    private final LDBMetrics metrics = new LDBMetrics();
+    private final List<LDBMetricsExporter> exporters = new CopyOnWriteArrayList<>();
+    private volatile LDBGroupCommit groupCommit;
+    private final WriteOptions writeOptions = new WriteOptions();
+    private final ReadOptions readOptions = new ReadOptions();
 
     public String getDbDirectory() {
         return dbDirectory;
@@ -57,6 +83,33 @@ public class LDBConnection {
         return nls;
     }
 
+    public LDBStripedLock getKeyLocks() {
+        return keyLocks;
+    }
+
+    /**
+     * Default WriteOptions of calls without an explicit one, including
+     * counters and group commit.
+     */
+    public WriteOptions getWriteOptions() {
+        return writeOptions;
+    }
+
+    public void setWriteOptions(WriteOptions wo) {
+        writeOptions.sync(wo.sync());
+    }
+
+    /**
+     * Default ReadOptions of calls without an explicit one.
+     */
+    public ReadOptions getReadOptions() {
+        return readOptions;
+    }
+
+    public void setReadOptions(ReadOptions ro) {
+        readOptions.fillCache(ro.fillCache()).verifyChecksums(ro.verifyChecksums()).snapshot(ro.snapshot());
+    }
+
     private LDBConnection() {
         options = new Options().createIfMissing(true);
         options.cacheSize(50 * 1048576); // 50MB cache
@@ -75,6 +128,41 @@ public class LDBConnection {
         }
         nls = new NLSerializer();
         db = factory.open(dbDir, options);
+        keyLocks = new LDBStripedLock();
+        counter = new LDBCounter(db, nls, keyLocks, writeOptions, cache);
+        multiGet = new LDBMultiGet(db);
+        throttle = new LDBWriteThrottle(db);
+        indexer = new LDBIndexer(db, keyLocks, cache);
+        merger = new LDBMerger(db, keyLocks, indexer, writeOptions);
+        atomic = new LDBAtomic(db, keyLocks, cache, indexer, merger);
+        readSessions = new LDBReadSessions(db, multiGet, merger);
+        ttlSweeper = new LDBTtlSweeper(db, keyLocks, cache, indexer, writeOptions);
+        registerGauges();
+    }
+
+    private void registerGauges() {
+        metrics.gauge("cache.hits", cache::getHitCount);
+        metrics.gauge("cache.misses", cache::getMissCount);
+        metrics.gauge("cache.negativeHits", cache::getNegativeHitCount);
+        metrics.gauge("cache.evictions", cache::getEvictionCount);
+        metrics.gauge("cache.sizeBytes", cache::getSizeBytes);
+        metrics.gauge("counters.pending", () -> counter.getPendingCount());
+        metrics.gauge("throttle.rateBytesPerSec", () -> throttle.getRateBytesPerSec());
+        metrics.gauge("throttle.throttledWrites", () -> throttle.getThrottledWrites());
+        metrics.gauge("throttle.throttledMillis", () -> throttle.getThrottledMillis());
+        metrics.gauge("ttl.scanned", () -> ttlSweeper.getScanned());
+        metrics.gauge("ttl.expired", () -> ttlSweeper.getExpired());
+        metrics.gauge("readSessions.count", () -> readSessions.getOpenCount());
+        metrics.gauge("readSessions.oldestAgeMs", () -> readSessions.getOldestAgeMillis());
+        metrics.gauge("readSessions.reaped", () -> readSessions.getReaped());
+        metrics.gauge("merge.merged", () -> merger.getMerged());
+        metrics.gauge("merge.folded", () -> merger.getFolded());
+        metrics.gauge("leveldb.stats", () -> db.getProperty("leveldb.stats"));
+        metrics.gauge("leveldb.sstables", () -> db.getProperty("leveldb.sstables"));
+        for (int level = 0; level < 7; level++) {
+            String property = "leveldb.num-files-at-level" + level;
+            metrics.gauge(property, () -> Integer.valueOf(db.getProperty(property)));
+        }
     }
 
     public LDBConnection(String pathDB) throws IOException {
@@ -94,6 +182,28 @@ public class LDBConnection {
     
     public void close() {
         try {
+            for (LDBMetricsExporter exporter : exporters) {
+                exporter.stop();
+            }
+            exporters.clear();
+            if (groupCommit != null) {
+                groupCommit.close();
+            }
+            if (throttle != null) {
+                throttle.disable();
+            }
+            if (ttlSweeper != null) {
+                ttlSweeper.stop();
+            }
+            if (readSessions != null) {
+                readSessions.closeAll();
+            }
+            if (merger != null) {
+                merger.stop();
+            }
+            if (counter != null) {
+                counter.close();
+            }
             if (db != null) {
                 // Make sure you close the db to shutdown the
                 // database and avoid resource leaks.
@@ -104,28 +214,89 @@ public class LDBConnection {
         }
     }
 
+    public LDBMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Start recording per-operation counts, bytes and latency. Disabled by
+     * default.
+     */
+    public void enableMetrics() {
+        metrics.setEnabled(true);
+    }
+
+    public void disableMetrics() {
+        metrics.setEnabled(false);
+    }
+
+    /**
+     * Publish metrics through exporter until close(), named after the DB directory.
+     */
+    public void exportMetrics(LDBMetricsExporter exporter) {
+        exporter.start(dbDirectory, metrics);
+        exporters.add(exporter);
+    }
+
+    /**
+     * LevelDB property such as "leveldb.stats" or "leveldb.sstables".
+     */
+    public String getProperty(String name) {
+        return db.getProperty(name);
+    }
+
     public void put(String key, String value) {
+        put(key, value, writeOptions);
+    }
+
+    public void put(String key, String value, WriteOptions wo) {
+        long start = metrics.start();
         try {
             if (key != null && !key.isEmpty() && value != null && !value.isEmpty()) {
-                db.put(bytes(key), bytes(value));
+                byte[] bk = bytes(key);
+                byte[] bv = bytes(value);
+                long t0 = throttle.acquire(bk.length + bv.length);
+                write(bk, bv, null, false, wo);
+                throttle.complete(t0, bk.length + bv.length);
+                cache.invalidate(bk);
+                metrics.record(LDBMetrics.Op.PUT, start, bk.length + bv.length, 0);
             }
         } catch (Exception ex) {
+            metrics.error(LDBMetrics.Op.PUT);
             logger.error("put: ", ex);
         }
     }
 
     public void putBatch(Map<String, String> mapData) throws IOException {
+        putBatch(mapData, writeOptions);
+    }
+
+    public void putBatch(Map<String, String> mapData, WriteOptions wo) throws IOException {
         if (mapData != null && !mapData.isEmpty()) {
+            long start = metrics.start();
             WriteBatch batch = db.createWriteBatch();
             try {
+                List<byte[]> written = new ArrayList<>(mapData.size());
+                List<byte[]> values = new ArrayList<>(mapData.size());
+                long size = 0;
                 for (String key : mapData.keySet()) {
                     String value = mapData.get(key);
                     if (key != null && !key.isEmpty() && value != null && !value.isEmpty()) {
-                        batch.put(bytes(key), bytes(value));
+                        byte[] bk = bytes(key);
+                        byte[] bv = bytes(value);
+                        batch.put(bk, bv);
+                        written.add(bk);
+                        values.add(bv);
+                        size += bk.length + bv.length;
                     }
                 }
-                db.write(batch);
+                long t0 = throttle.acquire(size);
+                writeBatch(batch, written, values, wo);
+                throttle.complete(t0, size);
+                cache.invalidateAll(written);
+                metrics.record(LDBMetrics.Op.PUT_BATCH, start, size, 0);
             } catch (Exception ex) {
+                metrics.error(LDBMetrics.Op.PUT_BATCH);
                 logger.error("putBatch: ", ex);
             } finally {
                 // Make sure you close the batch to avoid resource leaks.
@@ -137,27 +308,370 @@ public class LDBConnection {
     }
 
     public void putByte(byte[] key, byte[] value) {
+        putByte(key, value, writeOptions);
+    }
+
+    public void putByte(byte[] key, byte[] value, WriteOptions wo) {
+        long start = metrics.start();
         try {
             if (key != null && key.length > 0 && value != null && value.length > 0) {
-                db.put(key, value);
+                long t0 = throttle.acquire(key.length + value.length);
+                write(key, value, null, false, wo);
+                throttle.complete(t0, key.length + value.length);
+                cache.invalidate(key);
+                metrics.record(LDBMetrics.Op.PUT, start, key.length + value.length, 0);
             }
         } catch (Exception ex) {
+            metrics.error(LDBMetrics.Op.PUT);
             logger.error("putByte: ", ex);
         }
     }
 
+    /**
+     * Put the remaining bytes of key and value; buffer positions are not moved.
+     */
+    public void put(ByteBuffer key, ByteBuffer value) {
+        put(key, value, writeOptions);
+    }
+
+    public void put(ByteBuffer key, ByteBuffer value, WriteOptions wo) {
+        if (key != null && key.hasRemaining() && value != null && value.hasRemaining()) {
+            putByte(LDBBytes.toArray(key), LDBBytes.toArray(value), wo);
+        }
+    }
+
+    /**
+     * Put a value that reads treat as absent ttlMillis from now, see LDBTtl.
+     * Expired entries are deleted by the sweeper, see enableTtlSweeper. A
+     * ttlMillis of 0 or less puts the value without expiry.
+     */
+    public void put(String key, String value, long ttlMillis) {
+        put(key, value, ttlMillis, writeOptions);
+    }
+
+    public void put(String key, String value, long ttlMillis, WriteOptions wo) {
+        if (key != null && !key.isEmpty() && value != null && !value.isEmpty()) {
+            putByte(bytes(key), bytes(value), ttlMillis, wo);
+        }
+    }
+
+    public void putByte(byte[] key, byte[] value, long ttlMillis) {
+        putByte(key, value, ttlMillis, writeOptions);
+    }
+
+    public void putByte(byte[] key, byte[] value, long ttlMillis, WriteOptions wo) {
+        if (value != null && value.length > 0 && ttlMillis > 0) {
+            value = LDBTtl.wrap(value, System.currentTimeMillis() + ttlMillis);
+        }
+        putByte(key, value, wo);
+    }
+
+    /**
+     * Put value to key, or delete key when value is null, like putByte and
+     * deleteByte but throwing failures instead of logging them. A null or
+     * empty key or an empty value is ignored.
+     */
+    public void writeByte(byte[] key, byte[] value) {
+        writeByte(key, value, writeOptions);
+    }
+
+    public void writeByte(byte[] key, byte[] value, WriteOptions wo) {
+        if (key == null || key.length == 0 || (value != null && value.length == 0)) {
+            return;
+        }
+        LDBMetrics.Op op = value != null ? LDBMetrics.Op.PUT : LDBMetrics.Op.DELETE;
+        int size = key.length + (value != null ? value.length : 0);
+        long start = metrics.start();
+        try {
+            long t0 = value != null ? throttle.acquire(size) : 0;
+            write(key, value, null, false, wo);
+            if (value != null) {
+                throttle.complete(t0, size);
+            }
+            cache.invalidate(key);
+            metrics.record(op, start, size, 0);
+        } catch (RuntimeException ex) {
+            metrics.error(op);
+            throw ex;
+        }
+    }
+
+    /**
+     * Puts of the non-null values and deletes of the keys mapped to null, in
+     * one WriteBatch with their index changes. Unlike putBatchByte and
+     * deleteBatchByte, failures are thrown instead of logged. Null or empty
+     * keys and empty values are skipped.
+     */
+    public void writeBatchByte(Map<byte[], byte[]> mutations) throws IOException {
+        writeBatchByte(mutations, writeOptions);
+    }
+
+    public void writeBatchByte(Map<byte[], byte[]> mutations, WriteOptions wo) throws IOException {
+        if (mutations != null && !mutations.isEmpty()) {
+            long start = metrics.start();
+            try (WriteBatch batch = db.createWriteBatch()) {
+                List<byte[]> written = new ArrayList<>(mutations.size());
+                List<byte[]> values = new ArrayList<>(mutations.size());
+                long size = 0;
+                for (Map.Entry<byte[], byte[]> e : mutations.entrySet()) {
+                    byte[] key = e.getKey();
+                    byte[] value = e.getValue();
+                    if (key == null || key.length == 0 || (value != null && value.length == 0)) {
+                        continue;
+                    }
+                    if (value != null) {
+                        batch.put(key, value);
+                        size += value.length;
+                    } else {
+                        batch.delete(key);
+                    }
+                    written.add(key);
+                    values.add(value);
+                    size += key.length;
+                }
+                long t0 = throttle.acquire(size);
+                writeBatch(batch, written, values, wo);
+                throttle.complete(t0, size);
+                cache.invalidateAll(written);
+                metrics.record(LDBMetrics.Op.PUT_BATCH, start, size, 0);
+            } catch (IOException | RuntimeException ex) {
+                metrics.error(LDBMetrics.Op.PUT_BATCH);
+                throw ex;
+            }
+        }
+    }
+
+    /**
+     * Put value, or delete key when value is null, with the index changes it
+     * causes and dropping pending merge operands. oldValue is used instead
+     * of reading the current value when oldKnown is set.
+     */
+    private void write(byte[] key, byte[] value, byte[] oldValue, boolean oldKnown, WriteOptions wo) {
+        if (value != null) {
+            LDBBytes.checkRecordKey(key);
+        }
+        if (indexer.isActive() || merger.isMergeKey(key)) {
+            WriteBatch batch = db.createWriteBatch();
+            try {
+                if (value != null) {
+                    batch.put(key, value);
+                } else {
+                    batch.delete(key);
+                }
+                merger.dropOperands(batch, key);
+                indexer.write(batch, Collections.singletonList(key), Collections.singletonList(value),
+                        oldKnown ? Collections.singletonList(oldValue) : null, wo);
+            } finally {
+                try {
+                    batch.close();
+                } catch (IOException ex) {
+                    logger.error("write: ", ex);
+                }
+            }
+        } else {
+            // The key stripe keeps the write out of a compareAndSet/update or TTL sweep of the key.
+            Lock lock = keyLocks.getLock(key);
+            lock.lock();
+            try {
+                if (value != null) {
+                    db.put(key, value, wo);
+                } else {
+                    db.delete(key, wo);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Write batch holding puts of values to keys, or deletes of keys when
+     * values or their value is null, with the index changes they cause.
+     */
+    private void writeBatch(WriteBatch batch, List<byte[]> keys, List<byte[]> values, WriteOptions wo) {
+        if (values != null) {
+            for (int i = 0; i < keys.size(); i++) {
+                if (values.get(i) != null) {
+                    LDBBytes.checkRecordKey(keys.get(i));
+                }
+            }
+        }
+        if (indexer.isActive() || merger.hasMergeKey(keys)) {
+            for (byte[] key : keys) {
+                merger.dropOperands(batch, key);
+            }
+            indexer.write(batch, keys, values, null, wo);
+        } else {
+            Lock[] locks = keyLocks.lockAll(keys);
+            try {
+                db.write(batch, wo);
+            } finally {
+                LDBStripedLock.unlockAll(locks);
+            }
+        }
+    }
+
+    /**
+     * Maintain a secondary index over the values written by put, putByte,
+     * putBatch, putBatchByte and the deletes, see LDBIndexer. extractor maps
+     * a value to its index value, or null to leave it out. Existing records
+     * are indexed by rebuildIndex. Writes through putQueued, counters, bulk
+     * load and import bypass indexes.
+     */
+    public void addIndex(String name, Function<String, String> extractor) {
+        indexer.add(name, bv -> {
+            String iv = extractor.apply(asString(bv));
+            return iv != null ? bytes(iv) : null;
+        });
+    }
+
+    public void addIndexByte(String name, Function<byte[], byte[]> extractor) {
+        indexer.add(name, extractor);
+    }
+
+    public void rebuildIndex(String name) throws IOException {
+        indexer.rebuild(name, writeOptions);
+    }
+
+    public void dropIndex(String name) throws IOException {
+        indexer.drop(name, writeOptions);
+    }
+
+    public LDBIndexer getIndexer() {
+        return indexer;
+    }
+
+    /**
+     * Records whose index value equals value, in key order.
+     * The caller must close the cursor.
+     */
+    public LDBCursor<String, String> scanIndex(String name, String value) {
+        return LDBCursor.decode(scanIndexByte(name, bytes(value)), JniDBFactory::asString, JniDBFactory::asString);
+    }
+
+    /**
+     * Records whose index value is in [from, to), null bounds are open.
+     */
+    public LDBCursor<String, String> scanIndex(String name, String from, String to, int limit) {
+        return LDBCursor.decode(scanIndexByte(name, from != null ? bytes(from) : null, to != null ? bytes(to) : null, limit),
+                JniDBFactory::asString, JniDBFactory::asString);
+    }
+
+    public LDBCursor<byte[], byte[]> scanIndexByte(String name, byte[] value) {
+        long start = metrics.start();
+        LDBCursor<byte[], byte[]> rs = indexer.scanEqual(name, value, 0, readOptions, k -> read(k, readOptions, false));
+        metrics.record(LDBMetrics.Op.SCAN, start, 0, 0);
+        return rs;
+    }
+
+    public LDBCursor<byte[], byte[]> scanIndexByte(String name, byte[] from, byte[] to, int limit) {
+        long start = metrics.start();
+        LDBCursor<byte[], byte[]> rs = indexer.scan(name, from, to, limit, readOptions, k -> read(k, readOptions, false));
+        metrics.record(LDBMetrics.Op.SCAN, start, 0, 0);
+        return rs;
+    }
+
+    /**
+     * Put value over oldValue, which the caller knows to be the current value
+     * of key (null if absent), so index maintenance does not read it.
+     */
+    public void putWithOld(String key, String value, String oldValue) {
+        if (key != null && !key.isEmpty() && value != null && !value.isEmpty()) {
+            putByteWithOld(bytes(key), bytes(value), oldValue != null ? bytes(oldValue) : null);
+        }
+    }
+
+    public void putByteWithOld(byte[] key, byte[] value, byte[] oldValue) {
+        long start = metrics.start();
+        try {
+            if (key != null && key.length > 0 && value != null && value.length > 0) {
+                long t0 = throttle.acquire(key.length + value.length);
+                write(key, value, oldValue, true, writeOptions);
+                throttle.complete(t0, key.length + value.length);
+                cache.invalidate(key);
+                metrics.record(LDBMetrics.Op.PUT, start, key.length + value.length, 0);
+            }
+        } catch (Exception ex) {
+            metrics.error(LDBMetrics.Op.PUT);
+            logger.error("putByteWithOld: ", ex);
+        }
+    }
+
+    /**
+     * Remaining time to live of key in millis, -1 if it has no expiry, -2 if
+     * it is absent or expired.
+     */
+    public long getTtl(String key) {
+        return key != null && !key.isEmpty() ? getTtlByte(bytes(key)) : -2;
+    }
+
+    public long getTtlByte(byte[] key) {
+        try {
+            if (key != null && key.length > 0) {
+                byte[] raw = readRaw(key, readOptions, false);
+                if (raw == null) {
+                    return -2;
+                }
+                long expireAt = LDBTtl.expireAt(raw);
+                if (expireAt == 0) {
+                    return -1;
+                }
+                long rs = expireAt - System.currentTimeMillis();
+                return rs > 0 ? rs : -2;
+            }
+        } catch (Exception ex) {
+            logger.error("getTtlByte: ", ex);
+        }
+        return -2;
+    }
+
+    /**
+     * Purge expired TTL entries in the background, examining at most
+     * maxEntriesPerSec keys per second in steps of batchSize. While it runs,
+     * put, putByte, putBatch and putBatchByte take the key stripe locks so a
+     * fresh value is never swept; writes through putQueued, counters, bulk
+     * load and import do not, so do not mix them with TTL keys.
+     */
+    public void enableTtlSweeper(long maxEntriesPerSec, int batchSize) {
+        ttlSweeper.start(maxEntriesPerSec, batchSize);
+    }
+
+    public void disableTtlSweeper() {
+        ttlSweeper.stop();
+    }
+
+    public LDBTtlSweeper getTtlSweeper() {
+        return ttlSweeper;
+    }
+
     public void putBatchByte(Map<byte[], byte[]> mapData) throws IOException {
+        putBatchByte(mapData, writeOptions);
+    }
+
+    public void putBatchByte(Map<byte[], byte[]> mapData, WriteOptions wo) throws IOException {
         if (mapData != null && !mapData.isEmpty()) {
+            long start = metrics.start();
             WriteBatch batch = db.createWriteBatch();
             try {
+                List<byte[]> written = new ArrayList<>(mapData.size());
+                List<byte[]> values = new ArrayList<>(mapData.size());
+                long size = 0;
                 for (byte[] key : mapData.keySet()) {
                     byte[] value = mapData.get(key);
                     if (key != null && key.length > 0 && value != null && value.length > 0) {
                         batch.put(key, value);
+                        written.add(key);
+                        values.add(value);
+                        size += key.length + value.length;
                     }
                 }
-                db.write(batch);
+                long t0 = throttle.acquire(size);
+                writeBatch(batch, written, values, wo);
+                throttle.complete(t0, size);
+                cache.invalidateAll(mapData.keySet());
+                metrics.record(LDBMetrics.Op.PUT_BATCH, start, size, 0);
             } catch (Exception ex) {
+                metrics.error(LDBMetrics.Op.PUT_BATCH);
                 logger.error("putBatch: ", ex);
             } finally {
                 // Make sure you close the batch to avoid resource leaks.
@@ -168,87 +682,480 @@ public class LDBConnection {
         }
     }
 
+    /**
+     * Bulk loader writing to this database, for tuning memory budget, batch
+     * size, temp directory or a final compaction before calling load.
+     */
+    public LDBBulkLoader newBulkLoader() {
+        return new LDBBulkLoader(db, writeOptions, cache, metrics);
+    }
+
+    /**
+     * Load unsorted entries in key order with bounded memory, see LDBBulkLoader.
+     */
+    public LDBBulkLoader.Stats bulkLoad(Iterator<? extends Map.Entry<byte[], byte[]>> entries) throws IOException {
+        return newBulkLoader().load(entries);
+    }
+
+    public LDBBulkLoader.Stats bulkLoad(Stream<? extends Map.Entry<byte[], byte[]>> entries) throws IOException {
+        return newBulkLoader().load(entries.iterator());
+    }
+
+    /**
+     * Snapshot dump and restore of this database, see LDBDump.
+     */
+    public LDBDump newDump() {
+        return new LDBDump(db, writeOptions, cache, metrics);
+    }
+
+    public LDBDump.Stats exportDump(File file) throws IOException {
+        return newDump().export(file);
+    }
+
+    public LDBDump.Stats exportDump(File file, byte[] fromKey) throws IOException {
+        return newDump().export(file, fromKey);
+    }
+
+    public LDBDump.Stats importDump(File file) throws IOException {
+        return newDump().importFrom(file);
+    }
+
+    /**
+     * Route putQueued/deleteQueued through a single committer thread that
+     * writes one WriteBatch per cycle of at most maxBatchBytes, waiting up to
+     * maxLingerMs for more mutations to join.
+     */
+    public void enableGroupCommit(int maxBatchBytes, long maxLingerMs) {
+        enableGroupCommit(maxBatchBytes, maxLingerMs, LDBGroupCommit.DEFAULT_MAX_QUEUED);
+    }
+
+    /**
+     * Same, with at most maxQueued mutations waiting; putQueued/deleteQueued
+     * block while the queue is full.
+     */
+    public synchronized void enableGroupCommit(int maxBatchBytes, long maxLingerMs, int maxQueued) {
+        if (groupCommit == null) {
+            groupCommit = new LDBGroupCommit(db, writeOptions, cache, maxBatchBytes, maxLingerMs, maxQueued);
+        }
+    }
+    
+    public LDBGroupCommit getGroupCommit() {
+        return groupCommit;
+    }
+    
+    public CompletableFuture<Void> putQueued(String key, String value) {
+        if (key != null && !key.isEmpty() && value != null && !value.isEmpty()) {
+            return putByteQueued(bytes(key), bytes(value));
+        }
+        return CompletableFuture.completedFuture(null);
+    }
+    
+    public CompletableFuture<Void> putByteQueued(byte[] key, byte[] value) {
+        if (key != null && key.length > 0 && value != null && value.length > 0) {
+            LDBBytes.checkRecordKey(key);
+            LDBGroupCommit gc = groupCommit;
+            if (gc != null) {
+                return gc.put(key, value);
+            }
+            try {
+                db.put(key, value, writeOptions);
+                cache.invalidate(key);
+            } catch (Exception ex) {
+                logger.error("putByteQueued: ", ex);
+                CompletableFuture<Void> rs = new CompletableFuture<>();
+                rs.completeExceptionally(ex);
+                return rs;
+            }
+        }
+        return CompletableFuture.completedFuture(null);
+    }
+    
+    public CompletableFuture<Void> deleteQueued(String key) {
+        if (key != null && !key.isEmpty()) {
+            return deleteByteQueued(bytes(key));
+        }
+        return CompletableFuture.completedFuture(null);
+    }
+    
+    public CompletableFuture<Void> deleteByteQueued(byte[] key) {
+        if (key != null && key.length > 0) {
+            LDBGroupCommit gc = groupCommit;
+            if (gc != null) {
+                return gc.delete(key);
+            }
+            try {
+                db.delete(key, writeOptions);
+                cache.invalidate(key);
+            } catch (Exception ex) {
+                logger.error("deleteByteQueued: ", ex);
+                CompletableFuture<Void> rs = new CompletableFuture<>();
+                rs.completeExceptionally(ex);
+                return rs;
+            }
+        }
+        return CompletableFuture.completedFuture(null);
+    }
+
     public String get(String key) {
+        return get(key, readOptions);
+    }
+
+    public String get(String key, ReadOptions ro) {
+        long start = metrics.start();
         try {
             if (key != null && !key.isEmpty()) {
-                String rs = asString(db.get(bytes(key)));
-                return rs;
+                byte[] bk = bytes(key);
+                byte[] bv = read(bk, ro, false);
+                metrics.record(LDBMetrics.Op.GET, start, bk.length, bv != null ? bv.length : 0);
+                return asString(bv);
             }
         } catch (Exception ex) {
+            metrics.error(LDBMetrics.Op.GET);
             logger.error("get: ", ex);
         }
         return "";
     }
 
+    private byte[] read(byte[] key, ReadOptions ro, boolean copy) {
+        if (merger.isMergeKey(key)) {
+            return merger.get(key, ro, System.currentTimeMillis());
+        }
+        return LDBTtl.unwrap(readRaw(key, ro, copy), System.currentTimeMillis());
+    }
+
+    private byte[] readRaw(byte[] key, ReadOptions ro, boolean copy) {
+        if (!cache.isEnabled() || (ro != null && ro.snapshot() != null)) {
+            return db.get(key, ro);
+        }
+        byte[] cached = cache.get(key);
+        if (cached != null) {
+            if (LDBCache.isMissing(cached)) {
+                return null;
+            }
+            return copy ? cached.clone() : cached;
+        }
+        long version = cache.beginLoad(key);
+        byte[] rs = db.get(key, ro);
+        if (ro == null || ro.fillCache()) {
+            cache.putLoaded(key, rs, version);
+        }
+        return rs;
+    }
+
+    /**
+     * Rate-limit put, putByte, putBatch and putBatchByte before level-0
+     * compaction backlog stalls LevelDB, see LDBWriteThrottle. The current
+     * limit is exported as the throttle.rateBytesPerSec metric.
+     *
+     * @param maxBytesPerSec hard ceiling, 0 for none
+     * @param latencyTargetMs mean write latency treated as pressure, 0 to ignore
+     */
+    public void enableWriteThrottle(long maxBytesPerSec, long latencyTargetMs) {
+        throttle.enable(maxBytesPerSec, latencyTargetMs);
+    }
+
+    public void disableWriteThrottle() {
+        throttle.disable();
+    }
+
+    public LDBWriteThrottle getWriteThrottle() {
+        return throttle;
+    }
+
+    /**
+     * Cache up to maxBytes of hot values read by get/getByte, and absent keys
+     * too when negativeCache is set. Writes through this connection keep it
+     * coherent; reads with a snapshot or fillCache(false) bypass it.
+     */
+    public void enableCache(long maxBytes, boolean negativeCache) {
+        cache.enable(maxBytes, negativeCache);
+    }
+
+    public LDBCache getCache() {
+        return cache;
+    }
+
     public Map<String, String> getList(List<String> listKey) {
+        return getList(listKey, readOptions);
+    }
+
+    public Map<String, String> getList(List<String> listKey, ReadOptions ro) {
         Map<String, String> rs = new LinkedHashMap<>();
         if (listKey != null && !listKey.isEmpty()) {
+            long start = metrics.start();
+            List<String> keys = new ArrayList<>(listKey.size());
             for (String key : listKey) {
                 if (key != null && !key.isEmpty()) {
-                    String value = asString(db.get(bytes(key)));
-                    rs.put(key, value);
+                    keys.add(key);
                 }
             }
+            byte[][] bks = new byte[keys.size()][];
+            long sizeIn = 0;
+            for (int i = 0; i < bks.length; i++) {
+                bks[i] = bytes(keys.get(i));
+                sizeIn += bks[i].length;
+            }
+            byte[][] values;
+            try {
+                values = readList(bks, ro);
+            } catch (RuntimeException ex) {
+                metrics.error(LDBMetrics.Op.GET_LIST);
+                throw ex;
+            }
+            long sizeOut = 0;
+            for (int i = 0; i < bks.length; i++) {
+                rs.put(keys.get(i), asString(values[i]));
+                sizeOut += values[i] != null ? values[i].length : 0;
+            }
+            metrics.record(LDBMetrics.Op.GET_LIST, start, sizeIn, sizeOut);
         }
         return rs;
     }
 
     public byte[] getByte(byte[] key) {
+        return getByte(key, readOptions);
+    }
+
+    public byte[] getByte(byte[] key, ReadOptions ro) {
+        long start = metrics.start();
         try {
             if (key != null && key.length > 0) {
-                byte[] rs = db.get(key);
+                byte[] rs = read(key, ro, true);
+                metrics.record(LDBMetrics.Op.GET, start, key.length, rs != null ? rs.length : 0);
                 return rs;
             }
         } catch (Exception ex) {
+            metrics.error(LDBMetrics.Op.GET);
             logger.error("getByte: ", ex);
         }
         return null;
     }
 
+    /**
+     * Copy the value of key into dst and advance its position. Returns the
+     * value length, or -1 if key is absent. When the value does not fit, dst
+     * is left untouched and the length is returned so the caller can retry
+     * with a larger buffer.
+     */
+    public int get(ByteBuffer key, ByteBuffer dst) {
+        return get(key, dst, readOptions);
+    }
+
+    public int get(ByteBuffer key, ByteBuffer dst, ReadOptions ro) {
+        long start = metrics.start();
+        try {
+            if (key != null && key.hasRemaining() && dst != null) {
+                byte[] bk = LDBBytes.toArray(key);
+                // The value is only copied into dst, so a cached array can be used as is.
+                byte[] rs = read(bk, ro, false);
+                metrics.record(LDBMetrics.Op.GET, start, bk.length, rs != null ? rs.length : 0);
+                if (rs == null) {
+                    return -1;
+                }
+                if (rs.length <= dst.remaining()) {
+                    dst.put(rs);
+                }
+                return rs.length;
+            }
+        } catch (Exception ex) {
+            metrics.error(LDBMetrics.Op.GET);
+            logger.error("get: ", ex);
+        }
+        return -1;
+    }
+
+    /**
+     * Value of key in a buffer taken from pool, flipped for reading, or null
+     * if key is absent. Hand the buffer back with pool.release when done.
+     */
+    public ByteBuffer getBuffer(ByteBuffer key, LDBBufferPool pool) {
+        return getBuffer(key, pool, readOptions);
+    }
+
+    public ByteBuffer getBuffer(ByteBuffer key, LDBBufferPool pool, ReadOptions ro) {
+        long start = metrics.start();
+        try {
+            if (key != null && key.hasRemaining() && pool != null) {
+                byte[] bk = LDBBytes.toArray(key);
+                byte[] rs = read(bk, ro, false);
+                metrics.record(LDBMetrics.Op.GET, start, bk.length, rs != null ? rs.length : 0);
+                if (rs == null) {
+                    return null;
+                }
+                ByteBuffer buf = pool.acquire(rs.length);
+                buf.put(rs);
+                buf.flip();
+                return buf;
+            }
+        } catch (Exception ex) {
+            metrics.error(LDBMetrics.Op.GET);
+            logger.error("getBuffer: ", ex);
+        }
+        return null;
+    }
+
+    /**
+     * Values of keys with merge keys folded and TTL applied, all read from
+     * one snapshot so the result is a single point in time.
+     */
+    private byte[][] readList(byte[][] bks, ReadOptions ro) {
+        Snapshot snapshot = null;
+        ReadOptions opts = ro;
+        if (opts == null || opts.snapshot() == null) {
+            snapshot = db.getSnapshot();
+            opts = new ReadOptions().snapshot(snapshot);
+            if (ro != null) {
+                opts.fillCache(ro.fillCache()).verifyChecksums(ro.verifyChecksums());
+            }
+        }
+        try {
+            byte[][] values = multiGet.get(bks, opts);
+            long now = System.currentTimeMillis();
+            for (int i = 0; i < bks.length; i++) {
+                values[i] = merger.isMergeKey(bks[i]) ? merger.get(bks[i], opts, now) : LDBTtl.unwrap(values[i], now);
+            }
+            return values;
+        } finally {
+            if (snapshot != null) {
+                try {
+                    snapshot.close();
+                } catch (Exception ex) {
+                    logger.error("readList close snapshot: ", ex);
+                }
+            }
+        }
+    }
+
     public Map<byte[], byte[]> getListByte(List<byte[]> listKey) {
+        return getListByte(listKey, readOptions);
+    }
+
+    public Map<byte[], byte[]> getListByte(List<byte[]> listKey, ReadOptions ro) {
         Map<byte[], byte[]> rs = new LinkedHashMap<>();
         if (listKey != null && !listKey.isEmpty()) {
+            long start = metrics.start();
+            List<byte[]> keys = new ArrayList<>(listKey.size());
+            long sizeIn = 0;
             for (byte[] key : listKey) {
                 if (key != null && key.length > 0) {
-                    byte[] value = db.get(key);
-                    rs.put(key, value);
+                    keys.add(key);
+                    sizeIn += key.length;
                 }
             }
+            byte[][] bks = keys.toArray(new byte[keys.size()][]);
+            byte[][] values;
+            try {
+                values = readList(bks, ro);
+            } catch (RuntimeException ex) {
+                metrics.error(LDBMetrics.Op.GET_LIST);
+                throw ex;
+            }
+            long sizeOut = 0;
+            for (int i = 0; i < bks.length; i++) {
+                rs.put(bks[i], values[i]);
+                sizeOut += values[i] != null ? values[i].length : 0;
+            }
+            metrics.record(LDBMetrics.Op.GET_LIST, start, sizeIn, sizeOut);
         }
         return rs;
     }
+    
+    /**
+     * Session whose reads all see the DB as of now, see LDBReadSession.
+     * Close it when done; a single getList is already consistent on its own.
+     */
+    public LDBReadSession openReadSession() {
+        return readSessions.open(readOptions.fillCache());
+    }
+
+    /**
+     * Close read sessions left open longer than maxAgeMillis, 0 for never.
+     * Open sessions and the oldest age are the readSessions.* metrics.
+     */
+    public void setReadSessionMaxAge(long maxAgeMillis) {
+        readSessions.setMaxAge(maxAgeMillis);
+    }
+
+    public LDBReadSessions getReadSessions() {
+        return readSessions;
+    }
+
+    /**
+     * Split getList/getListByte calls larger than shardSize keys across
+     * executor. A null executor reads on the caller thread.
+     */
+    public void setMultiGetExecutor(ExecutorService executor, int shardSize) {
+        multiGet.setExecutor(executor, shardSize);
+    }
 
     public void delete(String key) {
+        delete(key, writeOptions);
+    }
+
+    public void delete(String key, WriteOptions wo) {
+        long start = metrics.start();
         try {
             if (key != null && !key.isEmpty()) {
-                db.delete(bytes(key));
+                byte[] bk = bytes(key);
+                write(bk, null, null, false, wo);
+                cache.invalidate(bk);
+                metrics.record(LDBMetrics.Op.DELETE, start, bk.length, 0);
             }
         } catch (Exception ex) {
+            metrics.error(LDBMetrics.Op.DELETE);
             logger.error("delete: ", ex);
         }
     }
 
     public void deleteList(List<String> listKey) {
+        deleteList(listKey, writeOptions);
+    }
+
+    public void deleteList(List<String> listKey, WriteOptions wo) {
         if (listKey != null && !listKey.isEmpty()) {
-            for (String key : listKey) {
-                if (key != null && !key.isEmpty()) {
-                    db.delete(bytes(key));
+            long start = metrics.start();
+            long size = 0;
+            try {
+                for (String key : listKey) {
+                    if (key != null && !key.isEmpty()) {
+                        byte[] bk = bytes(key);
+                        write(bk, null, null, false, wo);
+                        cache.invalidate(bk);
+                        size += bk.length;
+                    }
                 }
+            } catch (RuntimeException ex) {
+                metrics.error(LDBMetrics.Op.DELETE_LIST);
+                throw ex;
             }
+            metrics.record(LDBMetrics.Op.DELETE_LIST, start, size, 0);
         }
     }
 
     public void deleteBatch(List<String> listKey) throws IOException {
+        deleteBatch(listKey, writeOptions);
+    }
+
+    public void deleteBatch(List<String> listKey, WriteOptions wo) throws IOException {
         if (listKey != null && !listKey.isEmpty()) {
+            long start = metrics.start();
             WriteBatch batch = db.createWriteBatch();
             try {
+                List<byte[]> written = new ArrayList<>(listKey.size());
+                long size = 0;
                 for (String key : listKey) {
                     if (key != null && !key.isEmpty()) {
-                        batch.delete(bytes(key));
+                        byte[] bk = bytes(key);
+                        batch.delete(bk);
+                        written.add(bk);
+                        size += bk.length;
                     }
                 }
-                db.write(batch);
+                writeBatch(batch, written, null, wo);
+                cache.invalidateAll(written);
+                metrics.record(LDBMetrics.Op.DELETE_BATCH, start, size, 0);
             } catch (Exception ex) {
+                metrics.error(LDBMetrics.Op.DELETE_BATCH);
                 logger.error("deleteBatch: ", ex);
             } finally {
                 // Make sure you close the batch to avoid resource leaks.
@@ -260,36 +1167,70 @@ public class LDBConnection {
     }
 
     public void deleteByte(byte[] key) {
+        deleteByte(key, writeOptions);
+    }
+
+    public void deleteByte(byte[] key, WriteOptions wo) {
+        long start = metrics.start();
         try {
             if (key != null && key.length > 0) {
-                db.delete(key);
+                write(key, null, null, false, wo);
+                cache.invalidate(key);
+                metrics.record(LDBMetrics.Op.DELETE, start, key.length, 0);
             }
         } catch (Exception ex) {
+            metrics.error(LDBMetrics.Op.DELETE);
             logger.error("deleteByte: ", ex);
         }
     }
 
     public void deleteListByte(List<byte[]> listKey) {
+        deleteListByte(listKey, writeOptions);
+    }
+
+    public void deleteListByte(List<byte[]> listKey, WriteOptions wo) {
         if (listKey != null && !listKey.isEmpty()) {
-            for (byte[] key : listKey) {
-                if (key != null && key.length > 0) {
-                    db.delete(key);
+            long start = metrics.start();
+            long size = 0;
+            try {
+                for (byte[] key : listKey) {
+                    if (key != null && key.length > 0) {
+                        write(key, null, null, false, wo);
+                        cache.invalidate(key);
+                        size += key.length;
+                    }
                 }
+            } catch (RuntimeException ex) {
+                metrics.error(LDBMetrics.Op.DELETE_LIST);
+                throw ex;
             }
+            metrics.record(LDBMetrics.Op.DELETE_LIST, start, size, 0);
         }
     }
 
     public void deleteBatchByte(List<byte[]> listKey) throws IOException {
+        deleteBatchByte(listKey, writeOptions);
+    }
+
+    public void deleteBatchByte(List<byte[]> listKey, WriteOptions wo) throws IOException {
         if (listKey != null && !listKey.isEmpty()) {
+            long start = metrics.start();
             WriteBatch batch = db.createWriteBatch();
             try {
+                List<byte[]> written = new ArrayList<>(listKey.size());
+                long size = 0;
                 for (byte[] key : listKey) {
                     if (key != null && key.length > 0) {
                         batch.delete(key);
+                        written.add(key);
+                        size += key.length;
                     }
                 }
-                db.write(batch);
+                writeBatch(batch, written, null, wo);
+                cache.invalidateAll(written);
+                metrics.record(LDBMetrics.Op.DELETE_BATCH, start, size, 0);
             } catch (Exception ex) {
+                metrics.error(LDBMetrics.Op.DELETE_BATCH);
                 logger.error("deleteBatchByte: ", ex);
             } finally {
                 // Make sure you close the batch to avoid resource leaks.
@@ -300,25 +1241,278 @@ public class LDBConnection {
         }
     }
     
-    synchronized public int incInt(String key, int value) {
-        int rs = 0;
-        if (key != null && !key.isEmpty()) {
-            byte[] bk = nls.serializeString(key);
-            byte[] bv = db.get(bk);
-            rs = bv != null ? nls.deserializeInt(bv) + value : value;
-            db.put(bk, nls.serializeInt(rs));
-        }
+    /**
+     * Ascending cursor over keys in [from, to), null bounds are open.
+     * The caller must close the cursor, e.g. with try-with-resources.
+     */
+    public LDBCursor<String, String> scan(String from, String to, int limit) {
+        return scan(from, to, limit, false, readOptions);
+    }
+    
+    public LDBCursor<String, String> scanReverse(String from, String to, int limit) {
+        return scan(from, to, limit, true, readOptions);
+    }
+    
+    public LDBCursor<String, String> scanPrefix(String prefix) {
+        return scanPrefix(prefix, false, readOptions);
+    }
+    
+    public LDBCursor<String, String> scanPrefixReverse(String prefix) {
+        return scanPrefix(prefix, true, readOptions);
+    }
+    
+    public LDBCursor<byte[], byte[]> scanByte(byte[] from, byte[] to, int limit) {
+        return scanByte(from, to, limit, false, readOptions);
+    }
+    
+    public LDBCursor<byte[], byte[]> scanReverseByte(byte[] from, byte[] to, int limit) {
+        return scanByte(from, to, limit, true, readOptions);
+    }
+    
+    public LDBCursor<byte[], byte[]> scanPrefixByte(byte[] prefix) {
+        return scanPrefixByte(prefix, false, readOptions);
+    }
+    
+    public LDBCursor<byte[], byte[]> scanPrefixReverseByte(byte[] prefix) {
+        return scanPrefixByte(prefix, true, readOptions);
+    }
+    
+    public LDBCursor<String, String> scan(String from, String to, int limit, boolean reverse, ReadOptions ro) {
+        long start = metrics.start();
+        LDBCursor<byte[], byte[]> raw = records(from != null ? bytes(from) : null, to != null ? bytes(to) : null, limit, reverse, ro);
+        LDBCursor<String, String> rs = LDBCursor.decode(raw, JniDBFactory::asString, JniDBFactory::asString);
+        metrics.record(LDBMetrics.Op.SCAN, start, 0, 0);
+        return rs;
+    }
+    
+    public LDBCursor<String, String> scanPrefix(String prefix, boolean reverse, ReadOptions ro) {
+        long start = metrics.start();
+        byte[] bp = bytes(prefix);
+        LDBCursor<byte[], byte[]> raw = records(bp, LDBBytes.prefixEnd(bp), 0, reverse, ro);
+        LDBCursor<String, String> rs = LDBCursor.decode(raw, JniDBFactory::asString, JniDBFactory::asString);
+        metrics.record(LDBMetrics.Op.SCAN, start, 0, 0);
         return rs;
     }
     
-    synchronized public long incLong(String key, long value) {
-        long rs = 0L;
+    public LDBCursor<byte[], byte[]> scanByte(byte[] from, byte[] to, int limit, boolean reverse, ReadOptions ro) {
+        long start = metrics.start();
+        LDBCursor<byte[], byte[]> rs = records(from, to, limit, reverse, ro);
+        metrics.record(LDBMetrics.Op.SCAN, start, 0, 0);
+        return rs;
+    }
+    
+    public LDBCursor<byte[], byte[]> scanPrefixByte(byte[] prefix, boolean reverse, ReadOptions ro) {
+        long start = metrics.start();
+        LDBCursor<byte[], byte[]> rs = records(prefix, LDBBytes.prefixEnd(prefix), 0, reverse, ro);
+        metrics.record(LDBMetrics.Op.SCAN, start, 0, 0);
+        return rs;
+    }
+    
+    /**
+     * Records in [from, to) with merge keys folded and expired entries skipped.
+     */
+    private LDBCursor<byte[], byte[]> records(byte[] from, byte[] to, int limit, boolean reverse, ReadOptions ro) {
+        long now = System.currentTimeMillis();
+        LDBCursor<byte[], byte[]> raw = merger.fold(LDBCursor.openRecords(db, ro, from, to, 0, reverse), ro, from, to, now);
+        return LDBTtl.filter(raw, limit, Function.identity(), Function.identity(), now);
+    }
+    
+    public int incInt(String key, int value) {
+        long start = metrics.start();
+        try {
+            int rs = counter.incInt(key, value);
+            metrics.record(LDBMetrics.Op.INC, start, 0, 0);
+            return rs;
+        } catch (RuntimeException ex) {
+            metrics.error(LDBMetrics.Op.INC);
+            throw ex;
+        }
+    }
+    
+    public long incLong(String key, long value) {
+        long start = metrics.start();
+        try {
+            long rs = counter.incLong(key, value);
+            metrics.record(LDBMetrics.Op.INC, start, 0, 0);
+            return rs;
+        } catch (RuntimeException ex) {
+            metrics.error(LDBMetrics.Op.INC);
+            throw ex;
+        }
+    }
+    
+    /**
+     * Set key to newValue if its current value equals expected, see
+     * LDBAtomic. A null expected means absent, a null newValue deletes.
+     * A null or empty key is ignored and returns false.
+     */
+    public boolean compareAndSet(String key, String expected, String newValue) {
         if (key != null && !key.isEmpty()) {
-            byte[] bk = nls.serializeString(key);
-            byte[] bv = db.get(bk);
-            rs = bv != null ? nls.deserializeLong(bv) + value : value;
-            db.put(bk, nls.serializeLong(rs));
+            return compareAndSetByte(bytes(key), expected != null ? bytes(expected) : null, newValue != null ? bytes(newValue) : null);
         }
-        return rs;
+        return false;
+    }
+
+    public boolean compareAndSetByte(byte[] key, byte[] expected, byte[] newValue) {
+        if (key == null || key.length == 0) {
+            return false;
+        }
+        long start = metrics.start();
+        try {
+            boolean rs = atomic.compareAndSet(key, expected, newValue, writeOptions);
+            metrics.record(LDBMetrics.Op.UPDATE, start, key.length, 0);
+            return rs;
+        } catch (RuntimeException ex) {
+            metrics.error(LDBMetrics.Op.UPDATE);
+            throw ex;
+        }
+    }
+
+    /**
+     * Put value unless key exists. Returns the existing value, or null when
+     * value was put. A null or empty key or value is ignored and returns null.
+     */
+    public String putIfAbsent(String key, String value) {
+        if (key != null && !key.isEmpty() && value != null && !value.isEmpty()) {
+            return asString(putIfAbsentByte(bytes(key), bytes(value)));
+        }
+        return null;
+    }
+
+    public byte[] putIfAbsentByte(byte[] key, byte[] value) {
+        if (key == null || key.length == 0 || value == null || value.length == 0) {
+            return null;
+        }
+        long start = metrics.start();
+        try {
+            byte[] rs = atomic.putIfAbsent(key, value, writeOptions);
+            metrics.record(LDBMetrics.Op.UPDATE, start, key.length + value.length, 0);
+            return rs;
+        } catch (RuntimeException ex) {
+            metrics.error(LDBMetrics.Op.UPDATE);
+            throw ex;
+        }
+    }
+
+    /**
+     * Atomically replace the value of key, null when absent, with fn of it
+     * and return the result; null deletes the key and returning the argument
+     * writes nothing. fn runs under the key's stripe lock, keep it short.
+     * A null or empty key is ignored: fn is not called and null is returned.
+     */
+    public String update(String key, Function<String, String> fn) {
+        if (key == null || key.isEmpty()) {
+            return null;
+        }
+        byte[] rs = updateByte(bytes(key), bv -> {
+            String current = asString(bv);
+            String value = fn.apply(current);
+            if (value == current) {
+                return bv;
+            }
+            return value != null ? bytes(value) : null;
+        });
+        return asString(rs);
+    }
+
+    public byte[] updateByte(byte[] key, Function<byte[], byte[]> fn) {
+        if (key == null || key.length == 0) {
+            return null;
+        }
+        long start = metrics.start();
+        try {
+            byte[] rs = atomic.update(key, fn, writeOptions);
+            metrics.record(LDBMetrics.Op.UPDATE, start, key.length, rs != null ? rs.length : 0);
+            return rs;
+        } catch (RuntimeException ex) {
+            metrics.error(LDBMetrics.Op.UPDATE);
+            throw ex;
+        }
+    }
+
+    /**
+     * Fold values merged into keys starting with keyPrefix with operator,
+     * see LDBMerger. Register operators before merging and reading.
+     */
+    public void addMergeOperator(String keyPrefix, LDBMergeOperator operator) {
+        merger.add(bytes(keyPrefix), operator);
+    }
+
+    public void addMergeOperatorByte(byte[] keyPrefix, LDBMergeOperator operator) {
+        merger.add(keyPrefix, operator);
+    }
+
+    /**
+     * Record operand for key without reading its value; get, getList and
+     * scans return the value with all operands folded in.
+     */
+    public void merge(String key, String operand) {
+        if (key != null && !key.isEmpty() && operand != null && !operand.isEmpty()) {
+            mergeByte(bytes(key), bytes(operand));
+        }
+    }
+
+    /**
+     * Merge a long encoded as LDBCodecs.LONG, for SUM_LONG and MAX_LONG.
+     */
+    public void mergeLong(String key, long operand) {
+        if (key != null && !key.isEmpty()) {
+            mergeByte(bytes(key), LDBCodecs.LONG.encode(operand));
+        }
+    }
+
+    public void mergeByte(byte[] key, byte[] operand) {
+        if (key != null && key.length > 0 && operand != null && operand.length > 0) {
+            long start = metrics.start();
+            try {
+                long t0 = throttle.acquire(key.length + operand.length);
+                merger.merge(key, operand, writeOptions);
+                throttle.complete(t0, key.length + operand.length);
+                metrics.record(LDBMetrics.Op.MERGE, start, key.length + operand.length, 0);
+            } catch (RuntimeException ex) {
+                metrics.error(LDBMetrics.Op.MERGE);
+                throw ex;
+            }
+        }
+    }
+
+    /**
+     * Fold pending merge operands into their values in the background,
+     * examining at most maxOperandsPerSec operands per second in steps of
+     * batchSize.
+     */
+    public void enableMergeCompaction(long maxOperandsPerSec, int batchSize) {
+        merger.start(maxOperandsPerSec, batchSize);
+    }
+
+    public void disableMergeCompaction() {
+        merger.stop();
+    }
+
+    /**
+     * Fold all pending merge operands now, e.g. before a backup.
+     */
+    public long compactMerges() throws IOException {
+        return merger.compactAll();
+    }
+
+    public LDBMerger getMerger() {
+        return merger;
+    }
+
+    public long getCounter(String key) {
+        return counter.getCounter(key);
+    }
+    
+    /**
+     * Accumulate incInt/incLong in memory and flush them in one WriteBatch
+     * every flushIntervalMs or every maxPendingDeltas increments.
+     */
+    public void enableCounterWriteBehind(long flushIntervalMs, int maxPendingDeltas) {
+        counter.enableWriteBehind(flushIntervalMs, maxPendingDeltas);
+    }
+    
+    public void flushCounters() {
+        counter.flush();
     }
-}
+}
\ No newline at end of file
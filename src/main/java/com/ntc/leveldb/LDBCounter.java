@@ -0,0 +1,298 @@
+/*
+ * Copyright 2026 nghiatc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ntc.leveldb;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import org.iq80.leveldb.DB;
+import org.iq80.leveldb.WriteBatch;
+import org.iq80.leveldb.WriteOptions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Counter operations backing incInt/incLong. Each increment locks only the
+ * stripe of its key, so counters on different keys proceed in parallel.
+ * <p>
+ * In write-behind mode increments are applied to in-memory values with CAS and
+ * flushed to LevelDB in a single WriteBatch every flush interval or every
+ * maxPendingDeltas increments, trading a bounded durability window for
+ * throughput. Counters must then only be changed through this class. A
+ * failed flush keeps its counters dirty for the next one, and counters left
+ * unchanged since a successful flush are dropped from memory.
+ *
+ * @author nghiatc
+ * @since Oct 18, 2026
+ */
+public class LDBCounter {
+
+    private static final Logger logger = LoggerFactory.getLogger(LDBCounter.class);
+
+    private final DB db;
+    private final NLSerializer nls;
+    private final LDBStripedLock keyLocks;
+    private final WriteOptions writeOptions;
+    private final LDBCache cache;
+
+    private volatile boolean writeBehind;
+    private final Map<String, PendingCounter> pending = new ConcurrentHashMap<>();
+    private final AtomicLong pendingDeltas = new AtomicLong();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private volatile ScheduledExecutorService flusher;
+    private int maxPendingDeltas;
+
+    public LDBCounter(DB db, NLSerializer nls, LDBStripedLock keyLocks, WriteOptions writeOptions, LDBCache cache) {
+        this.db = db;
+        this.nls = nls;
+        this.keyLocks = keyLocks;
+        this.writeOptions = writeOptions;
+        this.cache = cache;
+    }
+
+    public boolean isWriteBehind() {
+        return writeBehind;
+    }
+
+    public synchronized void enableWriteBehind(long flushIntervalMs, int maxPendingDeltas) {
+        if (flushIntervalMs <= 0 || maxPendingDeltas <= 0) {
+            throw new IllegalArgumentException("flushIntervalMs and maxPendingDeltas must be positive.");
+        }
+        if (writeBehind) {
+            return;
+        }
+        this.maxPendingDeltas = maxPendingDeltas;
+        flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "ldb-counter-flusher");
+            t.setDaemon(true);
+            return t;
+        });
+        flusher.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+        writeBehind = true;
+    }
+
+    public int incInt(String key, int value) {
+        int rs = 0;
+        if (key != null && !key.isEmpty()) {
+            if (writeBehind) {
+                return (int) incPending(key, value, false);
+            }
+            byte[] bk = nls.serializeString(key);
+            Lock lock = keyLocks.getLock(bk);
+            lock.lock();
+            try {
+                byte[] bv = db.get(bk);
+                rs = bv != null ? nls.deserializeInt(bv) + value : value;
+                db.put(bk, nls.serializeInt(rs), writeOptions);
+                cache.invalidate(bk);
+            } finally {
+                lock.unlock();
+            }
+        }
+        return rs;
+    }
+
+    public long incLong(String key, long value) {
+        long rs = 0L;
+        if (key != null && !key.isEmpty()) {
+            if (writeBehind) {
+                return incPending(key, value, true);
+            }
+            byte[] bk = nls.serializeString(key);
+            Lock lock = keyLocks.getLock(bk);
+            lock.lock();
+            try {
+                byte[] bv = db.get(bk);
+                rs = bv != null ? nls.deserializeLong(bv) + value : value;
+                db.put(bk, nls.serializeLong(rs), writeOptions);
+                cache.invalidate(bk);
+            } finally {
+                lock.unlock();
+            }
+        }
+        return rs;
+    }
+
+    /**
+     * Current value of a counter including increments not yet flushed.
+     * Values stored with 4 bytes are read as int, with 8 bytes as long.
+     */
+    public long getCounter(String key) {
+        if (key == null || key.isEmpty()) {
+            return 0L;
+        }
+        PendingCounter pc = pending.get(key);
+        if (pc != null) {
+            return pc.value.get();
+        }
+        return decode(db.get(nls.serializeString(key)));
+    }
+
+    private long decode(byte[] bv) {
+        if (bv == null) {
+            return 0L;
+        }
+        return bv.length == 4 ? nls.deserializeInt(bv) : nls.deserializeLong(bv);
+    }
+
+    private long incPending(String key, long value, boolean isLong) {
+        long[] rs = new long[1];
+        // Inside compute, so flush cannot drop the entry between the increment and marking it dirty.
+        pending.compute(key, (k, pc) -> {
+            if (pc == null) {
+                pc = load(k, isLong);
+            }
+            rs[0] = pc.value.addAndGet(value);
+            if (value != 0) {
+                pc.dirty = true;
+            }
+            return pc;
+        });
+        if (value != 0) {
+            if (pendingDeltas.incrementAndGet() >= maxPendingDeltas && flushScheduled.compareAndSet(false, true)) {
+                ScheduledExecutorService f = flusher;
+                if (f != null) {
+                    try {
+                        f.execute(this::flushQuietly);
+                    } catch (RejectedExecutionException ex) {
+                        // Closing, close() flushes what is left.
+                    }
+                }
+            }
+        }
+        return rs[0];
+    }
+
+    private PendingCounter load(String key, boolean isLong) {
+        byte[] bk = nls.serializeString(key);
+        Lock lock = keyLocks.getLock(bk);
+        lock.lock();
+        try {
+            byte[] bv = db.get(bk);
+            boolean asLong = bv != null ? bv.length != 4 : isLong;
+            return new PendingCounter(bk, asLong, decode(bv));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Write every counter changed since the last flush in one WriteBatch.
+     */
+    public synchronized void flush() {
+        flushScheduled.set(false);
+        pendingDeltas.set(0);
+        if (pending.isEmpty()) {
+            return;
+        }
+        WriteBatch batch = db.createWriteBatch();
+        try {
+            List<PendingCounter> dirty = new ArrayList<>();
+            List<byte[]> written = new ArrayList<>();
+            for (PendingCounter pc : pending.values()) {
+                if (pc.dirty) {
+                    // Clear before reading so a concurrent increment marks it dirty again.
+                    pc.dirty = false;
+                    long v = pc.value.get();
+                    batch.put(pc.key, pc.isLong ? nls.serializeLong(v) : nls.serializeInt((int) v));
+                    dirty.add(pc);
+                    written.add(pc.key);
+                }
+            }
+            if (!written.isEmpty()) {
+                try {
+                    db.write(batch, writeOptions);
+                } catch (RuntimeException ex) {
+                    // Nothing written, the next flush writes them with any later increments.
+                    for (PendingCounter pc : dirty) {
+                        pc.dirty = true;
+                    }
+                    throw ex;
+                }
+                cache.invalidateAll(written);
+            }
+            // The DB now holds the value of every clean counter, drop them so the map does not grow.
+            for (String key : pending.keySet()) {
+                pending.computeIfPresent(key, (k, pc) -> pc.dirty ? pc : null);
+            }
+        } finally {
+            try {
+                batch.close();
+            } catch (Exception ex) {
+                logger.error("flush close batch: ", ex);
+            }
+        }
+    }
+
+    /**
+     * Counters held in memory, i.e. changed since the last flush.
+     */
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (Exception ex) {
+            logger.error("flush: ", ex);
+        }
+    }
+
+    /**
+     * Stop the flusher and write pending increments. Called before the
+     * database is closed.
+     */
+    public void close() {
+        ScheduledExecutorService f;
+        synchronized (this) {
+            f = flusher;
+            flusher = null;
+        }
+        if (f != null) {
+            f.shutdown();
+            try {
+                f.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (writeBehind) {
+            flushQuietly();
+        }
+    }
+
+    private static class PendingCounter {
+        private final byte[] key;
+        private final boolean isLong;
+        private final AtomicLong value;
+        private volatile boolean dirty;
+
+        PendingCounter(byte[] key, boolean isLong, long value) {
+            this.key = key;
+            this.isLong = isLong;
+            this.value = new AtomicLong(value);
+        }
+    }
+}
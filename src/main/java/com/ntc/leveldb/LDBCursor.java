@@ -0,0 +1,268 @@
+/*
+ * Copyright 2026 nghiatc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ntc.leveldb;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.AbstractMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import org.iq80.leveldb.DB;
+import org.iq80.leveldb.DBIterator;
+import org.iq80.leveldb.ReadOptions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Lazily advancing cursor over the keys in [from, to), ascending or
+ * descending. The native iterator is released by close(), which also happens
+ * automatically once the cursor is exhausted. Use it in try-with-resources.
+ *
+ * @author nghiatc
+ * @since Oct 18, 2026
+ */
+public class LDBCursor<K, V> implements Iterator<Map.Entry<K, V>>, Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(LDBCursor.class);
+
+    private final DBIterator iterator;
+    private final byte[] from;
+    private final byte[] to;
+    private final int limit;
+    private final boolean reverse;
+    private final Function<byte[], K> keyDecoder;
+    private final Function<byte[], V> valueDecoder;
+    private boolean records;
+
+    private Map.Entry<byte[], byte[]> nextEntry;
+    private Map.Entry<byte[], byte[]> positioned;
+    private boolean started;
+    private boolean closed;
+    private int count;
+
+    /**
+     * @param iterator native iterator, owned and closed by this cursor
+     * @param from inclusive lower bound, null for the first key
+     * @param to exclusive upper bound, null for past the last key
+     * @param limit max number of entries, 0 or negative for no limit
+     * @param reverse iterate from the upper bound down to the lower bound
+     */
+    public LDBCursor(DBIterator iterator, byte[] from, byte[] to, int limit, boolean reverse,
+            Function<byte[], K> keyDecoder, Function<byte[], V> valueDecoder) {
+        this.iterator = iterator;
+        this.from = from;
+        this.to = to;
+        this.limit = limit;
+        this.reverse = reverse;
+        this.keyDecoder = keyDecoder;
+        this.valueDecoder = valueDecoder;
+    }
+
+    /**
+     * For subclasses that produce raw entries themselves by overriding
+     * {@link #fetchRaw()} and {@link #closeRaw()}.
+     */
+    protected LDBCursor(int limit, boolean reverse, Function<byte[], K> keyDecoder, Function<byte[], V> valueDecoder) {
+        this(null, null, null, limit, reverse, keyDecoder, valueDecoder);
+    }
+
+    public static LDBCursor<byte[], byte[]> open(DB db, ReadOptions ro, byte[] from, byte[] to, int limit, boolean reverse) {
+        return open(db, ro, from, to, limit, reverse, Function.identity(), Function.identity());
+    }
+
+    public static <K, V> LDBCursor<K, V> open(DB db, ReadOptions ro, byte[] from, byte[] to, int limit, boolean reverse,
+            Function<byte[], K> keyDecoder, Function<byte[], V> valueDecoder) {
+        DBIterator it = ro != null ? db.iterator(ro) : db.iterator();
+        return new LDBCursor<>(it, from, to, limit, reverse, keyDecoder, valueDecoder);
+    }
+
+    /**
+     * Cursor over the records in [from, to), seeking past the index entries
+     * and merge operands in between (see LDBBytes.isReserved).
+     */
+    public static LDBCursor<byte[], byte[]> openRecords(DB db, ReadOptions ro, byte[] from, byte[] to, int limit, boolean reverse) {
+        LDBCursor<byte[], byte[]> rs = open(db, ro, from, to, limit, reverse);
+        rs.records = true;
+        return rs;
+    }
+
+    /**
+     * Cursor over the records starting with prefix.
+     */
+    public static <K, V> LDBCursor<K, V> openPrefix(DB db, ReadOptions ro, byte[] prefix, boolean reverse,
+            Function<byte[], K> keyDecoder, Function<byte[], V> valueDecoder) {
+        LDBCursor<K, V> rs = open(db, ro, prefix, LDBBytes.prefixEnd(prefix), 0, reverse, keyDecoder, valueDecoder);
+        rs.records = true;
+        return rs;
+    }
+
+    /**
+     * View of a raw cursor with other decoders; closing it closes raw.
+     */
+    public static <K, V> LDBCursor<K, V> decode(LDBCursor<byte[], byte[]> raw,
+            Function<byte[], K> keyDecoder, Function<byte[], V> valueDecoder) {
+        return new LDBCursor<K, V>(0, raw.isReverse(), keyDecoder, valueDecoder) {
+            @Override
+            protected Map.Entry<byte[], byte[]> fetchRaw() {
+                return raw.hasNext() ? raw.next() : null;
+            }
+
+            @Override
+            protected void closeRaw() {
+                raw.close();
+            }
+        };
+    }
+
+    public boolean isReverse() {
+        return reverse;
+    }
+
+    private void start() {
+        started = true;
+        if (!reverse) {
+            if (from != null) {
+                iterator.seek(from);
+            } else {
+                iterator.seekToFirst();
+            }
+            return;
+        }
+        seekBefore(to);
+    }
+
+    /**
+     * Position the reverse iteration on the last key below bound, null for
+     * the last key. Returns false when there is none.
+     */
+    private boolean seekBefore(byte[] bound) {
+        if (bound != null) {
+            iterator.seek(bound);
+            if (iterator.hasNext()) {
+                // Positioned on the first key >= bound, step back below it.
+                positioned = iterator.hasPrev() ? iterator.prev() : null;
+                return positioned != null;
+            }
+        }
+        iterator.seekToLast();
+        positioned = iterator.hasNext() ? iterator.peekNext() : null;
+        return positioned != null;
+    }
+
+    /**
+     * Next raw entry within the range, or null at the end.
+     */
+    protected Map.Entry<byte[], byte[]> fetchRaw() {
+        if (!started) {
+            start();
+        }
+        while (true) {
+            Map.Entry<byte[], byte[]> e;
+            if (positioned != null) {
+                e = positioned;
+                positioned = null;
+            } else if (!reverse) {
+                e = iterator.hasNext() ? iterator.next() : null;
+            } else {
+                e = iterator.hasPrev() ? iterator.prev() : null;
+            }
+            if (e == null || !inRange(e.getKey())) {
+                return null;
+            }
+            byte[] reserved = records ? LDBBytes.reservedPrefix(e.getKey()) : null;
+            if (reserved == null) {
+                return e;
+            }
+            // Skip the whole reserved range with one seek.
+            if (!reverse) {
+                iterator.seek(LDBBytes.prefixEnd(reserved));
+            } else if (!seekBefore(reserved)) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Release what backs fetchRaw().
+     */
+    protected void closeRaw() throws IOException {
+        iterator.close();
+    }
+
+    private boolean inRange(byte[] key) {
+        if (reverse) {
+            return from == null || LDBBytes.compare(key, from) >= 0;
+        }
+        return to == null || LDBBytes.compare(key, to) < 0;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (closed) {
+            return false;
+        }
+        if (nextEntry == null) {
+            if (limit > 0 && count >= limit) {
+                close();
+                return false;
+            }
+            nextEntry = fetchRaw();
+            if (nextEntry == null) {
+                close();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public Map.Entry<K, V> next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        Map.Entry<byte[], byte[]> e = nextEntry;
+        nextEntry = null;
+        count++;
+        return new AbstractMap.SimpleImmutableEntry<>(keyDecoder.apply(e.getKey()), valueDecoder.apply(e.getValue()));
+    }
+
+    /**
+     * Stream view of the remaining entries. Closing the stream closes the cursor.
+     */
+    public Stream<Map.Entry<K, V>> stream() {
+        Spliterator<Map.Entry<K, V>> sp = Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED | Spliterator.NONNULL);
+        return StreamSupport.stream(sp, false).onClose(this::close);
+    }
+
+    @Override
+    public void close() {
+        if (!closed) {
+            closed = true;
+            nextEntry = null;
+            try {
+                closeRaw();
+            } catch (IOException ex) {
+                logger.error("close: ", ex);
+            }
+        }
+    }
+}
@@ -0,0 +1,445 @@
+/*
+ * Copyright 2026 nghiatc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ntc.leveldb;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+import org.iq80.leveldb.DB;
+import org.iq80.leveldb.DBIterator;
+import org.iq80.leveldb.ReadOptions;
+import org.iq80.leveldb.Snapshot;
+import org.iq80.leveldb.WriteBatch;
+import org.iq80.leveldb.WriteOptions;
+
+/**
+ * Binary dump of a database taken from a snapshot, so writers keep running.
+ * <p>
+ * Layout: magic "LDBDUMP1", int flags (1 = deflate), then blocks of
+ * [int rawLen][int storedLen][int crc32 of stored bytes][stored bytes], the
+ * raw bytes being entries [int keyLen][key][int valueLen][value] in key order.
+ * A block with rawLen = storedLen = 0 followed by the long entry count ends
+ * the file.
+ *
+ * @author nghiatc
+ * @since Oct 18, 2026
+ */
+public class LDBDump {
+
+    private static final byte[] MAGIC = "LDBDUMP1".getBytes(StandardCharsets.US_ASCII);
+    private static final int FLAG_DEFLATE = 1;
+    private static final int BLOCK_HEADER = 12;
+
+    private final DB db;
+    private final WriteOptions writeOptions;
+    private final LDBCache cache;
+    private final LDBMetrics metrics;
+    private int blockSize = 1 << 20;
+    private boolean compress;
+
+    public LDBDump(DB db, WriteOptions writeOptions, LDBCache cache, LDBMetrics metrics) {
+        this.db = db;
+        this.writeOptions = writeOptions;
+        this.cache = cache;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Raw bytes per block, also the size of each WriteBatch on import. Default 1MB.
+     */
+    public LDBDump setBlockSize(int blockSize) {
+        this.blockSize = Math.max(1024, blockSize);
+        return this;
+    }
+
+    /**
+     * Deflate blocks of new dumps. Default off.
+     */
+    public LDBDump setCompress(boolean compress) {
+        this.compress = compress;
+        return this;
+    }
+
+    public Stats export(File file) throws IOException {
+        return export(file, null);
+    }
+
+    /**
+     * Dump keys from fromKey (inclusive, null for the first key) to the end into a new file.
+     */
+    public Stats export(File file, byte[] fromKey) throws IOException {
+        long start = System.nanoTime();
+        Stats stats = new Stats();
+        try (FileChannel ch = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = ByteBuffer.allocate(MAGIC.length + 4);
+            header.put(MAGIC).putInt(compress ? FLAG_DEFLATE : 0).flip();
+            writeFully(ch, header);
+            exportFrom(ch, compress, fromKey, false, stats);
+            stats.fileBytes = ch.size();
+        }
+        stats.elapsedNanos = System.nanoTime() - start;
+        return stats;
+    }
+
+    /**
+     * Continue an interrupted export: keep the complete blocks of file, drop
+     * a torn tail and dump the keys after the last one kept, from a new
+     * snapshot. A finished dump is left as it is.
+     */
+    public Stats resume(File file) throws IOException {
+        if (!file.exists() || file.length() == 0) {
+            return export(file);
+        }
+        long start = System.nanoTime();
+        Stats stats = new Stats();
+        try (FileChannel ch = FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            boolean deflate = readHeader(ch);
+            Inflater inflater = deflate ? new Inflater() : null;
+            long validEnd = ch.position();
+            try {
+                while (true) {
+                    Block block;
+                    try {
+                        block = readBlock(ch, inflater);
+                    } catch (EOFException | ZipException ex) {
+                        break; // Torn or corrupt tail, rewrite from here.
+                    }
+                    if (block == null) {
+                        break;
+                    }
+                    if (block.end) {
+                        stats.fileBytes = ch.size();
+                        stats.elapsedNanos = System.nanoTime() - start;
+                        return stats;
+                    }
+                    forEachEntry(block.raw, (k, v) -> stats.add(k, v));
+                    stats.blocks++;
+                    validEnd = ch.position();
+                }
+            } finally {
+                if (inflater != null) {
+                    inflater.end();
+                }
+            }
+            ch.truncate(validEnd);
+            ch.position(validEnd);
+            exportFrom(ch, deflate, stats.lastKey, true, stats);
+            stats.fileBytes = ch.size();
+        }
+        stats.elapsedNanos = System.nanoTime() - start;
+        return stats;
+    }
+
+    private void exportFrom(FileChannel ch, boolean deflate, byte[] fromKey, boolean exclusive, Stats stats) throws IOException {
+        Snapshot snapshot = db.getSnapshot();
+        ReadOptions ro = new ReadOptions().snapshot(snapshot).fillCache(false);
+        Deflater deflater = deflate ? new Deflater(Deflater.BEST_SPEED) : null;
+        ByteArrayOutputStream block = new ByteArrayOutputStream(blockSize + 1024);
+        DataOutputStream out = new DataOutputStream(block);
+        try (DBIterator it = db.iterator(ro)) {
+            if (fromKey != null) {
+                it.seek(fromKey);
+            } else {
+                it.seekToFirst();
+            }
+            while (it.hasNext()) {
+                Map.Entry<byte[], byte[]> e = it.next();
+                byte[] key = e.getKey();
+                byte[] value = e.getValue();
+                if (exclusive && Arrays.equals(key, fromKey)) {
+                    continue;
+                }
+                out.writeInt(key.length);
+                out.write(key);
+                out.writeInt(value.length);
+                out.write(value);
+                stats.add(key, value);
+                if (block.size() >= blockSize) {
+                    writeBlock(ch, block.toByteArray(), deflater);
+                    stats.blocks++;
+                    block.reset();
+                }
+            }
+            if (block.size() > 0) {
+                writeBlock(ch, block.toByteArray(), deflater);
+                stats.blocks++;
+            }
+            ByteBuffer end = ByteBuffer.allocate(BLOCK_HEADER + 8);
+            end.putInt(0).putInt(0).putInt(0).putLong(stats.entries).flip();
+            writeFully(ch, end);
+            ch.force(false);
+        } finally {
+            snapshot.close();
+            if (deflater != null) {
+                deflater.end();
+            }
+        }
+    }
+
+    /**
+     * Load a dump into this database, one WriteBatch per block. Existing keys
+     * are overwritten, keys absent from the dump are left alone.
+     */
+    public Stats importFrom(File file) throws IOException {
+        long start = System.nanoTime();
+        Stats stats = new Stats();
+        try (FileChannel ch = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            Inflater inflater = readHeader(ch) ? new Inflater() : null;
+            try {
+                while (true) {
+                    Block block = readBlock(ch, inflater);
+                    if (block == null) {
+                        throw new EOFException("Dump is truncated: " + file);
+                    }
+                    if (block.end) {
+                        if (block.count != stats.entries) {
+                            throw new ZipException("Dump has " + block.count + " entries, read " + stats.entries);
+                        }
+                        break;
+                    }
+                    long startBatch = metrics.start();
+                    long size = stats.bytes;
+                    try (WriteBatch batch = db.createWriteBatch()) {
+                        forEachEntry(block.raw, (k, v) -> {
+                            batch.put(k, v);
+                            stats.add(k, v);
+                        });
+                        db.write(batch, writeOptions);
+                    } catch (RuntimeException ex) {
+                        metrics.error(LDBMetrics.Op.PUT_BATCH);
+                        throw ex;
+                    }
+                    metrics.record(LDBMetrics.Op.PUT_BATCH, startBatch, stats.bytes - size, 0);
+                    stats.blocks++;
+                }
+                stats.fileBytes = ch.size();
+            } finally {
+                if (inflater != null) {
+                    inflater.end();
+                }
+                cache.clear();
+            }
+        }
+        stats.elapsedNanos = System.nanoTime() - start;
+        return stats;
+    }
+
+    private static boolean readHeader(FileChannel ch) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(MAGIC.length + 4);
+        if (!readFully(ch, header)) {
+            throw new EOFException("Missing dump header");
+        }
+        byte[] magic = new byte[MAGIC.length];
+        header.get(magic);
+        if (!Arrays.equals(magic, MAGIC)) {
+            throw new ZipException("Not a LevelDB dump");
+        }
+        return (header.getInt() & FLAG_DEFLATE) != 0;
+    }
+
+    private static void writeBlock(FileChannel ch, byte[] raw, Deflater deflater) throws IOException {
+        byte[] stored = raw;
+        int storedLen = raw.length;
+        if (deflater != null) {
+            deflater.reset();
+            deflater.setInput(raw);
+            deflater.finish();
+            stored = new byte[raw.length + (raw.length >> 6) + 64];
+            storedLen = 0;
+            while (!deflater.finished()) {
+                if (storedLen == stored.length) {
+                    stored = Arrays.copyOf(stored, stored.length * 2);
+                }
+                storedLen += deflater.deflate(stored, storedLen, stored.length - storedLen);
+            }
+        }
+        CRC32 crc = new CRC32();
+        crc.update(stored, 0, storedLen);
+        ByteBuffer header = ByteBuffer.allocate(BLOCK_HEADER);
+        header.putInt(raw.length).putInt(storedLen).putInt((int) crc.getValue()).flip();
+        writeFully(ch, header);
+        writeFully(ch, ByteBuffer.wrap(stored, 0, storedLen));
+    }
+
+    /**
+     * Next block, or null at a clean end of file.
+     */
+    private static Block readBlock(FileChannel ch, Inflater inflater) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(BLOCK_HEADER);
+        int n = ch.read(header);
+        if (n < 0) {
+            return null;
+        }
+        if (!readFully(ch, header)) {
+            throw new EOFException("Truncated block header");
+        }
+        int rawLen = header.getInt();
+        int storedLen = header.getInt();
+        int crc = header.getInt();
+        if (rawLen == 0 && storedLen == 0) {
+            ByteBuffer count = ByteBuffer.allocate(8);
+            if (!readFully(ch, count)) {
+                throw new EOFException("Truncated end marker");
+            }
+            return new Block(null, count.getLong());
+        }
+        if (rawLen < 0 || storedLen < 0) {
+            throw new ZipException("Invalid block header");
+        }
+        ByteBuffer stored = ByteBuffer.allocate(storedLen);
+        if (!readFully(ch, stored)) {
+            throw new EOFException("Truncated block");
+        }
+        CRC32 check = new CRC32();
+        check.update(stored.array(), 0, storedLen);
+        if ((int) check.getValue() != crc) {
+            throw new ZipException("Block checksum mismatch");
+        }
+        if (inflater == null) {
+            return new Block(stored.array(), 0);
+        }
+        byte[] raw = new byte[rawLen];
+        inflater.reset();
+        inflater.setInput(stored.array(), 0, storedLen);
+        try {
+            int len = 0;
+            while (len < rawLen && !inflater.finished()) {
+                int r = inflater.inflate(raw, len, rawLen - len);
+                if (r == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                len += r;
+            }
+            if (len != rawLen) {
+                throw new ZipException("Block inflated to " + len + " bytes, expected " + rawLen);
+            }
+        } catch (DataFormatException ex) {
+            throw new ZipException(ex.getMessage());
+        }
+        return new Block(raw, 0);
+    }
+
+    private static void forEachEntry(byte[] raw, BiConsumer<byte[], byte[]> action) throws ZipException {
+        ByteBuffer buf = ByteBuffer.wrap(raw);
+        try {
+            while (buf.hasRemaining()) {
+                byte[] key = new byte[buf.getInt()];
+                buf.get(key);
+                byte[] value = new byte[buf.getInt()];
+                buf.get(value);
+                action.accept(key, value);
+            }
+        } catch (RuntimeException ex) {
+            throw new ZipException("Invalid block entry: " + ex);
+        }
+    }
+
+    private static boolean readFully(FileChannel ch, ByteBuffer buf) throws IOException {
+        while (buf.hasRemaining()) {
+            if (ch.read(buf) < 0) {
+                return false;
+            }
+        }
+        buf.flip();
+        return true;
+    }
+
+    private static void writeFully(FileChannel ch, ByteBuffer buf) throws IOException {
+        while (buf.hasRemaining()) {
+            ch.write(buf);
+        }
+    }
+
+    private static class Block {
+        private final byte[] raw;
+        private final boolean end;
+        private final long count;
+
+        Block(byte[] raw, long count) {
+            this.raw = raw;
+            this.end = raw == null;
+            this.count = count;
+        }
+    }
+
+    public static class Stats {
+        private long entries;
+        private long bytes;
+        private long blocks;
+        private long fileBytes;
+        private long elapsedNanos;
+        private byte[] lastKey;
+
+        private void add(byte[] key, byte[] value) {
+            entries++;
+            bytes += key.length + value.length;
+            lastKey = key;
+        }
+
+        public long getEntries() {
+            return entries;
+        }
+
+        /**
+         * Key and value bytes, before compression.
+         */
+        public long getBytes() {
+            return bytes;
+        }
+
+        public long getBlocks() {
+            return blocks;
+        }
+
+        public long getFileBytes() {
+            return fileBytes;
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        public byte[] getLastKey() {
+            return lastKey;
+        }
+
+        public double getMBPerSecond() {
+            return elapsedNanos > 0 ? bytes / 1048576.0 / (elapsedNanos / 1e9) : 0;
+        }
+
+        @Override
+        public String toString() {
+            return "Stats{" + "entries=" + entries + ", bytes=" + bytes + ", blocks=" + blocks
+                    + ", fileBytes=" + fileBytes + ", elapsedMs=" + elapsedNanos / 1000000
+                    + ", MB/s=" + String.format("%.1f", getMBPerSecond()) + '}';
+        }
+    }
+}
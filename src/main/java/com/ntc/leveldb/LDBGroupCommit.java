@@ -0,0 +1,228 @@
+/*
+ * Copyright 2026 nghiatc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ntc.leveldb;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.iq80.leveldb.DB;
+import org.iq80.leveldb.WriteBatch;
+import org.iq80.leveldb.WriteOptions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Group-commit writer. Callers enqueue mutations and get a future; a single
+ * committer thread drains the queue into one WriteBatch per cycle, bounded by
+ * maxBatchBytes, waiting up to maxLingerMs for more mutations to join.
+ * At most maxQueued mutations wait in the queue; when it is full, callers
+ * block until the committer catches up, so a slow disk throttles writers
+ * instead of growing the heap.
+ *
+ * @author nghiatc
+ * @since Oct 18, 2026
+ */
+public class LDBGroupCommit {
+
+    private static final Logger logger = LoggerFactory.getLogger(LDBGroupCommit.class);
+
+    private final DB db;
+    private final WriteOptions writeOptions;
+    private final LDBCache cache;
+    private final int maxBatchBytes;
+    private final long maxLingerMs;
+    private final BlockingQueue<Mutation> queue;
+    private final Thread committer;
+    private volatile boolean running = true;
+
+    public static final int DEFAULT_MAX_QUEUED = 16384;
+
+    public LDBGroupCommit(DB db, WriteOptions writeOptions, LDBCache cache, int maxBatchBytes, long maxLingerMs) {
+        this(db, writeOptions, cache, maxBatchBytes, maxLingerMs, DEFAULT_MAX_QUEUED);
+    }
+
+    public LDBGroupCommit(DB db, WriteOptions writeOptions, LDBCache cache, int maxBatchBytes, long maxLingerMs, int maxQueued) {
+        if (maxBatchBytes <= 0 || maxLingerMs < 0 || maxQueued <= 0) {
+            throw new IllegalArgumentException("maxBatchBytes and maxQueued must be positive and maxLingerMs not negative.");
+        }
+        this.db = db;
+        this.writeOptions = writeOptions;
+        this.cache = cache;
+        this.maxBatchBytes = maxBatchBytes;
+        this.maxLingerMs = maxLingerMs;
+        this.queue = new ArrayBlockingQueue<>(maxQueued);
+        committer = new Thread(this::run, "ldb-group-commit");
+        committer.setDaemon(true);
+        committer.start();
+    }
+
+    public int getMaxBatchBytes() {
+        return maxBatchBytes;
+    }
+
+    public long getMaxLingerMs() {
+        return maxLingerMs;
+    }
+
+    public int getQueueSize() {
+        return queue.size();
+    }
+
+    public int getMaxQueued() {
+        return queue.size() + queue.remainingCapacity();
+    }
+
+    public CompletableFuture<Void> put(byte[] key, byte[] value) {
+        return enqueue(new Mutation(key, value));
+    }
+
+    public CompletableFuture<Void> delete(byte[] key) {
+        return enqueue(new Mutation(key, null));
+    }
+
+    /**
+     * Blocks while the queue is full; an interrupted caller gets a future
+     * failed with InterruptedException and its interrupt flag kept.
+     */
+    private CompletableFuture<Void> enqueue(Mutation m) {
+        if (!running) {
+            m.future.completeExceptionally(new IllegalStateException("Group commit writer is closed."));
+            return m.future;
+        }
+        try {
+            queue.put(m);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            m.future.completeExceptionally(ex);
+            return m.future;
+        }
+        if (!running && queue.remove(m)) {
+            // Raced with close(), the committer may already be gone.
+            m.future.completeExceptionally(new IllegalStateException("Group commit writer is closed."));
+        }
+        return m.future;
+    }
+
+    private void run() {
+        List<Mutation> group = new ArrayList<>();
+        while (running || !queue.isEmpty()) {
+            try {
+                collect(group);
+            } catch (InterruptedException ex) {
+                // Commit what was collected so far.
+            }
+            if (!group.isEmpty()) {
+                commit(group);
+                group.clear();
+            }
+        }
+    }
+
+    private void collect(List<Mutation> group) throws InterruptedException {
+        Mutation first = queue.poll(100, TimeUnit.MILLISECONDS);
+        if (first == null) {
+            return;
+        }
+        group.add(first);
+        int bytes = first.size();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxLingerMs);
+        while (bytes < maxBatchBytes) {
+            Mutation m = queue.poll();
+            if (m == null) {
+                long remain = deadline - System.nanoTime();
+                if (remain <= 0 || !running) {
+                    return;
+                }
+                m = queue.poll(remain, TimeUnit.NANOSECONDS);
+                if (m == null) {
+                    return;
+                }
+            }
+            group.add(m);
+            bytes += m.size();
+        }
+    }
+
+    private void commit(List<Mutation> group) {
+        WriteBatch batch = db.createWriteBatch();
+        try {
+            for (Mutation m : group) {
+                if (m.value != null) {
+                    batch.put(m.key, m.value);
+                } else {
+                    batch.delete(m.key);
+                }
+            }
+            if (writeOptions != null) {
+                db.write(batch, writeOptions);
+            } else {
+                db.write(batch);
+            }
+            for (Mutation m : group) {
+                if (cache != null) {
+                    cache.invalidate(m.key);
+                }
+                m.future.complete(null);
+            }
+        } catch (Exception ex) {
+            logger.error("commit: ", ex);
+            for (Mutation m : group) {
+                m.future.completeExceptionally(ex);
+            }
+        } finally {
+            try {
+                batch.close();
+            } catch (Exception ex) {
+                logger.error("commit close batch: ", ex);
+            }
+        }
+    }
+
+    /**
+     * Stop accepting mutations and wait until queued ones are committed.
+     */
+    public void close() {
+        running = false;
+        try {
+            committer.join();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        // Mutations enqueued after the committer stopped.
+        Mutation m;
+        while ((m = queue.poll()) != null) {
+            m.future.completeExceptionally(new IllegalStateException("Group commit writer is closed."));
+        }
+    }
+
+    private static class Mutation {
+        private final byte[] key;
+        private final byte[] value;
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+
+        Mutation(byte[] key, byte[] value) {
+            this.key = key;
+            this.value = value;
+        }
+
+        int size() {
+            return key.length + (value != null ? value.length : 0);
+        }
+    }
+}
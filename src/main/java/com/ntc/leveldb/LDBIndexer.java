@@ -0,0 +1,309 @@
+/*
+ * Copyright 2026 nghiatc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ntc.leveldb;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Function;
+import org.iq80.leveldb.DB;
+import org.iq80.leveldb.DBIterator;
+import org.iq80.leveldb.ReadOptions;
+import org.iq80.leveldb.WriteBatch;
+import org.iq80.leveldb.WriteOptions;
+
+/**
+ * Secondary indexes kept in the same DB. Each index has an extractor from a
+ * value to its index value (null leaves the record out of the index); every
+ * write through the connection looks up the old value, under the key stripe
+ * locks, and adds the index entries to remove and add to the WriteBatch of
+ * the record, so record and index change atomically.
+ * <p>
+ * The old value comes from the caller when supplied, else from the read
+ * cache, else from the DB. Index entries live under the reserved key
+ * prefix 0x00 "idx" 0x00 (see LDBBytes.isReserved): then name 0x00, the index value escaped so that 0x00
+ * becomes 0x00 0xFF and terminated by 0x00 0x01, then the primary key. Index
+ * values therefore sort as plain bytes and range scans need no filtering.
+ *
+ * @author nghiatc
+ * @since Oct 18, 2026
+ */
+public class LDBIndexer {
+
+    private static final byte[] EMPTY = new byte[0];
+    private static final int REBUILD_BATCH = 1000;
+
+    private final DB db;
+    private final LDBStripedLock keyLocks;
+    private final LDBCache cache;
+    private final Map<String, Index> indexes = new ConcurrentHashMap<>();
+    private volatile boolean active;
+
+    private static final class Index {
+        final String name;
+        final byte[] prefix;
+        final Function<byte[], byte[]> extractor;
+
+        Index(String name, Function<byte[], byte[]> extractor) {
+            this.name = name;
+            this.prefix = LDBBytes.concat(LDBBytes.concat(LDBBytes.INDEX_PREFIX, name.getBytes(StandardCharsets.UTF_8)), new byte[]{0});
+            this.extractor = extractor;
+        }
+
+        byte[] extract(byte[] value) {
+            return value != null ? extractor.apply(LDBTtl.strip(value)) : null;
+        }
+    }
+
+    public LDBIndexer(DB db, LDBStripedLock keyLocks, LDBCache cache) {
+        this.db = db;
+        this.keyLocks = keyLocks;
+        this.cache = cache;
+    }
+
+    /**
+     * Register an index. Records written before are not in it until
+     * rebuild(name).
+     */
+    public void add(String name, Function<byte[], byte[]> extractor) {
+        if (name == null || name.isEmpty() || name.indexOf('\u0000') >= 0 || extractor == null) {
+            throw new IllegalArgumentException("Invalid index: " + name);
+        }
+        if (indexes.putIfAbsent(name, new Index(name, extractor)) != null) {
+            throw new IllegalArgumentException("Index already exists: " + name);
+        }
+        active = true;
+    }
+
+    /**
+     * Unregister the index and delete its entries.
+     */
+    public void drop(String name, WriteOptions wo) throws IOException {
+        Index idx = indexes.remove(name);
+        active = !indexes.isEmpty();
+        if (idx != null) {
+            clear(idx, wo);
+        }
+    }
+
+    public boolean isActive() {
+        return active;
+    }
+
+    public List<String> getNames() {
+        return new ArrayList<>(indexes.keySet());
+    }
+
+    private Index index(String name) {
+        Index idx = indexes.get(name);
+        if (idx == null) {
+            throw new IllegalArgumentException("No such index: " + name);
+        }
+        return idx;
+    }
+
+    /**
+     * Write batch, which already holds the puts and deletes of the records,
+     * with the index changes they cause.
+     *
+     * @param keys record keys in batch order, duplicates allowed
+     * @param values new values, a null element or list for a delete
+     * @param oldValues current values known by the caller, null to look them up
+     */
+    public void write(WriteBatch batch, List<byte[]> keys, List<byte[]> values, List<byte[]> oldValues, WriteOptions wo) {
+        Lock[] locks = keyLocks.lockAll(keys);
+        try {
+            Map<ByteBuffer, byte[]> current = new HashMap<>();
+            for (int i = 0; i < keys.size(); i++) {
+                byte[] key = keys.get(i);
+                ByteBuffer k = ByteBuffer.wrap(key);
+                byte[] old;
+                if (current.containsKey(k)) {
+                    old = current.get(k);
+                } else if (oldValues != null) {
+                    old = oldValues.get(i);
+                } else {
+                    old = readOld(key);
+                }
+                byte[] value = values != null ? values.get(i) : null;
+                update(batch, key, old, value);
+                current.put(k, value);
+            }
+            db.write(batch, wo);
+            // Inside the locks, so the next writer of these keys does not read a stale cached value.
+            cache.invalidateAll(keys);
+        } finally {
+            LDBStripedLock.unlockAll(locks);
+        }
+    }
+
+    private byte[] readOld(byte[] key) {
+        byte[] cached = cache.get(key);
+        if (cached != null) {
+            return LDBCache.isMissing(cached) ? null : cached;
+        }
+        return db.get(key);
+    }
+
+    /**
+     * Add to batch the index changes of key going from old to value, either
+     * may be null. Callers hold the stripe lock of key.
+     */
+    void update(WriteBatch batch, byte[] key, byte[] old, byte[] value) {
+        for (Index idx : indexes.values()) {
+            byte[] oldIv = idx.extract(old);
+            byte[] newIv = idx.extract(value);
+            if (Arrays.equals(oldIv, newIv)) {
+                continue;
+            }
+            if (oldIv != null) {
+                batch.delete(entryKey(idx, oldIv, key));
+            }
+            if (newIv != null) {
+                batch.put(entryKey(idx, newIv, key), EMPTY);
+            }
+        }
+    }
+
+    private static byte[] entryKey(Index idx, byte[] iv, byte[] key) {
+        return LDBBytes.concat(LDBBytes.concat(idx.prefix, LDBBytes.escape(iv)), key);
+    }
+
+    /**
+     * Primary key of an index entry key.
+     */
+    private static byte[] primaryKey(Index idx, byte[] entry) {
+        int i = idx.prefix.length;
+        while (i + 1 < entry.length && !(entry[i] == 0 && entry[i + 1] == 1)) {
+            i += entry[i] == 0 ? 2 : 1;
+        }
+        return Arrays.copyOfRange(entry, i + 2, entry.length);
+    }
+
+    /**
+     * Records whose index value is in [from, to) in index value order, null
+     * bounds are open. Entries are checked against the record read through
+     * reader, so records deleted or expired behind the index are skipped.
+     */
+    public LDBCursor<byte[], byte[]> scan(String name, byte[] from, byte[] to, int limit, ReadOptions ro,
+            Function<byte[], byte[]> reader) {
+        Index idx = index(name);
+        byte[] lo = from != null ? LDBBytes.concat(idx.prefix, LDBBytes.escape(from)) : idx.prefix;
+        byte[] hi = to != null ? LDBBytes.concat(idx.prefix, LDBBytes.escape(to)) : LDBBytes.prefixEnd(idx.prefix);
+        return lookup(idx, LDBCursor.open(db, ro, lo, hi, 0, false), limit, reader);
+    }
+
+    /**
+     * Records whose index value equals value, in primary key order.
+     */
+    public LDBCursor<byte[], byte[]> scanEqual(String name, byte[] value, int limit, ReadOptions ro,
+            Function<byte[], byte[]> reader) {
+        Index idx = index(name);
+        byte[] lo = LDBBytes.concat(idx.prefix, LDBBytes.escape(value));
+        return lookup(idx, LDBCursor.open(db, ro, lo, LDBBytes.prefixEnd(lo), 0, false), limit, reader);
+    }
+
+    private static LDBCursor<byte[], byte[]> lookup(Index idx, LDBCursor<byte[], byte[]> raw, int limit,
+            Function<byte[], byte[]> reader) {
+        return new LDBCursor<byte[], byte[]>(limit, false, Function.identity(), Function.identity()) {
+            @Override
+            protected Map.Entry<byte[], byte[]> fetchRaw() {
+                while (raw.hasNext()) {
+                    byte[] entry = raw.next().getKey();
+                    byte[] key = primaryKey(idx, entry);
+                    byte[] value = reader.apply(key);
+                    byte[] iv = idx.extract(value);
+                    if (iv != null && Arrays.equals(entry, entryKey(idx, iv, key))) {
+                        return new AbstractMap.SimpleImmutableEntry<>(key, value);
+                    }
+                }
+                return null;
+            }
+
+            @Override
+            protected void closeRaw() {
+                raw.close();
+            }
+        };
+    }
+
+    /**
+     * Recreate the entries of an index from all records, e.g. after adding
+     * it to a populated DB or after bulk load. Not atomic with concurrent
+     * writes; run it while the DB is quiet.
+     */
+    public void rebuild(String name, WriteOptions wo) throws IOException {
+        Index idx = index(name);
+        clear(idx, wo);
+        ReadOptions ro = new ReadOptions().fillCache(false);
+        WriteBatch batch = db.createWriteBatch();
+        int n = 0;
+        try (DBIterator it = db.iterator(ro)) {
+            it.seekToFirst();
+            while (it.hasNext()) {
+                Map.Entry<byte[], byte[]> e = it.next();
+                byte[] reserved = LDBBytes.reservedPrefix(e.getKey());
+                if (reserved != null) {
+                    it.seek(LDBBytes.prefixEnd(reserved));
+                    continue;
+                }
+                byte[] iv = idx.extract(e.getValue());
+                if (iv != null) {
+                    batch.put(entryKey(idx, iv, e.getKey()), EMPTY);
+                    if (++n % REBUILD_BATCH == 0) {
+                        db.write(batch, wo);
+                        batch.close();
+                        batch = db.createWriteBatch();
+                    }
+                }
+            }
+            db.write(batch, wo);
+        } finally {
+            batch.close();
+        }
+    }
+
+    private void clear(Index idx, WriteOptions wo) throws IOException {
+        byte[] end = LDBBytes.prefixEnd(idx.prefix);
+        ReadOptions ro = new ReadOptions().fillCache(false);
+        while (true) {
+            int n = 0;
+            try (DBIterator it = db.iterator(ro); WriteBatch batch = db.createWriteBatch()) {
+                it.seek(idx.prefix);
+                while (n < REBUILD_BATCH && it.hasNext()) {
+                    byte[] key = it.next().getKey();
+                    if (LDBBytes.compare(key, end) >= 0) {
+                        break;
+                    }
+                    batch.delete(key);
+                    n++;
+                }
+                if (n == 0) {
+                    return;
+                }
+                db.write(batch, wo);
+            }
+        }
+    }
+}
@@ -0,0 +1,383 @@
+/*
+ * Copyright 2026 nghiatc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ntc.leveldb;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.iq80.leveldb.Options;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Process-wide memory budget for LevelDB instances. Each database opened
+ * through the governor gets a block cache and write buffer carved from
+ * totalBytes. A database counts as cacheSize + 2 * writeBufferSize, since
+ * LevelDB keeps a mutable and an immutable memtable.
+ * <p>
+ * Shares are weighted by heat, the rate of operations seen in LDBMetrics
+ * (enable metrics on the connections to use it). A hot database gets up to
+ * 1.5 times an even share and a cold one half of it. LevelDB fixes both sizes
+ * when a database opens, so new shares take effect on the next open.
+ * {@link #isOffTarget} tells which open databases are worth reopening, and
+ * {@link LDBRegistry#rebalance()} reopens the idle ones.
+ * <p>
+ * The budget is a hard limit: once the minimum cache and write buffers of
+ * another database no longer fit, opens fail until databases are closed.
+ *
+ * @author nghiatc
+ * @since Oct 18, 2026
+ */
+public class LDBMemoryGovernor {
+
+    private static final Logger logger = LoggerFactory.getLogger(LDBMemoryGovernor.class);
+
+    // Heat of databases closed recently, used again when they reopen.
+    private static final int MAX_PAST_HEAT = 10000;
+
+    private final long totalBytes;
+    private final int expectedDatabases;
+    private double writeBufferRatio = 0.25;
+    private long minCacheBytes = 1048576;
+    private long maxCacheBytes = 1L << 30;
+    private long minWriteBufferBytes = 1048576;
+    private long maxWriteBufferBytes = 64L * 1048576;
+
+    // Guarded by this.
+    private final Map<String, Allocation> allocations = new LinkedHashMap<>();
+    private final Map<String, Double> pastHeat = new LinkedHashMap<String, Double>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Double> eldest) {
+            return size() > MAX_PAST_HEAT;
+        }
+    };
+    private long allocatedBytes;
+    private long lastSample = System.nanoTime();
+    private ScheduledExecutorService sampler;
+
+    /**
+     * @param totalBytes memory shared by all databases
+     * @param expectedDatabases databases usually open at once, so the first
+     * ones do not take the whole budget
+     */
+    public LDBMemoryGovernor(long totalBytes, int expectedDatabases) {
+        if (totalBytes <= 0 || expectedDatabases <= 0) {
+            throw new IllegalArgumentException("totalBytes and expectedDatabases must be positive");
+        }
+        this.totalBytes = totalBytes;
+        this.expectedDatabases = expectedDatabases;
+    }
+
+    /**
+     * Part of each share used for write buffers. Default 0.25.
+     */
+    public synchronized void setWriteBufferRatio(double writeBufferRatio) {
+        this.writeBufferRatio = Math.max(0, Math.min(1, writeBufferRatio));
+    }
+
+    public synchronized void setCacheLimits(long minCacheBytes, long maxCacheBytes) {
+        this.minCacheBytes = minCacheBytes;
+        this.maxCacheBytes = Math.max(minCacheBytes, maxCacheBytes);
+    }
+
+    public synchronized void setWriteBufferLimits(long minWriteBufferBytes, long maxWriteBufferBytes) {
+        this.minWriteBufferBytes = minWriteBufferBytes;
+        this.maxWriteBufferBytes = Math.max(minWriteBufferBytes, maxWriteBufferBytes);
+    }
+
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+
+    public synchronized long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    public LDBConnection open(String pathDB) throws IOException {
+        return open(pathDB, null);
+    }
+
+    /**
+     * Open pathDB with template's options (null for the defaults) and the
+     * cache and write buffer sizes of its share. Close it with {@link #close}.
+     */
+    public LDBConnection open(String pathDB, Options template) throws IOException {
+        Options opts = allocate(pathDB, template);
+        try {
+            LDBConnection conn = new LDBConnection(pathDB, opts);
+            synchronized (this) {
+                Allocation a = allocations.get(key(pathDB));
+                if (a != null) {
+                    a.conn = conn;
+                    a.lastOps = totalOps(conn);
+                }
+            }
+            return conn;
+        } catch (IOException | RuntimeException | ExceptionInInitializerError ex) {
+            free(pathDB);
+            throw ex;
+        }
+    }
+
+    public void close(LDBConnection conn) {
+        conn.close();
+        free(conn.getDbDirectory());
+    }
+
+    private static String key(String pathDB) {
+        return new File(pathDB).getAbsolutePath();
+    }
+
+    /**
+     * Options for a database about to open, with its share reserved until free.
+     *
+     * @throws IllegalStateException if the budget left cannot hold the database
+     */
+    public synchronized Options allocate(String pathDB, Options template) {
+        String key = key(pathDB);
+        if (allocations.containsKey(key)) {
+            throw new IllegalStateException("Database already has an allocation: " + pathDB);
+        }
+        double mean = meanHeat();
+        Double past = pastHeat.remove(key);
+        double heat = past != null ? past : mean;
+        long share = Math.min(target(heat, mean, 1), Math.max(0, totalBytes - allocatedBytes));
+        long writeBuffer = clamp((long) (share * writeBufferRatio / 2), minWriteBufferBytes, maxWriteBufferBytes);
+        long cache = clamp(share - 2 * writeBuffer, minCacheBytes, maxCacheBytes);
+        if (allocatedBytes + cache + 2 * writeBuffer > totalBytes) {
+            logger.warn("allocate: memory budget exhausted, refusing {} ({} of {} bytes allocated to {} databases)",
+                    pathDB, allocatedBytes, totalBytes, allocations.size());
+            throw new IllegalStateException("Memory budget exhausted: " + allocatedBytes + " of " + totalBytes
+                    + " bytes allocated, " + (cache + 2 * writeBuffer) + " needed for " + pathDB);
+        }
+        Options opts = template != null ? LDBRegistry.copyOf(template) : new Options().createIfMissing(true);
+        opts.cacheSize(cache);
+        opts.writeBufferSize((int) writeBuffer);
+        Allocation a = new Allocation(cache, writeBuffer, heat);
+        allocations.put(key, a);
+        allocatedBytes += a.bytes();
+        return opts;
+    }
+
+    public synchronized void free(String pathDB) {
+        String key = key(pathDB);
+        Allocation a = allocations.remove(key);
+        if (a != null) {
+            allocatedBytes -= a.bytes();
+            pastHeat.put(key, a.heat);
+        }
+    }
+
+    private static long clamp(long v, long min, long max) {
+        return Math.max(min, Math.min(max, v));
+    }
+
+    private double meanHeat() {
+        if (allocations.isEmpty()) {
+            return 0;
+        }
+        double sum = 0;
+        for (Allocation a : allocations.values()) {
+            sum += a.heat;
+        }
+        return sum / allocations.size();
+    }
+
+    private static double weight(double heat, double mean) {
+        return mean > 0 ? Math.min(1.5, 0.5 + 0.5 * heat / mean) : 1.0;
+    }
+
+    /**
+     * Fair share of a database with this heat, the open ones plus extra newcomers competing.
+     */
+    private long target(double heat, double mean, int extra) {
+        double sum = extra * weight(heat, mean);
+        for (Allocation a : allocations.values()) {
+            sum += weight(a.heat, mean);
+        }
+        return (long) (totalBytes * weight(heat, mean) / Math.max(sum, expectedDatabases));
+    }
+
+    /**
+     * Current share of an open database, 0 if it has none.
+     */
+    public synchronized long getTargetBytes(String pathDB) {
+        Allocation a = allocations.get(key(pathDB));
+        return a != null ? target(a.heat, meanHeat(), 0) : 0;
+    }
+
+    /**
+     * Whether the allocation of pathDB is more than 1.5 times its current
+     * share, or less than two thirds of it.
+     */
+    public synchronized boolean isOffTarget(String pathDB) {
+        Allocation a = allocations.get(key(pathDB));
+        if (a == null) {
+            return false;
+        }
+        long target = Math.max(minCacheBytes + 2 * minWriteBufferBytes, target(a.heat, meanHeat(), 0));
+        return 2 * a.bytes() > 3 * target || 3 * a.bytes() < 2 * target;
+    }
+
+    /**
+     * Update heat every intervalMs in a daemon thread.
+     */
+    public synchronized void start(long intervalMs) {
+        if (sampler != null) {
+            return;
+        }
+        sampler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "ldb-memory-governor");
+            t.setDaemon(true);
+            return t;
+        });
+        sampler.scheduleWithFixedDelay(() -> {
+            try {
+                sample();
+            } catch (Exception ex) {
+                logger.error("sample: ", ex);
+            }
+        }, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void stop() {
+        if (sampler != null) {
+            sampler.shutdownNow();
+            sampler = null;
+        }
+    }
+
+    /**
+     * Update the heat of each open database from its operation count since the last sample.
+     */
+    public synchronized void sample() {
+        long now = System.nanoTime();
+        long interval = Math.max(1, now - lastSample);
+        lastSample = now;
+        for (Allocation a : allocations.values()) {
+            if (a.conn == null) {
+                continue;
+            }
+            long ops = totalOps(a.conn);
+            double rate = (ops - a.lastOps) * 1e9 / interval;
+            a.lastOps = ops;
+            a.heat = a.sampled ? 0.7 * a.heat + 0.3 * rate : rate;
+            a.sampled = true;
+        }
+    }
+
+    private static long totalOps(LDBConnection conn) {
+        long n = 0;
+        for (LDBMetrics.Op op : LDBMetrics.Op.values()) {
+            n += conn.getMetrics().getCount(op);
+        }
+        return n;
+    }
+
+    /**
+     * Per-database allocation, heat and current share, keyed by absolute path.
+     */
+    public synchronized Map<String, Usage> getUsage() {
+        Map<String, Usage> rs = new LinkedHashMap<>();
+        double mean = meanHeat();
+        for (Map.Entry<String, Allocation> e : allocations.entrySet()) {
+            Allocation a = e.getValue();
+            long appCache = a.conn != null ? a.conn.getCache().getSizeBytes() : 0;
+            rs.put(e.getKey(), new Usage(a.cacheBytes, a.writeBufferBytes, a.heat, target(a.heat, mean, 0), appCache));
+        }
+        return Collections.unmodifiableMap(rs);
+    }
+
+    private static class Allocation {
+        private final long cacheBytes;
+        private final long writeBufferBytes;
+        private double heat;
+        private boolean sampled;
+        private long lastOps;
+        private LDBConnection conn;
+
+        Allocation(long cacheBytes, long writeBufferBytes, double heat) {
+            this.cacheBytes = cacheBytes;
+            this.writeBufferBytes = writeBufferBytes;
+            this.heat = heat;
+        }
+
+        long bytes() {
+            return cacheBytes + 2 * writeBufferBytes;
+        }
+    }
+
+    public static class Usage {
+        private final long cacheBytes;
+        private final long writeBufferBytes;
+        private final double heat;
+        private final long targetBytes;
+        private final long appCacheBytes;
+
+        Usage(long cacheBytes, long writeBufferBytes, double heat, long targetBytes, long appCacheBytes) {
+            this.cacheBytes = cacheBytes;
+            this.writeBufferBytes = writeBufferBytes;
+            this.heat = heat;
+            this.targetBytes = targetBytes;
+            this.appCacheBytes = appCacheBytes;
+        }
+
+        public long getCacheBytes() {
+            return cacheBytes;
+        }
+
+        public long getWriteBufferBytes() {
+            return writeBufferBytes;
+        }
+
+        /**
+         * Upper bound of LevelDB memory: block cache plus two memtables.
+         */
+        public long getAllocatedBytes() {
+            return cacheBytes + 2 * writeBufferBytes;
+        }
+
+        /**
+         * Operations per second, smoothed.
+         */
+        public double getHeat() {
+            return heat;
+        }
+
+        public long getTargetBytes() {
+            return targetBytes;
+        }
+
+        /**
+         * Bytes held by the connection's LDBCache, outside the budget.
+         */
+        public long getAppCacheBytes() {
+            return appCacheBytes;
+        }
+
+        @Override
+        public String toString() {
+            return "Usage{" + "cacheBytes=" + cacheBytes + ", writeBufferBytes=" + writeBufferBytes
+                    + ", heat=" + String.format("%.1f", heat) + ", targetBytes=" + targetBytes
+                    + ", appCacheBytes=" + appCacheBytes + '}';
+        }
+    }
+}
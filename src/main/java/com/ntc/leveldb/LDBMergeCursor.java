@@ -0,0 +1,81 @@
+/*
+ * Copyright 2026 nghiatc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ntc.leveldb;
+
+import java.io.IOException;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.function.Function;
+
+/**
+ * Merges ordered cursors, e.g. one per shard, into a single cursor in key
+ * order (descending when reverse). Closing it closes every source.
+ *
+ * @author nghiatc
+ * @since Oct 18, 2026
+ */
+public class LDBMergeCursor<K, V> extends LDBCursor<K, V> {
+
+    private final List<LDBCursor<byte[], byte[]>> sources;
+    private final PriorityQueue<Head> heads;
+
+    public LDBMergeCursor(List<LDBCursor<byte[], byte[]>> sources, int limit, boolean reverse,
+            Function<byte[], K> keyDecoder, Function<byte[], V> valueDecoder) {
+        super(limit, reverse, keyDecoder, valueDecoder);
+        this.sources = sources;
+        Comparator<Head> cmp = (a, b) -> LDBBytes.compare(a.entry.getKey(), b.entry.getKey());
+        this.heads = new PriorityQueue<>(Math.max(sources.size(), 1), reverse ? cmp.reversed() : cmp);
+        for (LDBCursor<byte[], byte[]> c : sources) {
+            if (c.hasNext()) {
+                heads.add(new Head(c, c.next()));
+            }
+        }
+    }
+
+    @Override
+    protected Map.Entry<byte[], byte[]> fetchRaw() {
+        Head h = heads.poll();
+        if (h == null) {
+            return null;
+        }
+        Map.Entry<byte[], byte[]> e = h.entry;
+        if (h.cursor.hasNext()) {
+            h.entry = h.cursor.next();
+            heads.add(h);
+        }
+        return e;
+    }
+
+    @Override
+    protected void closeRaw() throws IOException {
+        heads.clear();
+        for (LDBCursor<byte[], byte[]> c : sources) {
+            c.close();
+        }
+    }
+
+    private static class Head {
+        private final LDBCursor<byte[], byte[]> cursor;
+        private Map.Entry<byte[], byte[]> entry;
+
+        Head(LDBCursor<byte[], byte[]> cursor, Map.Entry<byte[], byte[]> entry) {
+            this.cursor = cursor;
+            this.entry = entry;
+        }
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2026 nghiatc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ntc.leveldb;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Folds merge operands into a value, see LDBMerger. Operands are applied in
+ * the order they were merged; the result must not depend on how they are
+ * grouped, since reads fold the pending operands on top of a base that may
+ * already hold earlier folds.
+ *
+ * @author nghiatc
+ * @since Oct 18, 2026
+ */
+public interface LDBMergeOperator {
+
+    /**
+     * @param key the key being read or compacted
+     * @param base current value, null when absent
+     * @param operands pending operands, oldest first, never empty
+     * @return the new value, null to make the key absent
+     */
+    byte[] merge(byte[] key, byte[] base, List<byte[]> operands);
+
+    /**
+     * Sum of 8-byte longs as encoded by LDBCodecs.LONG, absent base is 0.
+     */
+    LDBMergeOperator SUM_LONG = (key, base, operands) -> {
+        long sum = base != null ? LDBCodecs.LONG.decode(base) : 0;
+        for (byte[] operand : operands) {
+            sum += LDBCodecs.LONG.decode(operand);
+        }
+        return LDBCodecs.LONG.encode(sum);
+    };
+
+    /**
+     * Largest of 8-byte longs as encoded by LDBCodecs.LONG.
+     */
+    LDBMergeOperator MAX_LONG = (key, base, operands) -> {
+        long max = base != null ? LDBCodecs.LONG.decode(base) : Long.MIN_VALUE;
+        for (byte[] operand : operands) {
+            max = Math.max(max, LDBCodecs.LONG.decode(operand));
+        }
+        return LDBCodecs.LONG.encode(max);
+    };
+
+    /**
+     * Appends each operand as one element of a list of 4-byte length
+     * prefixed elements; read it back with decodeList.
+     */
+    LDBMergeOperator LIST_APPEND = (key, base, operands) -> {
+        int size = base != null ? base.length : 0;
+        for (byte[] operand : operands) {
+            size += 4 + operand.length;
+        }
+        ByteBuffer buf = ByteBuffer.allocate(size);
+        if (base != null) {
+            buf.put(base);
+        }
+        for (byte[] operand : operands) {
+            buf.putInt(operand.length).put(operand);
+        }
+        return buf.array();
+    };
+
+    /**
+     * Elements of a value built by LIST_APPEND, empty for null.
+     */
+    static List<byte[]> decodeList(byte[] value) {
+        List<byte[]> rs = new ArrayList<>();
+        if (value != null) {
+            ByteBuffer buf = ByteBuffer.wrap(value);
+            while (buf.remaining() >= 4) {
+                byte[] element = new byte[buf.getInt()];
+                buf.get(element);
+                rs.add(element);
+            }
+        }
+        return rs;
+    }
+}
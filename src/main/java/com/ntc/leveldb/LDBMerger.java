@@ -0,0 +1,533 @@
+/*
+ * Copyright 2026 nghiatc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ntc.leveldb;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.AbstractMap;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Function;
+import org.iq80.leveldb.DB;
+import org.iq80.leveldb.DBIterator;
+import org.iq80.leveldb.ReadOptions;
+import org.iq80.leveldb.Snapshot;
+import org.iq80.leveldb.WriteBatch;
+import org.iq80.leveldb.WriteOptions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Merge operands for keys under registered prefixes. merge writes the operand
+ * blind, without reading the value, under the reserved key 0x00 "mrg" 0x00,
+ * the escaped key (see LDBBytes.escape) and an 8-byte sequence. Reads take a
+ * snapshot and fold the pending operands onto the stored value with the
+ * LDBMergeOperator of the key. A background compaction walks the operands in
+ * bounded steps and, under the key stripe lock, writes the folded value and
+ * deletes the operands it folded, in one WriteBatch.
+ * <p>
+ * LevelDB JNI has no native merge operator, so this is done in Java. Put and
+ * delete of a merge key drop its pending operands. Scans walk the operand
+ * range alongside the records, which the escaping keeps in the same order,
+ * and fold each merge key they meet.
+ *
+ * @author nghiatc
+ * @since Oct 18, 2026
+ */
+public class LDBMerger {
+
+    private static final Logger logger = LoggerFactory.getLogger(LDBMerger.class);
+
+    static final byte[] PREFIX = LDBBytes.MERGE_PREFIX;
+    private static final int SEQUENCE_SIZE = 8;
+
+    private final DB db;
+    private final LDBStripedLock keyLocks;
+    private final LDBIndexer indexer;
+    private final WriteOptions writeOptions;
+    private final List<Registration> operators = new CopyOnWriteArrayList<>();
+    private volatile boolean active;
+    private final AtomicLong sequence;
+
+    private volatile ScheduledExecutorService scheduler;
+    private volatile int batchSize = 1000;
+    private final Object stepLock = new Object();
+    // Next operand key to examine, null to start from the first one.
+    private byte[] position;
+    private final AtomicLong merged = new AtomicLong();
+    private final AtomicLong folded = new AtomicLong();
+    private final AtomicLong passes = new AtomicLong();
+
+    private static final class Registration {
+        final byte[] prefix;
+        final LDBMergeOperator operator;
+
+        Registration(byte[] prefix, LDBMergeOperator operator) {
+            this.prefix = prefix;
+            this.operator = operator;
+        }
+    }
+
+    /**
+     * Stored value, folded value and the operand keys that went into it.
+     */
+    static final class Folded {
+        final byte[] raw;
+        final byte[] value;
+        final List<byte[]> operandKeys;
+
+        Folded(byte[] raw, byte[] value, List<byte[]> operandKeys) {
+            this.raw = raw;
+            this.value = value;
+            this.operandKeys = operandKeys;
+        }
+    }
+
+    public LDBMerger(DB db, LDBStripedLock keyLocks, LDBIndexer indexer, WriteOptions writeOptions) {
+        this.db = db;
+        this.keyLocks = keyLocks;
+        this.indexer = indexer;
+        this.writeOptions = writeOptions;
+        this.sequence = new AtomicLong(lastSequence());
+    }
+
+    /**
+     * Highest sequence of the operands already on disk, so operands merged
+     * after a restart sort after them.
+     */
+    private long lastSequence() {
+        long max = 0;
+        byte[] end = LDBBytes.prefixEnd(PREFIX);
+        try (DBIterator it = db.iterator(new ReadOptions().fillCache(false))) {
+            it.seek(PREFIX);
+            while (it.hasNext()) {
+                byte[] operandKey = it.next().getKey();
+                if (LDBBytes.compare(operandKey, end) >= 0) {
+                    break;
+                }
+                long seq = 0;
+                for (int i = operandKey.length - SEQUENCE_SIZE; i < operandKey.length; i++) {
+                    seq = (seq << 8) | (operandKey[i] & 0xFF);
+                }
+                max = Math.max(max, seq);
+            }
+        } catch (IOException ex) {
+            logger.error("lastSequence: ", ex);
+        }
+        return max;
+    }
+
+    /**
+     * Fold merges of keys starting with keyPrefix with operator. The longest
+     * matching prefix wins.
+     */
+    public void add(byte[] keyPrefix, LDBMergeOperator operator) {
+        if (keyPrefix == null || keyPrefix.length == 0 || keyPrefix[0] == 0 || operator == null) {
+            throw new IllegalArgumentException("Invalid merge key prefix or operator.");
+        }
+        operators.add(new Registration(keyPrefix.clone(), operator));
+        active = true;
+    }
+
+    public boolean isActive() {
+        return active;
+    }
+
+    /**
+     * Operator of key, or null when key is not a merge key.
+     */
+    public LDBMergeOperator operatorFor(byte[] key) {
+        Registration best = null;
+        for (Registration r : operators) {
+            if (LDBBytes.startsWith(key, r.prefix) && (best == null || r.prefix.length > best.prefix.length)) {
+                best = r;
+            }
+        }
+        return best != null ? best.operator : null;
+    }
+
+    public boolean isMergeKey(byte[] key) {
+        return active && operatorFor(key) != null;
+    }
+
+    public boolean hasMergeKey(Collection<byte[]> keys) {
+        if (active) {
+            for (byte[] key : keys) {
+                if (operatorFor(key) != null) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static byte[] operandPrefix(byte[] key) {
+        return LDBBytes.concat(PREFIX, LDBBytes.escape(key));
+    }
+
+    /**
+     * Write operand for key without reading it.
+     */
+    public void merge(byte[] key, byte[] operand, WriteOptions wo) {
+        LDBBytes.checkRecordKey(key);
+        if (operatorFor(key) == null) {
+            throw new IllegalArgumentException("No merge operator for key.");
+        }
+        long seq = sequence.incrementAndGet();
+        byte[] suffix = new byte[SEQUENCE_SIZE];
+        for (int i = 0; i < SEQUENCE_SIZE; i++) {
+            suffix[i] = (byte) (seq >>> (56 - 8 * i));
+        }
+        db.put(LDBBytes.concat(operandPrefix(key), suffix), operand, wo);
+        merged.incrementAndGet();
+    }
+
+    /**
+     * Value of a merge key with its pending operands folded in.
+     *
+     * @param ro read options, a snapshot is taken when it has none
+     * @param now time TTL values of the stored value are judged at
+     */
+    public byte[] get(byte[] key, ReadOptions ro, long now) {
+        return read(key, ro, now).value;
+    }
+
+    Folded read(byte[] key, ReadOptions ro, long now) {
+        Snapshot snapshot = null;
+        ReadOptions opts = ro;
+        if (opts == null || opts.snapshot() == null) {
+            // Stored value and operands from one snapshot, so a compaction in between is not seen half done.
+            snapshot = db.getSnapshot();
+            opts = new ReadOptions().snapshot(snapshot).fillCache(ro == null || ro.fillCache());
+        }
+        try {
+            byte[] raw = db.get(key, opts);
+            List<byte[]> operandKeys = new ArrayList<>();
+            List<byte[]> operands = new ArrayList<>();
+            scanOperands(key, opts, operandKeys, operands);
+            byte[] value = LDBTtl.unwrap(raw, now);
+            if (!operands.isEmpty()) {
+                value = operatorFor(key).merge(key, value, operands);
+            }
+            return new Folded(raw, value, operandKeys);
+        } finally {
+            if (snapshot != null) {
+                try {
+                    snapshot.close();
+                } catch (Exception ex) {
+                    logger.error("read close snapshot: ", ex);
+                }
+            }
+        }
+    }
+
+    private void scanOperands(byte[] key, ReadOptions ro, List<byte[]> operandKeys, List<byte[]> operands) {
+        byte[] prefix = operandPrefix(key);
+        try (DBIterator it = ro != null ? db.iterator(ro) : db.iterator()) {
+            it.seek(prefix);
+            while (it.hasNext()) {
+                Map.Entry<byte[], byte[]> e = it.next();
+                if (!LDBBytes.startsWith(e.getKey(), prefix)) {
+                    break;
+                }
+                operandKeys.add(e.getKey());
+                if (operands != null) {
+                    operands.add(e.getValue());
+                }
+            }
+        } catch (IOException ex) {
+            logger.error("scanOperands: ", ex);
+        }
+    }
+
+    /**
+     * Records of raw, a cursor over the records in [from, to) opened by the
+     * caller with ro, with merge keys folded: their values include the
+     * pending operands and keys that so far only have operands are added in
+     * key order. Returns raw itself when no operator is registered.
+     */
+    LDBCursor<byte[], byte[]> fold(LDBCursor<byte[], byte[]> raw, ReadOptions ro, byte[] from, byte[] to, long now) {
+        if (!active) {
+            return raw;
+        }
+        boolean reverse = raw.isReverse();
+        // Escaping keeps key order, so these bounds hold exactly the operands of keys in [from, to).
+        byte[] lo = from != null ? LDBBytes.concat(PREFIX, escapedBound(from)) : PREFIX;
+        byte[] hi = to != null ? LDBBytes.concat(PREFIX, escapedBound(to)) : LDBBytes.prefixEnd(PREFIX);
+        LDBCursor<byte[], byte[]> operands = LDBCursor.open(db, ro, lo, hi, 0, reverse);
+        return new LDBCursor<byte[], byte[]>(0, reverse, Function.identity(), Function.identity()) {
+            private Map.Entry<byte[], byte[]> record;
+            private byte[] merged;
+            private byte[] lastMerged;
+
+            @Override
+            protected Map.Entry<byte[], byte[]> fetchRaw() {
+                while (true) {
+                    if (record == null && raw.hasNext()) {
+                        record = raw.next();
+                    }
+                    if (merged == null) {
+                        merged = nextMerged();
+                    }
+                    if (record == null && merged == null) {
+                        return null;
+                    }
+                    int c;
+                    if (record == null || merged == null) {
+                        c = record == null ? 1 : -1;
+                    } else {
+                        c = reverse ? LDBBytes.compare(merged, record.getKey()) : LDBBytes.compare(record.getKey(), merged);
+                    }
+                    byte[] key;
+                    if (c < 0) {
+                        Map.Entry<byte[], byte[]> e = record;
+                        record = null;
+                        if (operatorFor(e.getKey()) == null) {
+                            return e;
+                        }
+                        key = e.getKey();
+                    } else {
+                        key = merged;
+                        merged = null;
+                        if (c == 0) {
+                            record = null;
+                        }
+                    }
+                    byte[] value = get(key, ro, now);
+                    if (value != null) {
+                        return new AbstractMap.SimpleImmutableEntry<>(key, value);
+                    }
+                }
+            }
+
+            private byte[] nextMerged() {
+                while (operands.hasNext()) {
+                    byte[] key = LDBBytes.unescape(operands.next().getKey(), PREFIX.length);
+                    if (!Arrays.equals(key, lastMerged) && operatorFor(key) != null) {
+                        lastMerged = key;
+                        return key;
+                    }
+                }
+                return null;
+            }
+
+            @Override
+            protected void closeRaw() {
+                raw.close();
+                operands.close();
+            }
+        };
+    }
+
+    /**
+     * escape(key) without its terminator: not above the operand keys of key
+     * and of greater keys, and above those of smaller keys.
+     */
+    private static byte[] escapedBound(byte[] key) {
+        byte[] escaped = LDBBytes.escape(key);
+        return Arrays.copyOf(escaped, escaped.length - 2);
+    }
+
+    /**
+     * Add to batch the deletes of the pending operands of key, when it is a
+     * merge key. Used by put and delete, which replace the folded value.
+     */
+    void dropOperands(WriteBatch batch, byte[] key) {
+        if (isMergeKey(key)) {
+            List<byte[]> operandKeys = new ArrayList<>();
+            scanOperands(key, null, operandKeys, null);
+            for (byte[] operandKey : operandKeys) {
+                batch.delete(operandKey);
+            }
+        }
+    }
+
+    /**
+     * Start compacting operands on a daemon thread.
+     *
+     * @param maxOperandsPerSec upper bound on operands examined per second
+     * @param batchSize operands examined per step
+     */
+    public synchronized void start(long maxOperandsPerSec, int batchSize) {
+        if (maxOperandsPerSec <= 0 || batchSize <= 0) {
+            throw new IllegalArgumentException("maxOperandsPerSec and batchSize must be positive.");
+        }
+        stop();
+        this.batchSize = batchSize;
+        ScheduledExecutorService s = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "ldb-merge-compaction");
+            t.setDaemon(true);
+            return t;
+        });
+        long intervalMs = Math.max(1, batchSize * 1000L / maxOperandsPerSec);
+        s.scheduleWithFixedDelay(this::run, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+        scheduler = s;
+    }
+
+    /**
+     * Stop compacting. Returns once a step in progress has finished, so the
+     * DB can be closed right after.
+     */
+    public synchronized void stop() {
+        ScheduledExecutorService s = scheduler;
+        scheduler = null;
+        if (s != null) {
+            s.shutdown();
+            boolean interrupted = false;
+            while (true) {
+                try {
+                    if (s.awaitTermination(10, TimeUnit.SECONDS)) {
+                        break;
+                    }
+                    logger.warn("stop: waiting for the compaction step in progress");
+                } catch (InterruptedException ex) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    public boolean isRunning() {
+        return scheduler != null;
+    }
+
+    private void run() {
+        try {
+            compactStep(batchSize);
+        } catch (Exception ex) {
+            logger.error("compact: ", ex);
+        }
+    }
+
+    /**
+     * Fold the keys of up to batchSize operands from the current position.
+     * Returns the number of operands folded.
+     */
+    public int compactStep(int batchSize) throws IOException {
+        // Not the monitor of start/stop, which stop holds while waiting for this step.
+        synchronized (stepLock) {
+            return step(batchSize);
+        }
+    }
+
+    private int step(int batchSize) throws IOException {
+        List<byte[]> keys = new ArrayList<>();
+        byte[] end = LDBBytes.prefixEnd(PREFIX);
+        try (DBIterator it = db.iterator(new ReadOptions().fillCache(false))) {
+            it.seek(position != null ? position : PREFIX);
+            int n = 0;
+            byte[] last = null;
+            position = null;
+            while (it.hasNext()) {
+                byte[] operandKey = it.peekNext().getKey();
+                if (LDBBytes.compare(operandKey, end) >= 0) {
+                    break;
+                }
+                byte[] key = LDBBytes.unescape(operandKey, PREFIX.length);
+                if (last == null || !Arrays.equals(key, last)) {
+                    if (n >= batchSize) {
+                        position = operandKey;
+                        break;
+                    }
+                    keys.add(key);
+                    last = key;
+                }
+                it.next();
+                n++;
+            }
+        }
+        if (position == null) {
+            passes.incrementAndGet();
+        }
+        int rs = 0;
+        for (byte[] key : keys) {
+            rs += fold(key);
+        }
+        return rs;
+    }
+
+    /**
+     * Compact all pending operands now.
+     */
+    public long compactAll() throws IOException {
+        synchronized (stepLock) {
+            // From the first operand, or those before a left over position would wait for the next pass.
+            position = null;
+            long rs = 0;
+            long pass = passes.get();
+            while (passes.get() == pass) {
+                rs += step(batchSize);
+            }
+            return rs;
+        }
+    }
+
+    private int fold(byte[] key) throws IOException {
+        if (operatorFor(key) == null) {
+            // Operands of a prefix no longer registered stay until it is again.
+            return 0;
+        }
+        Lock lock = keyLocks.getLock(key);
+        lock.lock();
+        try {
+            Folded f = read(key, null, System.currentTimeMillis());
+            if (f.operandKeys.isEmpty()) {
+                return 0;
+            }
+            try (WriteBatch batch = db.createWriteBatch()) {
+                for (byte[] operandKey : f.operandKeys) {
+                    batch.delete(operandKey);
+                }
+                if (f.value != null) {
+                    batch.put(key, f.value);
+                } else {
+                    batch.delete(key);
+                }
+                // Also keeps secondary indexes in step and invalidates the read cache.
+                indexer.write(batch, Collections.singletonList(key), Collections.singletonList(f.value),
+                        Collections.singletonList(f.raw), writeOptions);
+            }
+            folded.addAndGet(f.operandKeys.size());
+            return f.operandKeys.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getMerged() {
+        return merged.get();
+    }
+
+    public long getFolded() {
+        return folded.get();
+    }
+
+    public long getPasses() {
+        return passes.get();
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright 2026 nghiatc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ntc.leveldb;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Per-operation counters, bytes in/out, errors and latency histograms of a
+ * connection, plus named gauges (cache stats, LevelDB properties, ...).
+ * Disabled by default; while disabled start() returns 0 and record() returns
+ * immediately, so instrumented calls pay one volatile read.
+ *
+ * @author nghiatc
+ * @since Oct 18, 2026
+ */
+public class LDBMetrics {
+
+    public enum Op {
+        PUT, PUT_BATCH, GET, GET_LIST, DELETE, DELETE_LIST, DELETE_BATCH, INC, UPDATE, MERGE, SCAN
+    }
+
+    private volatile boolean enabled;
+    private final OpStats[] stats = new OpStats[Op.values().length];
+    private final Map<String, Supplier<?>> gauges = new ConcurrentHashMap<>();
+
+    public LDBMetrics() {
+        for (Op op : Op.values()) {
+            stats[op.ordinal()] = new OpStats();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Start time to pass to record(), 0 when metrics are disabled.
+     */
+    public long start() {
+        return enabled ? System.nanoTime() : 0L;
+    }
+
+    public void record(Op op, long start, long bytesIn, long bytesOut) {
+        if (start == 0L) {
+            return;
+        }
+        OpStats s = stats[op.ordinal()];
+        s.count.increment();
+        if (bytesIn > 0) {
+            s.bytesIn.add(bytesIn);
+        }
+        if (bytesOut > 0) {
+            s.bytesOut.add(bytesOut);
+        }
+        s.latency.record(System.nanoTime() - start);
+    }
+
+    public void error(Op op) {
+        if (enabled) {
+            stats[op.ordinal()].errors.increment();
+        }
+    }
+
+    public long getCount(Op op) {
+        return stats[op.ordinal()].count.sum();
+    }
+
+    public long getErrors(Op op) {
+        return stats[op.ordinal()].errors.sum();
+    }
+
+    public long getBytesIn(Op op) {
+        return stats[op.ordinal()].bytesIn.sum();
+    }
+
+    public long getBytesOut(Op op) {
+        return stats[op.ordinal()].bytesOut.sum();
+    }
+
+    /**
+     * Latency histogram in nanoseconds.
+     */
+    public LDBHistogram getLatency(Op op) {
+        return stats[op.ordinal()].latency;
+    }
+
+    public void gauge(String name, Supplier<?> supplier) {
+        gauges.put(name, supplier);
+    }
+
+    public void removeGauge(String name) {
+        gauges.remove(name);
+    }
+
+    public Object getGauge(String name) {
+        Supplier<?> s = gauges.get(name);
+        return s != null ? s.get() : null;
+    }
+
+    public void reset() {
+        for (OpStats s : stats) {
+            s.count.reset();
+            s.errors.reset();
+            s.bytesIn.reset();
+            s.bytesOut.reset();
+            s.latency.reset();
+        }
+    }
+
+    /**
+     * Flat view of all metrics, keyed like "get.count" or "put.p99Micros",
+     * followed by gauges under their own names.
+     */
+    public Map<String, Object> snapshot() {
+        Map<String, Object> rs = new LinkedHashMap<>();
+        for (Op op : Op.values()) {
+            OpStats s = stats[op.ordinal()];
+            String p = op.name().toLowerCase();
+            rs.put(p + ".count", s.count.sum());
+            rs.put(p + ".errors", s.errors.sum());
+            rs.put(p + ".bytesIn", s.bytesIn.sum());
+            rs.put(p + ".bytesOut", s.bytesOut.sum());
+            rs.put(p + ".p50Micros", micros(s.latency.getPercentile(50)));
+            rs.put(p + ".p99Micros", micros(s.latency.getPercentile(99)));
+            rs.put(p + ".p999Micros", micros(s.latency.getPercentile(99.9)));
+            rs.put(p + ".maxMicros", micros(s.latency.getMax()));
+        }
+        for (Map.Entry<String, Supplier<?>> e : gauges.entrySet()) {
+            Object v;
+            try {
+                v = e.getValue().get();
+            } catch (Exception ex) {
+                v = null;
+            }
+            rs.put(e.getKey(), v);
+        }
+        return rs;
+    }
+
+    private static double micros(long nanos) {
+        return nanos / (double) TimeUnit.MICROSECONDS.toNanos(1);
+    }
+
+    private static class OpStats {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder bytesIn = new LongAdder();
+        private final LongAdder bytesOut = new LongAdder();
+        private final LDBHistogram latency = new LDBHistogram();
+    }
+}
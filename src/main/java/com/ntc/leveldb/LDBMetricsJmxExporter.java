@@ -0,0 +1,153 @@
+/*
+ * Copyright 2026 nghiatc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ntc.leveldb;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanOperationInfo;
+import javax.management.MBeanParameterInfo;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Registers an MBean "com.ntc.leveldb:type=LDBMetrics,name=..." whose read-only
+ * attributes are the entries of {@link LDBMetrics#snapshot()}, and an
+ * operation "reset".
+ *
+ * @author nghiatc
+ * @since Oct 18, 2026
+ */
+public class LDBMetricsJmxExporter implements LDBMetricsExporter {
+
+    private static final Logger logger = LoggerFactory.getLogger(LDBMetricsJmxExporter.class);
+
+    private final MBeanServer server;
+    private ObjectName objectName;
+
+    public LDBMetricsJmxExporter() {
+        this(ManagementFactory.getPlatformMBeanServer());
+    }
+
+    public LDBMetricsJmxExporter(MBeanServer server) {
+        this.server = server;
+    }
+
+    public ObjectName getObjectName() {
+        return objectName;
+    }
+
+    @Override
+    public synchronized void start(String name, LDBMetrics metrics) {
+        try {
+            objectName = new ObjectName("com.ntc.leveldb:type=LDBMetrics,name=" + ObjectName.quote(name));
+            if (server.isRegistered(objectName)) {
+                server.unregisterMBean(objectName);
+            }
+            server.registerMBean(new MetricsMBean(metrics), objectName);
+        } catch (Exception ex) {
+            logger.error("start: ", ex);
+        }
+    }
+
+    @Override
+    public synchronized void stop() {
+        try {
+            if (objectName != null && server.isRegistered(objectName)) {
+                server.unregisterMBean(objectName);
+            }
+        } catch (Exception ex) {
+            logger.error("stop: ", ex);
+        }
+    }
+
+    private static class MetricsMBean implements DynamicMBean {
+        private final LDBMetrics metrics;
+
+        MetricsMBean(LDBMetrics metrics) {
+            this.metrics = metrics;
+        }
+
+        @Override
+        public Object getAttribute(String attribute) throws AttributeNotFoundException {
+            Map<String, Object> snapshot = metrics.snapshot();
+            if (!snapshot.containsKey(attribute)) {
+                throw new AttributeNotFoundException(attribute);
+            }
+            return toOpenValue(snapshot.get(attribute));
+        }
+
+        @Override
+        public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+            throw new AttributeNotFoundException("Read-only attribute: " + attribute.getName());
+        }
+
+        @Override
+        public AttributeList getAttributes(String[] attributes) {
+            Map<String, Object> snapshot = metrics.snapshot();
+            AttributeList rs = new AttributeList();
+            for (String a : attributes) {
+                if (snapshot.containsKey(a)) {
+                    rs.add(new Attribute(a, toOpenValue(snapshot.get(a))));
+                }
+            }
+            return rs;
+        }
+
+        @Override
+        public AttributeList setAttributes(AttributeList attributes) {
+            return new AttributeList();
+        }
+
+        @Override
+        public Object invoke(String actionName, Object[] params, String[] signature) {
+            if ("reset".equals(actionName)) {
+                metrics.reset();
+            }
+            return null;
+        }
+
+        @Override
+        public MBeanInfo getMBeanInfo() {
+            List<MBeanAttributeInfo> attrs = new ArrayList<>();
+            for (Map.Entry<String, Object> e : metrics.snapshot().entrySet()) {
+                Object v = toOpenValue(e.getValue());
+                String type = v instanceof Number ? v.getClass().getName() : String.class.getName();
+                attrs.add(new MBeanAttributeInfo(e.getKey(), type, e.getKey(), true, false, false));
+            }
+            MBeanOperationInfo reset = new MBeanOperationInfo("reset", "Reset counters and histograms",
+                    new MBeanParameterInfo[0], "void", MBeanOperationInfo.ACTION);
+            return new MBeanInfo(LDBMetrics.class.getName(), "ntc-jleveldb connection metrics",
+                    attrs.toArray(new MBeanAttributeInfo[0]), null, new MBeanOperationInfo[] {reset}, null);
+        }
+
+        private static Object toOpenValue(Object v) {
+            if (v == null || v instanceof Number) {
+                return v;
+            }
+            return String.valueOf(v);
+        }
+    }
+}
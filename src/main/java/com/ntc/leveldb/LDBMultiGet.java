@@ -0,0 +1,227 @@
+/*
+ * Copyright 2026 nghiatc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ntc.leveldb;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.iq80.leveldb.DB;
+import org.iq80.leveldb.DBException;
+import org.iq80.leveldb.ReadOptions;
+import org.iq80.leveldb.Snapshot;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Multi-key read backing getList/getListByte. Keys are read in sorted order
+ * to exploit block locality, all from one snapshot so the result is
+ * consistent, and optionally split in contiguous shards across an executor.
+ *
+ * @author nghiatc
+ * @since Oct 18, 2026
+ */
+public class LDBMultiGet {
+
+    private static final Logger logger = LoggerFactory.getLogger(LDBMultiGet.class);
+
+    public static final int DEFAULT_SHARD_SIZE = 256;
+
+    private final DB db;
+    private volatile ExecutorService executor;
+    private volatile int shardSize = DEFAULT_SHARD_SIZE;
+
+    public LDBMultiGet(DB db) {
+        this.db = db;
+    }
+
+    public ExecutorService getExecutor() {
+        return executor;
+    }
+
+    public int getShardSize() {
+        return shardSize;
+    }
+
+    /**
+     * Read batches larger than shardSize in parallel on executor.
+     * A null executor reads on the caller thread.
+     */
+    public void setExecutor(ExecutorService executor, int shardSize) {
+        if (shardSize <= 0) {
+            throw new IllegalArgumentException("shardSize must be positive: " + shardSize);
+        }
+        this.executor = executor;
+        this.shardSize = shardSize;
+    }
+
+    /**
+     * Values aligned with keys, null for missing keys.
+     */
+    public byte[][] get(byte[][] keys) {
+        return get(keys, null);
+    }
+
+    /**
+     * Values aligned with keys, null for missing keys. When ro carries a
+     * snapshot it is used as is, otherwise a snapshot is taken for the call.
+     */
+    public byte[][] get(byte[][] keys, ReadOptions ro) {
+        int n = keys.length;
+        byte[][] values = new byte[n][];
+        if (n == 0) {
+            return values;
+        }
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> LDBBytes.compare(keys[a], keys[b]));
+
+        Snapshot snapshot = null;
+        ReadOptions readOpts = ro;
+        if (readOpts == null || readOpts.snapshot() == null) {
+            snapshot = db.getSnapshot();
+            readOpts = new ReadOptions().snapshot(snapshot);
+            if (ro != null) {
+                readOpts.fillCache(ro.fillCache()).verifyChecksums(ro.verifyChecksums());
+            }
+        }
+        try {
+            ExecutorService ex = executor;
+            int shard = shardSize;
+            if (ex == null || n <= shard) {
+                read(keys, order, 0, n, values, readOpts);
+            } else {
+                List<Shard> shards = new ArrayList<>();
+                try {
+                    for (int start = shard; start < n; start += shard) {
+                        Shard s = new Shard(keys, order, start, Math.min(start + shard, n), values, readOpts);
+                        shards.add(s);
+                        s.future = ex.submit(s);
+                    }
+                    // The caller reads the first shard itself instead of idling.
+                    read(keys, order, 0, shard, values, readOpts);
+                    for (Shard s : shards) {
+                        await(s.future);
+                    }
+                } finally {
+                    // On failure shards may still be queued or reading; the snapshot is closed only after them.
+                    for (Shard s : shards) {
+                        s.settle();
+                    }
+                }
+            }
+        } finally {
+            if (snapshot != null) {
+                try {
+                    snapshot.close();
+                } catch (Exception ex) {
+                    logger.error("get close snapshot: ", ex);
+                }
+            }
+        }
+        return values;
+    }
+
+    private void read(byte[][] keys, Integer[] order, int start, int end, byte[][] values, ReadOptions ro) {
+        for (int i = start; i < end; i++) {
+            int idx = order[i];
+            values[idx] = db.get(keys[idx], ro);
+        }
+    }
+
+    /**
+     * Shard read on the executor. Whoever claims it first owns it: the
+     * worker reads it, or the caller gives it up after a failure.
+     */
+    private final class Shard implements Runnable {
+        private final byte[][] keys;
+        private final Integer[] order;
+        private final int start;
+        private final int end;
+        private final byte[][] values;
+        private final ReadOptions ro;
+        private final AtomicBoolean claimed = new AtomicBoolean();
+        private final CountDownLatch done = new CountDownLatch(1);
+        private volatile Future<?> future;
+
+        Shard(byte[][] keys, Integer[] order, int start, int end, byte[][] values, ReadOptions ro) {
+            this.keys = keys;
+            this.order = order;
+            this.start = start;
+            this.end = end;
+            this.values = values;
+            this.ro = ro;
+        }
+
+        @Override
+        public void run() {
+            if (claimed.compareAndSet(false, true)) {
+                try {
+                    read(keys, order, start, end, values, ro);
+                } finally {
+                    done.countDown();
+                }
+            }
+        }
+
+        /**
+         * Return once the shard can no longer read: give it up if no worker
+         * started it, else wait for the worker to finish, even if interrupted.
+         */
+        void settle() {
+            if (claimed.compareAndSet(false, true)) {
+                Future<?> f = future;
+                if (f != null) {
+                    f.cancel(false);
+                }
+                return;
+            }
+            boolean interrupted = false;
+            while (true) {
+                try {
+                    done.await();
+                    break;
+                } catch (InterruptedException ex) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void await(Future<?> f) {
+        try {
+            f.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new DBException(ex);
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new DBException(cause);
+        }
+    }
+}
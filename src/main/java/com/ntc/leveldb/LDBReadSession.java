@@ -0,0 +1,261 @@
+/*
+ * Copyright 2026 nghiatc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ntc.leveldb;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import org.fusesource.leveldbjni.JniDBFactory;
+import static org.fusesource.leveldbjni.JniDBFactory.asString;
+import static org.fusesource.leveldbjni.JniDBFactory.bytes;
+import org.iq80.leveldb.DB;
+import org.iq80.leveldb.ReadOptions;
+import org.iq80.leveldb.Snapshot;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Reads pinned to one LevelDB snapshot, so several gets, multi-gets and scans
+ * see the DB at the same point in time. TTL entries are judged at the time
+ * the session was opened, and gets fold pending merge operands.
+ * <p>
+ * A snapshot keeps the versions it can see from being dropped by compaction,
+ * so close the session promptly, e.g. with try-with-resources. Sessions left
+ * open past the max age of LDBReadSessions are closed by its reaper; calls
+ * on a closed session throw IllegalStateException. Cursors of the session
+ * are closed with it, since they read through its snapshot; a cursor still
+ * in use then throws IllegalStateException from hasNext.
+ *
+ * @author nghiatc
+ * @since Oct 18, 2026
+ */
+public class LDBReadSession implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(LDBReadSession.class);
+
+    private final LDBReadSessions sessions;
+    private final DB db;
+    private final LDBMultiGet multiGet;
+    private final LDBMerger merger;
+    private final Snapshot snapshot;
+    private final ReadOptions readOptions;
+    private final long openedAt = System.currentTimeMillis();
+    // Reads hold the read lock so close never releases the snapshot under them.
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile boolean closed;
+    private final Set<SessionCursor> cursors = ConcurrentHashMap.newKeySet();
+
+    LDBReadSession(LDBReadSessions sessions, DB db, LDBMultiGet multiGet, LDBMerger merger, boolean fillCache) {
+        this.sessions = sessions;
+        this.db = db;
+        this.multiGet = multiGet;
+        this.merger = merger;
+        this.snapshot = db.getSnapshot();
+        this.readOptions = new ReadOptions().snapshot(snapshot).fillCache(fillCache);
+    }
+
+    public long getOpenedAt() {
+        return openedAt;
+    }
+
+    public long getAgeMillis() {
+        return System.currentTimeMillis() - openedAt;
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    private void begin() {
+        lock.readLock().lock();
+        if (closed) {
+            lock.readLock().unlock();
+            throw new IllegalStateException("Read session is closed.");
+        }
+    }
+
+    private void end() {
+        lock.readLock().unlock();
+    }
+
+    public String get(String key) {
+        if (key == null || key.isEmpty()) {
+            return null;
+        }
+        return asString(getByte(bytes(key)));
+    }
+
+    public byte[] getByte(byte[] key) {
+        if (key == null || key.length == 0) {
+            return null;
+        }
+        begin();
+        try {
+            if (merger.isMergeKey(key)) {
+                return merger.get(key, readOptions, openedAt);
+            }
+            return LDBTtl.unwrap(db.get(key, readOptions), openedAt);
+        } finally {
+            end();
+        }
+    }
+
+    public Map<String, String> getList(List<String> listKey) {
+        Map<String, String> rs = new LinkedHashMap<>();
+        if (listKey != null && !listKey.isEmpty()) {
+            List<String> keys = new ArrayList<>(listKey.size());
+            for (String key : listKey) {
+                if (key != null && !key.isEmpty()) {
+                    keys.add(key);
+                }
+            }
+            byte[][] bks = new byte[keys.size()][];
+            for (int i = 0; i < bks.length; i++) {
+                bks[i] = bytes(keys.get(i));
+            }
+            byte[][] values = multiGet(bks);
+            for (int i = 0; i < bks.length; i++) {
+                rs.put(keys.get(i), asString(values[i]));
+            }
+        }
+        return rs;
+    }
+
+    public Map<byte[], byte[]> getListByte(List<byte[]> listKey) {
+        Map<byte[], byte[]> rs = new LinkedHashMap<>();
+        if (listKey != null && !listKey.isEmpty()) {
+            List<byte[]> keys = new ArrayList<>(listKey.size());
+            for (byte[] key : listKey) {
+                if (key != null && key.length > 0) {
+                    keys.add(key);
+                }
+            }
+            byte[][] bks = keys.toArray(new byte[keys.size()][]);
+            byte[][] values = multiGet(bks);
+            for (int i = 0; i < bks.length; i++) {
+                rs.put(bks[i], values[i]);
+            }
+        }
+        return rs;
+    }
+
+    private byte[][] multiGet(byte[][] keys) {
+        begin();
+        try {
+            byte[][] values = multiGet.get(keys, readOptions);
+            for (int i = 0; i < values.length; i++) {
+                values[i] = merger.isMergeKey(keys[i]) ? merger.get(keys[i], readOptions, openedAt) : LDBTtl.unwrap(values[i], openedAt);
+            }
+            return values;
+        } finally {
+            end();
+        }
+    }
+
+    /**
+     * Cursor over keys in [from, to) as of the snapshot, null bounds are open.
+     * The caller must close the cursor.
+     */
+    public LDBCursor<String, String> scan(String from, String to, int limit, boolean reverse) {
+        return LDBCursor.decode(scanByte(from != null ? bytes(from) : null, to != null ? bytes(to) : null, limit, reverse),
+                JniDBFactory::asString, JniDBFactory::asString);
+    }
+
+    public LDBCursor<String, String> scanPrefix(String prefix, boolean reverse) {
+        return LDBCursor.decode(scanPrefixByte(bytes(prefix), reverse), JniDBFactory::asString, JniDBFactory::asString);
+    }
+
+    public LDBCursor<byte[], byte[]> scanByte(byte[] from, byte[] to, int limit, boolean reverse) {
+        begin();
+        try {
+            LDBCursor<byte[], byte[]> raw = merger.fold(LDBCursor.openRecords(db, readOptions, from, to, 0, reverse),
+                    readOptions, from, to, openedAt);
+            SessionCursor cursor = new SessionCursor(LDBTtl.filter(raw, limit, Function.identity(), Function.identity(), openedAt));
+            cursors.add(cursor);
+            return cursor;
+        } finally {
+            end();
+        }
+    }
+
+    public LDBCursor<byte[], byte[]> scanPrefixByte(byte[] prefix, boolean reverse) {
+        return scanByte(prefix, LDBBytes.prefixEnd(prefix), 0, reverse);
+    }
+
+    /**
+     * Release the snapshot. Waits for reads in progress; safe to call twice.
+     */
+    @Override
+    public void close() {
+        lock.writeLock().lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            // Merge folding reads lazily through the snapshot, close cursors before releasing it.
+            for (SessionCursor cursor : cursors) {
+                cursor.raw.close();
+            }
+            cursors.clear();
+            snapshot.close();
+        } catch (Exception ex) {
+            logger.error("close: ", ex);
+        } finally {
+            lock.writeLock().unlock();
+            sessions.remove(this);
+        }
+    }
+
+    /**
+     * Cursor of the session: each step runs under the read lock, so close
+     * never releases the snapshot while it reads.
+     */
+    private final class SessionCursor extends LDBCursor<byte[], byte[]> {
+        private final LDBCursor<byte[], byte[]> raw;
+
+        SessionCursor(LDBCursor<byte[], byte[]> raw) {
+            super(0, raw.isReverse(), Function.identity(), Function.identity());
+            this.raw = raw;
+        }
+
+        @Override
+        protected Map.Entry<byte[], byte[]> fetchRaw() {
+            begin();
+            try {
+                return raw.hasNext() ? raw.next() : null;
+            } finally {
+                end();
+            }
+        }
+
+        @Override
+        protected void closeRaw() {
+            cursors.remove(this);
+            lock.readLock().lock();
+            try {
+                raw.close();
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright 2026 nghiatc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ntc.leveldb;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.iq80.leveldb.DB;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Open LDBReadSessions of one DB. With a max age set, a reaper closes
+ * sessions older than it, since a leaked snapshot keeps obsolete versions on
+ * disk. Count, age of the oldest session and reaped sessions are exported as
+ * the readSessions.* metrics of the connection.
+ *
+ * @author nghiatc
+ * @since Oct 18, 2026
+ */
+public class LDBReadSessions {
+
+    private static final Logger logger = LoggerFactory.getLogger(LDBReadSessions.class);
+
+    private final DB db;
+    private final LDBMultiGet multiGet;
+    private final LDBMerger merger;
+    private final Set<LDBReadSession> open = ConcurrentHashMap.newKeySet();
+    private final AtomicLong opened = new AtomicLong();
+    private final AtomicLong reaped = new AtomicLong();
+    private volatile long maxAgeMillis;
+    private volatile ScheduledExecutorService reaper;
+
+    public LDBReadSessions(DB db, LDBMultiGet multiGet, LDBMerger merger) {
+        this.db = db;
+        this.multiGet = multiGet;
+        this.merger = merger;
+    }
+
+    /**
+     * New session on a snapshot taken now.
+     *
+     * @param fillCache whether reads of the session fill the LevelDB block cache
+     */
+    public LDBReadSession open(boolean fillCache) {
+        LDBReadSession session = new LDBReadSession(this, db, multiGet, merger, fillCache);
+        open.add(session);
+        opened.incrementAndGet();
+        return session;
+    }
+
+    void remove(LDBReadSession session) {
+        open.remove(session);
+    }
+
+    /**
+     * Close sessions older than maxAgeMillis, checking every tenth of it.
+     * 0 stops the reaper.
+     */
+    public synchronized void setMaxAge(long maxAgeMillis) {
+        this.maxAgeMillis = Math.max(0, maxAgeMillis);
+        ScheduledExecutorService s = reaper;
+        reaper = null;
+        if (s != null) {
+            s.shutdownNow();
+        }
+        if (this.maxAgeMillis > 0) {
+            s = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "ldb-read-session-reaper");
+                t.setDaemon(true);
+                return t;
+            });
+            long interval = Math.max(1, this.maxAgeMillis / 10);
+            s.scheduleWithFixedDelay(this::reap, interval, interval, TimeUnit.MILLISECONDS);
+            reaper = s;
+        }
+    }
+
+    public long getMaxAge() {
+        return maxAgeMillis;
+    }
+
+    /**
+     * Close the sessions past the max age. Returns how many were closed.
+     */
+    public int reap() {
+        long maxAge = maxAgeMillis;
+        int n = 0;
+        if (maxAge > 0) {
+            for (LDBReadSession session : new ArrayList<>(open)) {
+                long age = session.getAgeMillis();
+                if (age > maxAge) {
+                    logger.warn("reap: closing read session open for {}ms", age);
+                    session.close();
+                    reaped.incrementAndGet();
+                    n++;
+                }
+            }
+        }
+        return n;
+    }
+
+    /**
+     * Close every open session and stop the reaper, before the DB is closed.
+     */
+    public void closeAll() {
+        setMaxAge(0);
+        List<LDBReadSession> list = new ArrayList<>(open);
+        for (LDBReadSession session : list) {
+            session.close();
+        }
+    }
+
+    public int getOpenCount() {
+        return open.size();
+    }
+
+    /**
+     * Age in millis of the oldest open session, 0 when none is open.
+     */
+    public long getOldestAgeMillis() {
+        long oldest = 0;
+        for (LDBReadSession session : open) {
+            oldest = Math.max(oldest, session.getAgeMillis());
+        }
+        return oldest;
+    }
+
+    public long getOpened() {
+        return opened.get();
+    }
+
+    public long getReaped() {
+        return reaped.get();
+    }
+}
@@ -0,0 +1,334 @@
+/*
+ * Copyright 2026 nghiatc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ntc.leveldb;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.iq80.leveldb.Options;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Registry for processes that open many databases, e.g. one per tenant.
+ * acquire returns a reference-counted handle; a database whose handles are
+ * all closed stays open until more than maxOpen databases are open, then the
+ * least recently used idle ones are closed and are reopened transparently by
+ * the next acquire. Each database gets cacheSize = totalCacheBytes / maxOpen,
+ * so the LevelDB block caches together stay within totalCacheBytes.
+ * <p>
+ * Databases in use are never closed, so maxOpen is exceeded when more than
+ * maxOpen are acquired at the same time.
+ *
+ * @author nghiatc
+ * @since Oct 18, 2026
+ */
+public class LDBRegistry implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(LDBRegistry.class);
+
+    private final int maxOpen;
+    private final long totalCacheBytes;
+    private volatile Options template = new Options().createIfMissing(true);
+    private volatile LDBMemoryGovernor governor;
+
+    // Access order: eldest is the least recently acquired. Guarded by this.
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private int openCount;
+    private long opens;
+    private long evictions;
+    private boolean closed;
+
+    public LDBRegistry(int maxOpen, long totalCacheBytes) {
+        if (maxOpen <= 0) {
+            throw new IllegalArgumentException("maxOpen must be positive: " + maxOpen);
+        }
+        this.maxOpen = maxOpen;
+        this.totalCacheBytes = totalCacheBytes;
+    }
+
+    /**
+     * Options copied for every database opened; cacheSize is set by the registry.
+     */
+    public void setOptions(Options options) {
+        this.template = options;
+    }
+
+    public long getCacheSizePerDb() {
+        return totalCacheBytes / maxOpen;
+    }
+
+    private Options newOptions() {
+        Options opts = copyOf(template);
+        opts.cacheSize(getCacheSizePerDb());
+        return opts;
+    }
+
+    static Options copyOf(Options t) {
+        return new Options()
+                .createIfMissing(t.createIfMissing())
+                .errorIfExists(t.errorIfExists())
+                .writeBufferSize(t.writeBufferSize())
+                .maxOpenFiles(t.maxOpenFiles())
+                .blockRestartInterval(t.blockRestartInterval())
+                .blockSize(t.blockSize())
+                .compressionType(t.compressionType())
+                .verifyChecksums(t.verifyChecksums())
+                .paranoidChecks(t.paranoidChecks())
+                .comparator(t.comparator())
+                .logger(t.logger())
+                .cacheSize(t.cacheSize());
+    }
+
+    /**
+     * Size caches and write buffers of databases opened from now on with
+     * governor instead of an even split of totalCacheBytes.
+     */
+    public void setMemoryGovernor(LDBMemoryGovernor governor) {
+        this.governor = governor;
+    }
+
+    public LDBMemoryGovernor getMemoryGovernor() {
+        return governor;
+    }
+
+    /**
+     * Handle on the database at pathDB, opening it if needed. Close the
+     * handle when done; the connection must not be used afterwards.
+     */
+    public Handle acquire(String pathDB) throws IOException {
+        if (pathDB == null || pathDB.isEmpty()) {
+            return null;
+        }
+        String key = new File(pathDB).getAbsolutePath();
+        Entry e;
+        synchronized (this) {
+            if (closed) {
+                throw new IllegalStateException("LDBRegistry is closed");
+            }
+            e = entries.get(key);
+            if (e == null) {
+                e = new Entry(key, pathDB);
+                entries.put(key, e);
+            }
+            e.refs++;
+        }
+        try {
+            synchronized (e) {
+                if (e.conn == null) {
+                    LDBMemoryGovernor g = governor;
+                    LDBConnection conn = g != null ? g.open(e.pathDB, template) : new LDBConnection(e.pathDB, newOptions());
+                    boolean late;
+                    synchronized (this) {
+                        // close() may have run while opening, after taking its list of entries.
+                        late = closed;
+                        if (!late) {
+                            e.conn = conn;
+                            e.governor = g;
+                            openCount++;
+                            opens++;
+                        }
+                    }
+                    if (late) {
+                        if (g != null) {
+                            g.close(conn);
+                        } else {
+                            conn.close();
+                        }
+                        throw new IllegalStateException("LDBRegistry is closed");
+                    }
+                }
+            }
+        } catch (IOException | RuntimeException | ExceptionInInitializerError ex) {
+            release(e);
+            throw ex;
+        }
+        evictIdle();
+        return new Handle(e);
+    }
+
+    private void release(Entry e) {
+        synchronized (this) {
+            e.refs--;
+            // Open failed and nobody else is waiting on it: forget the entry.
+            if (e.refs == 0 && e.conn == null) {
+                entries.remove(e.key, e);
+            }
+        }
+        evictIdle();
+    }
+
+    private void evictIdle() {
+        List<Entry> victims = new ArrayList<>();
+        synchronized (this) {
+            int excess = openCount - maxOpen;
+            for (Entry e : entries.values()) {
+                if (excess <= 0) {
+                    break;
+                }
+                if (e.conn != null && e.refs == 0 && !e.evicting) {
+                    e.evicting = true;
+                    victims.add(e);
+                    excess--;
+                }
+            }
+        }
+        for (Entry e : victims) {
+            closeEntry(e, false);
+        }
+    }
+
+    private void closeEntry(Entry e, boolean force) {
+        synchronized (e) {
+            LDBConnection conn;
+            synchronized (this) {
+                e.evicting = false;
+                // Acquired again while waiting for the lock, keep it open.
+                if (e.conn == null || (e.refs > 0 && !force)) {
+                    return;
+                }
+                conn = e.conn;
+                e.conn = null;
+                openCount--;
+                if (!force) {
+                    evictions++;
+                }
+            }
+            if (e.governor != null) {
+                e.governor.close(conn);
+            } else {
+                conn.close();
+            }
+            synchronized (this) {
+                if (e.refs == 0 && e.conn == null) {
+                    entries.remove(e.key, e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Close idle databases whose memory allocation is far from their current
+     * share, so their next acquire reopens them with a new one. Returns the
+     * number closed.
+     */
+    public int rebalance() {
+        List<Entry> victims = new ArrayList<>();
+        synchronized (this) {
+            for (Entry e : entries.values()) {
+                if (e.conn != null && e.refs == 0 && !e.evicting && e.governor != null && e.governor.isOffTarget(e.pathDB)) {
+                    e.evicting = true;
+                    victims.add(e);
+                }
+            }
+        }
+        for (Entry e : victims) {
+            closeEntry(e, false);
+        }
+        return victims.size();
+    }
+
+    public synchronized int getOpenCount() {
+        return openCount;
+    }
+
+    synchronized int getEntryCount() {
+        return entries.size();
+    }
+
+    /**
+     * Databases opened, counting reopens after eviction.
+     */
+    public synchronized long getOpens() {
+        return opens;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    public synchronized boolean isOpen(String pathDB) {
+        Entry e = entries.get(new File(pathDB).getAbsolutePath());
+        return e != null && e.conn != null;
+    }
+
+    /**
+     * Close every database, including those with open handles.
+     */
+    @Override
+    public void close() {
+        List<Entry> all;
+        synchronized (this) {
+            closed = true;
+            all = new ArrayList<>(entries.values());
+        }
+        for (Entry e : all) {
+            try {
+                closeEntry(e, true);
+            } catch (Exception ex) {
+                logger.error("close: ", ex);
+            }
+        }
+    }
+
+    private static class Entry {
+        private final String key;
+        private final String pathDB;
+        private volatile LDBConnection conn;
+        private LDBMemoryGovernor governor;
+        private int refs;
+        private boolean evicting;
+
+        Entry(String key, String pathDB) {
+            this.key = key;
+            this.pathDB = pathDB;
+        }
+    }
+
+    /**
+     * Reference to an open database. Closing it releases the reference, not the database.
+     */
+    public final class Handle implements Closeable {
+        private final Entry entry;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Handle(Entry entry) {
+            this.entry = entry;
+        }
+
+        public LDBConnection getConnection() {
+            if (released.get()) {
+                throw new IllegalStateException("Handle is closed");
+            }
+            return entry.conn;
+        }
+
+        public String getPath() {
+            return entry.pathDB;
+        }
+
+        @Override
+        public void close() {
+            if (released.compareAndSet(false, true)) {
+                release(entry);
+            }
+        }
+    }
+}
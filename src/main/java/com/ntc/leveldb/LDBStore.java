@@ -0,0 +1,95 @@
+/*
+ * Copyright 2026 nghiatc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ntc.leveldb;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Key-value operations shared by {@link LDBConnection},
+ * {@link LDBSingleConnection} and {@link ShardedLDBConnection}, so code can be
+ * written once against any of them.
+ *
+ * @author nghiatc
+ * @since Oct 18, 2026
+ */
+public interface LDBStore {
+
+    void put(String key, String value);
+
+    void putBatch(Map<String, String> mapData) throws IOException;
+
+    void putByte(byte[] key, byte[] value);
+
+    void putBatchByte(Map<byte[], byte[]> mapData) throws IOException;
+
+    /**
+     * Put value, or delete key when value is null, throwing failures that
+     * put and delete only log.
+     */
+    void writeByte(byte[] key, byte[] value);
+
+    /**
+     * Puts of the non-null values and deletes of the keys mapped to null,
+     * throwing failures that the batch methods only log.
+     */
+    void writeBatchByte(Map<byte[], byte[]> mutations) throws IOException;
+
+    String get(String key);
+
+    Map<String, String> getList(List<String> listKey);
+
+    byte[] getByte(byte[] key);
+
+    Map<byte[], byte[]> getListByte(List<byte[]> listKey);
+
+    void delete(String key);
+
+    void deleteList(List<String> listKey);
+
+    void deleteBatch(List<String> listKey) throws IOException;
+
+    void deleteByte(byte[] key);
+
+    void deleteListByte(List<byte[]> listKey);
+
+    void deleteBatchByte(List<byte[]> listKey) throws IOException;
+
+    LDBCursor<String, String> scan(String from, String to, int limit);
+
+    LDBCursor<String, String> scanReverse(String from, String to, int limit);
+
+    LDBCursor<String, String> scanPrefix(String prefix);
+
+    LDBCursor<String, String> scanPrefixReverse(String prefix);
+
+    LDBCursor<byte[], byte[]> scanByte(byte[] from, byte[] to, int limit);
+
+    LDBCursor<byte[], byte[]> scanReverseByte(byte[] from, byte[] to, int limit);
+
+    LDBCursor<byte[], byte[]> scanPrefixByte(byte[] prefix);
+
+    LDBCursor<byte[], byte[]> scanPrefixReverseByte(byte[] prefix);
+
+    int incInt(String key, int value);
+
+    long incLong(String key, long value);
+
+    long getCounter(String key);
+
+    void close();
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2026 nghiatc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ntc.leveldb;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Fixed set of locks selected by key hash, so read-modify-write operations on
+ * unrelated keys do not serialize behind one monitor.
+ *
+ * @author nghiatc
+ * @since Oct 18, 2026
+ */
+public class LDBStripedLock {
+
+    public static final int DEFAULT_STRIPES = 1024;
+
+    private final Lock[] locks;
+    private final int mask;
+
+    public LDBStripedLock() {
+        this(DEFAULT_STRIPES);
+    }
+
+    public LDBStripedLock(int stripes) {
+        if (stripes <= 0) {
+            throw new IllegalArgumentException("Number of stripes must be positive: " + stripes);
+        }
+        int size = 1;
+        while (size < stripes) {
+            size <<= 1;
+        }
+        locks = new Lock[size];
+        for (int i = 0; i < size; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        mask = size - 1;
+    }
+
+    public int size() {
+        return locks.length;
+    }
+
+    private int index(byte[] key) {
+        int h = Arrays.hashCode(key);
+        // Spread high bits so keys differing only in the tail do not collide.
+        h ^= (h >>> 16);
+        return h & mask;
+    }
+
+    public Lock getLock(byte[] key) {
+        return locks[index(key)];
+    }
+
+    /**
+     * Lock the stripes of all keys, each once and in stripe order so two
+     * callers locking overlapping sets cannot deadlock. Release the returned
+     * locks with unlockAll.
+     */
+    public Lock[] lockAll(Collection<byte[]> keys) {
+        int[] idx = new int[keys.size()];
+        int n = 0;
+        for (byte[] key : keys) {
+            idx[n++] = index(key);
+        }
+        Arrays.sort(idx, 0, n);
+        int unique = 0;
+        for (int i = 0; i < n; i++) {
+            if (unique == 0 || idx[unique - 1] != idx[i]) {
+                idx[unique++] = idx[i];
+            }
+        }
+        Lock[] rs = new Lock[unique];
+        for (int i = 0; i < unique; i++) {
+            rs[i] = locks[idx[i]];
+            rs[i].lock();
+        }
+        return rs;
+    }
+
+    /**
+     * Release locks taken by lockAll, null is ignored.
+     */
+    public static void unlockAll(Lock[] locks) {
+        if (locks != null) {
+            for (int i = locks.length - 1; i >= 0; i--) {
+                locks[i].unlock();
+            }
+        }
+    }
+}
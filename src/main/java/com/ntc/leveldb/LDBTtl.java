@@ -0,0 +1,136 @@
+/*
+ * Copyright 2026 nghiatc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ntc.leveldb;
+
+import java.util.AbstractMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Value layout of entries written with a time to live: an 8-byte marker, the
+ * expiry as 8 bytes of epoch millis, then the value. Reads strip the header
+ * and treat entries past their expiry as absent until LDBTtlSweeper deletes
+ * them.
+ * <p>
+ * Plain values are told apart by the marker, which starts with 0xFF and so
+ * never begins a UTF-8 string; binary values must not start with it.
+ *
+ * @author nghiatc
+ * @since Oct 18, 2026
+ */
+public final class LDBTtl {
+
+    static final byte[] MAGIC = {(byte) 0xFF, 0x00, 'L', 'D', 'B', 'T', 'T', 'L'};
+    public static final int HEADER = 16;
+
+    private LDBTtl() {
+    }
+
+    public static byte[] wrap(byte[] value, long expireAt) {
+        byte[] rs = new byte[HEADER + value.length];
+        System.arraycopy(MAGIC, 0, rs, 0, MAGIC.length);
+        for (int i = 0; i < 8; i++) {
+            rs[8 + i] = (byte) (expireAt >>> (56 - 8 * i));
+        }
+        System.arraycopy(value, 0, rs, HEADER, value.length);
+        return rs;
+    }
+
+    public static boolean isTtl(byte[] value) {
+        if (value == null || value.length < HEADER) {
+            return false;
+        }
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (value[i] != MAGIC[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Expiry in epoch millis, or 0 for a value without TTL.
+     */
+    public static long expireAt(byte[] value) {
+        if (!isTtl(value)) {
+            return 0;
+        }
+        long rs = 0;
+        for (int i = 8; i < HEADER; i++) {
+            rs = (rs << 8) | (value[i] & 0xFF);
+        }
+        return rs;
+    }
+
+    public static boolean isExpired(byte[] value, long now) {
+        long expireAt = expireAt(value);
+        return expireAt > 0 && expireAt <= now;
+    }
+
+    /**
+     * The value as stored when it has no TTL, the value without header when
+     * live, null when expired.
+     */
+    public static byte[] unwrap(byte[] value, long now) {
+        return isExpired(value, now) ? null : strip(value);
+    }
+
+    /**
+     * The value without header, whether expired or not.
+     */
+    public static byte[] strip(byte[] value) {
+        if (!isTtl(value)) {
+            return value;
+        }
+        byte[] rs = new byte[value.length - HEADER];
+        System.arraycopy(value, HEADER, rs, 0, rs.length);
+        return rs;
+    }
+
+    /**
+     * View of a raw cursor that skips expired entries, strips headers and
+     * stops after limit live entries. Closing it closes raw.
+     */
+    static <K, V> LDBCursor<K, V> filter(LDBCursor<byte[], byte[]> raw, int limit,
+            Function<byte[], K> keyDecoder, Function<byte[], V> valueDecoder) {
+        return filter(raw, limit, keyDecoder, valueDecoder, System.currentTimeMillis());
+    }
+
+    static <K, V> LDBCursor<K, V> filter(LDBCursor<byte[], byte[]> raw, int limit,
+            Function<byte[], K> keyDecoder, Function<byte[], V> valueDecoder, long now) {
+        return new LDBCursor<K, V>(limit, raw.isReverse(), keyDecoder, valueDecoder) {
+            @Override
+            protected Map.Entry<byte[], byte[]> fetchRaw() {
+                while (raw.hasNext()) {
+                    Map.Entry<byte[], byte[]> e = raw.next();
+                    if (!isTtl(e.getValue())) {
+                        return e;
+                    }
+                    byte[] value = unwrap(e.getValue(), now);
+                    if (value != null) {
+                        return new AbstractMap.SimpleImmutableEntry<>(e.getKey(), value);
+                    }
+                }
+                return null;
+            }
+
+            @Override
+            protected void closeRaw() {
+                raw.close();
+            }
+        };
+    }
+}
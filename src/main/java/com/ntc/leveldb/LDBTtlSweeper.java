@@ -0,0 +1,228 @@
+/*
+ * Copyright 2026 nghiatc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ntc.leveldb;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import org.iq80.leveldb.DB;
+import org.iq80.leveldb.DBIterator;
+import org.iq80.leveldb.ReadOptions;
+import org.iq80.leveldb.WriteBatch;
+import org.iq80.leveldb.WriteOptions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Background purge of expired TTL entries. LevelDB JNI has no compaction
+ * filter, so the sweeper walks the keyspace in steps of at most batchSize
+ * entries, each on a short-lived iterator that does not fill the block cache,
+ * and resumes after the last key seen; at the end it wraps around. Steps are
+ * spaced so no more than maxEntriesPerSec entries are examined per second.
+ * <p>
+ * Expired keys are re-read and deleted, with their index entries, under
+ * their stripe locks. The connection takes the same locks around every put,
+ * so a value written after the check is never deleted.
+ *
+ * @author nghiatc
+ * @since Oct 18, 2026
+ */
+public class LDBTtlSweeper {
+
+    private static final Logger logger = LoggerFactory.getLogger(LDBTtlSweeper.class);
+
+    private final DB db;
+    private final LDBStripedLock keyLocks;
+    private final LDBCache cache;
+    private final LDBIndexer indexer;
+    private final WriteOptions writeOptions;
+    private volatile ScheduledExecutorService scheduler;
+    private volatile boolean running;
+    private volatile int batchSize = 1000;
+    private final Object stepLock = new Object();
+
+    // Next key to examine, null to start from the first key.
+    private byte[] position;
+    private final AtomicLong scanned = new AtomicLong();
+    private final AtomicLong expired = new AtomicLong();
+    private final AtomicLong passes = new AtomicLong();
+
+    /**
+     * @param indexer secondary indexes to remove swept records from, may be null
+     */
+    public LDBTtlSweeper(DB db, LDBStripedLock keyLocks, LDBCache cache, LDBIndexer indexer, WriteOptions writeOptions) {
+        this.db = db;
+        this.keyLocks = keyLocks;
+        this.cache = cache;
+        this.indexer = indexer;
+        this.writeOptions = writeOptions;
+    }
+
+    /**
+     * Start sweeping on a daemon thread.
+     *
+     * @param maxEntriesPerSec upper bound on entries examined per second
+     * @param batchSize entries examined per step
+     */
+    public synchronized void start(long maxEntriesPerSec, int batchSize) {
+        if (maxEntriesPerSec <= 0 || batchSize <= 0) {
+            throw new IllegalArgumentException("maxEntriesPerSec and batchSize must be positive.");
+        }
+        stop();
+        this.batchSize = batchSize;
+        ScheduledExecutorService s = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "ldb-ttl-sweeper");
+            t.setDaemon(true);
+            return t;
+        });
+        long intervalMs = Math.max(1, batchSize * 1000L / maxEntriesPerSec);
+        running = true;
+        s.scheduleWithFixedDelay(this::run, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+        scheduler = s;
+    }
+
+    /**
+     * Stop sweeping. Returns once a step in progress has finished, so the DB
+     * can be closed right after.
+     */
+    public synchronized void stop() {
+        ScheduledExecutorService s = scheduler;
+        scheduler = null;
+        if (s != null) {
+            s.shutdown();
+            boolean interrupted = false;
+            while (true) {
+                try {
+                    if (s.awaitTermination(10, TimeUnit.SECONDS)) {
+                        break;
+                    }
+                    logger.warn("stop: waiting for the sweep step in progress");
+                } catch (InterruptedException ex) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        running = false;
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void run() {
+        try {
+            sweepStep(batchSize);
+        } catch (Exception ex) {
+            logger.error("sweep: ", ex);
+        }
+    }
+
+    /**
+     * Examine up to batchSize entries from the current position and delete
+     * those expired. Returns the number deleted.
+     */
+    public int sweepStep(int batchSize) throws IOException {
+        // Not the monitor of start/stop, which stop holds while waiting for this step.
+        synchronized (stepLock) {
+            return step(batchSize);
+        }
+    }
+
+    private int step(int batchSize) throws IOException {
+        long now = System.currentTimeMillis();
+        List<byte[]> candidates = new ArrayList<>();
+        ReadOptions ro = new ReadOptions().fillCache(false);
+        try (DBIterator it = db.iterator(ro)) {
+            if (position != null) {
+                it.seek(position);
+            } else {
+                it.seekToFirst();
+            }
+            int n = 0;
+            byte[] last = null;
+            while (n < batchSize && it.hasNext()) {
+                Map.Entry<byte[], byte[]> e = it.next();
+                byte[] reserved = LDBBytes.reservedPrefix(e.getKey());
+                if (reserved != null) {
+                    // Index entries and merge operands never expire.
+                    it.seek(LDBBytes.prefixEnd(reserved));
+                    continue;
+                }
+                last = e.getKey();
+                n++;
+                if (LDBTtl.isExpired(e.getValue(), now)) {
+                    candidates.add(last);
+                }
+            }
+            scanned.addAndGet(n);
+            if (it.hasNext()) {
+                // Smallest key after last.
+                position = LDBBytes.concat(last, new byte[1]);
+            } else {
+                position = null;
+                passes.incrementAndGet();
+            }
+        }
+        return candidates.isEmpty() ? 0 : delete(candidates, now, ro);
+    }
+
+    private int delete(List<byte[]> candidates, long now, ReadOptions ro) throws IOException {
+        Lock[] locks = keyLocks.lockAll(candidates);
+        try (WriteBatch batch = db.createWriteBatch()) {
+            List<byte[]> deleted = new ArrayList<>(candidates.size());
+            for (byte[] key : candidates) {
+                // Re-check under the lock, the key may have been rewritten since the scan.
+                byte[] value = db.get(key, ro);
+                if (LDBTtl.isExpired(value, now)) {
+                    batch.delete(key);
+                    if (indexer != null) {
+                        indexer.update(batch, key, value, null);
+                    }
+                    deleted.add(key);
+                }
+            }
+            if (!deleted.isEmpty()) {
+                db.write(batch, writeOptions);
+                cache.invalidateAll(deleted);
+                expired.addAndGet(deleted.size());
+            }
+            return deleted.size();
+        } finally {
+            LDBStripedLock.unlockAll(locks);
+        }
+    }
+
+    public long getScanned() {
+        return scanned.get();
+    }
+
+    public long getExpired() {
+        return expired.get();
+    }
+
+    public long getPasses() {
+        return passes.get();
+    }
+}
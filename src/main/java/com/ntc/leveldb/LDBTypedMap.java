@@ -0,0 +1,189 @@
+/*
+ * Copyright 2026 nghiatc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ntc.leveldb;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.*;
+
+/**
+ * Typed view of an {@link LDBStore}. Keys and values go through codecs
+ * instead of hand-written NLSerializer calls. An optional key prefix lets
+ * several typed maps share one database; scans without bounds stay inside
+ * the prefix. Use an order-preserving key codec such as
+ * {@link LDBCodecs#ORDERED_LONG} when range scans must follow numeric order.
+ * Values must encode to at least one byte: the store does not keep empty
+ * values, so put rejects them (e.g. STRING ""). put also rejects keys that
+ * encode to a reserved key (see LDBBytes.isReserved) instead of letting the
+ * store drop them.
+ *
+ * @author nghiatc
+ * @since Oct 18, 2026
+ * @param <K> key type
+ * @param <V> value type
+ */
+public class LDBTypedMap<K, V> {
+
+    private static final byte[] EMPTY = new byte[0];
+
+    private final LDBStore store;
+    private final byte[] prefix;
+    private final LDBCodec<K> keyCodec;
+    private final LDBCodec<V> valueCodec;
+
+    public LDBTypedMap(LDBStore store, LDBCodec<K> keyCodec, LDBCodec<V> valueCodec) {
+        this(store, null, keyCodec, valueCodec);
+    }
+
+    public LDBTypedMap(LDBStore store, byte[] prefix, LDBCodec<K> keyCodec, LDBCodec<V> valueCodec) {
+        this.store = store;
+        this.prefix = prefix != null ? prefix.clone() : EMPTY;
+        this.keyCodec = keyCodec;
+        this.valueCodec = valueCodec;
+    }
+
+    public LDBStore getStore() {
+        return store;
+    }
+
+    public LDBCodec<K> getKeyCodec() {
+        return keyCodec;
+    }
+
+    public LDBCodec<V> getValueCodec() {
+        return valueCodec;
+    }
+
+    /**
+     * Prefix followed by the encoded key, in one exactly sized array.
+     */
+    public byte[] encodeKey(K key) {
+        byte[] rs = new byte[prefix.length + keyCodec.encodedSize(key)];
+        ByteBuffer buf = ByteBuffer.wrap(rs);
+        buf.put(prefix);
+        keyCodec.encode(key, buf);
+        return rs;
+    }
+
+    private byte[] encodeRecordKey(K key) {
+        byte[] rs = encodeKey(key);
+        LDBBytes.checkRecordKey(rs);
+        return rs;
+    }
+
+    private byte[] encodeValue(V value) {
+        byte[] rs = valueCodec.encode(value);
+        if (rs.length == 0) {
+            throw new IllegalArgumentException("Value encodes to zero bytes and would not be stored: " + value);
+        }
+        return rs;
+    }
+
+    public K decodeKey(byte[] raw) {
+        return keyCodec.decode(ByteBuffer.wrap(raw, prefix.length, raw.length - prefix.length));
+    }
+
+    public void put(K key, V value) {
+        if (key != null && value != null) {
+            store.putByte(encodeRecordKey(key), encodeValue(value));
+        }
+    }
+
+    public void putAll(Map<? extends K, ? extends V> mapData) throws IOException {
+        if (mapData != null && !mapData.isEmpty()) {
+            Map<byte[], byte[]> batch = new LinkedHashMap<>();
+            for (Map.Entry<? extends K, ? extends V> e : mapData.entrySet()) {
+                if (e.getKey() != null && e.getValue() != null) {
+                    batch.put(encodeRecordKey(e.getKey()), encodeValue(e.getValue()));
+                }
+            }
+            store.putBatchByte(batch);
+        }
+    }
+
+    public V get(K key) {
+        if (key == null) {
+            return null;
+        }
+        return valueCodec.decode(store.getByte(encodeKey(key)));
+    }
+
+    /**
+     * Values of listKey in the same order; absent keys map to null.
+     */
+    public Map<K, V> getList(List<K> listKey) {
+        Map<K, V> rs = new LinkedHashMap<>();
+        if (listKey != null && !listKey.isEmpty()) {
+            List<K> keys = new ArrayList<>(listKey.size());
+            List<byte[]> raw = new ArrayList<>(listKey.size());
+            for (K key : listKey) {
+                if (key != null) {
+                    keys.add(key);
+                    raw.add(encodeKey(key));
+                }
+            }
+            Map<byte[], byte[]> found = store.getListByte(raw);
+            for (int i = 0; i < keys.size(); i++) {
+                rs.put(keys.get(i), valueCodec.decode(found.get(raw.get(i))));
+            }
+        }
+        return rs;
+    }
+
+    public void delete(K key) {
+        if (key != null) {
+            store.deleteByte(encodeKey(key));
+        }
+    }
+
+    public void deleteAll(Collection<? extends K> keys) throws IOException {
+        if (keys != null && !keys.isEmpty()) {
+            List<byte[]> raw = new ArrayList<>(keys.size());
+            for (K key : keys) {
+                if (key != null) {
+                    raw.add(encodeKey(key));
+                }
+            }
+            store.deleteBatchByte(raw);
+        }
+    }
+
+    /**
+     * Entries with from <= key < to in key order, null bounds meaning the
+     * whole map, at most limit entries (0 for no limit). Close the cursor.
+     */
+    public LDBCursor<K, V> scan(K from, K to, int limit) {
+        return LDBCursor.decode(store.scanByte(lower(from), upper(to), limit), this::decodeKey, valueCodec::decode);
+    }
+
+    public LDBCursor<K, V> scanReverse(K from, K to, int limit) {
+        return LDBCursor.decode(store.scanReverseByte(lower(from), upper(to), limit), this::decodeKey, valueCodec::decode);
+    }
+
+    private byte[] lower(K from) {
+        if (from != null) {
+            return encodeKey(from);
+        }
+        return prefix.length > 0 ? prefix : null;
+    }
+
+    private byte[] upper(K to) {
+        if (to != null) {
+            return encodeKey(to);
+        }
+        return prefix.length > 0 ? LDBBytes.prefixEnd(prefix) : null;
+    }
+}
@@ -0,0 +1,229 @@
+/*
+ * Copyright 2026 nghiatc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ntc.leveldb;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import org.iq80.leveldb.DB;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Adaptive token-bucket limiter for writes. A sampler reads the level-0 file
+ * count and the write latency of the last interval; as level 0 grows from
+ * LevelDB's compaction trigger (4 files) toward its slowdown trigger (8) or
+ * latency exceeds the target, the allowed rate is cut below the observed
+ * throughput, and it recovers step by step once compaction catches up. This
+ * spreads the stall over many writes instead of a multi-second hard stop.
+ * <p>
+ * Disabled by default; acquire then returns at once.
+ *
+ * @author nghiatc
+ * @since Oct 18, 2026
+ */
+public class LDBWriteThrottle {
+
+    private static final Logger logger = LoggerFactory.getLogger(LDBWriteThrottle.class);
+
+    public static final int LEVEL0_COMPACTION_TRIGGER = 4;
+    public static final int LEVEL0_SLOWDOWN_TRIGGER = 8;
+
+    private final DB db;
+    private volatile boolean enabled;
+    private volatile ScheduledExecutorService sampler;
+    private long maxBytesPerSec;
+    private long minBytesPerSec = 1048576;
+    private long latencyTargetNanos;
+
+    // Current limit in bytes per second, 0 for unlimited.
+    private volatile double rate;
+    private double tokens;
+    private long lastRefill = System.nanoTime();
+    private double observed;
+    private volatile int level0Files;
+    private long lastSample = System.nanoTime();
+
+    private final AtomicLong intervalBytes = new AtomicLong();
+    private final AtomicLong intervalWrites = new AtomicLong();
+    private final AtomicLong intervalLatency = new AtomicLong();
+    private final AtomicLong throttledWrites = new AtomicLong();
+    private final AtomicLong throttledNanos = new AtomicLong();
+
+    public LDBWriteThrottle(DB db) {
+        this.db = db;
+    }
+
+    /**
+     * Start throttling, sampling every 100ms.
+     *
+     * @param maxBytesPerSec hard ceiling, 0 for none when LevelDB keeps up
+     * @param latencyTargetMs mean write latency that counts as pressure, 0 to ignore latency
+     */
+    public void enable(long maxBytesPerSec, long latencyTargetMs) {
+        enable(maxBytesPerSec, latencyTargetMs, 100);
+    }
+
+    public synchronized void enable(long maxBytesPerSec, long latencyTargetMs, long sampleIntervalMs) {
+        disable();
+        this.maxBytesPerSec = Math.max(0, maxBytesPerSec);
+        this.latencyTargetNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, latencyTargetMs));
+        this.rate = this.maxBytesPerSec;
+        this.observed = 0;
+        intervalBytes.set(0);
+        intervalWrites.set(0);
+        intervalLatency.set(0);
+        ScheduledExecutorService s = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "ldb-write-throttle");
+            t.setDaemon(true);
+            return t;
+        });
+        long interval = Math.max(1, sampleIntervalMs);
+        s.scheduleWithFixedDelay(this::sample, interval, interval, TimeUnit.MILLISECONDS);
+        sampler = s;
+        enabled = true;
+    }
+
+    public synchronized void disable() {
+        enabled = false;
+        rate = 0;
+        ScheduledExecutorService s = sampler;
+        sampler = null;
+        if (s != null) {
+            s.shutdownNow();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Lowest rate the throttle goes down to, so writes never stop. Default 1MB/s.
+     */
+    public void setMinBytesPerSec(long minBytesPerSec) {
+        this.minBytesPerSec = Math.max(1, minBytesPerSec);
+    }
+
+    /**
+     * Wait until bytes may be written. Returns the start time to pass to
+     * complete, or 0 when disabled.
+     */
+    public long acquire(long bytes) {
+        if (!enabled) {
+            return 0;
+        }
+        double r = rate;
+        if (r > 0) {
+            long waitNanos;
+            synchronized (this) {
+                long now = System.nanoTime();
+                // Burst of 50ms worth of writes; a deficit is paid by waiting.
+                tokens = Math.min(r * 0.05, tokens + (now - lastRefill) * r / 1e9);
+                lastRefill = now;
+                tokens -= bytes;
+                waitNanos = tokens < 0 ? (long) (-tokens / r * 1e9) : 0;
+            }
+            if (waitNanos > 0) {
+                throttledWrites.incrementAndGet();
+                throttledNanos.addAndGet(waitNanos);
+                LockSupport.parkNanos(waitNanos);
+            }
+        }
+        return System.nanoTime();
+    }
+
+    /**
+     * Record a write started with acquire.
+     */
+    public void complete(long start, long bytes) {
+        if (start != 0) {
+            intervalBytes.addAndGet(bytes);
+            intervalWrites.incrementAndGet();
+            intervalLatency.addAndGet(System.nanoTime() - start);
+        }
+    }
+
+    private void sample() {
+        try {
+            long now = System.nanoTime();
+            int files = Integer.parseInt(db.getProperty("leveldb.num-files-at-level0").trim());
+            adjust(files, now - lastSample);
+            lastSample = now;
+        } catch (Exception ex) {
+            logger.error("sample: ", ex);
+        }
+    }
+
+    /**
+     * Recompute the rate from the level-0 file count and the writes recorded
+     * during the last intervalNanos.
+     */
+    synchronized void adjust(int files, long intervalNanos) {
+        level0Files = files;
+        long bytes = intervalBytes.getAndSet(0);
+        long writes = intervalWrites.getAndSet(0);
+        long latency = intervalLatency.getAndSet(0);
+        double current = intervalNanos > 0 ? bytes * 1e9 / intervalNanos : 0;
+        observed = observed == 0 ? current : 0.5 * observed + 0.5 * current;
+
+        double pressure = (files - LEVEL0_COMPACTION_TRIGGER) / (double) (LEVEL0_SLOWDOWN_TRIGGER - LEVEL0_COMPACTION_TRIGGER);
+        pressure = Math.max(0, Math.min(1, pressure));
+        if (latencyTargetNanos > 0 && writes > 0 && latency / writes > latencyTargetNanos) {
+            pressure = Math.max(pressure, 0.5);
+        }
+        double r = rate;
+        if (pressure > 0) {
+            double base = observed > 0 ? observed : minBytesPerSec;
+            if (r > 0) {
+                base = Math.min(r, base);
+            }
+            r = Math.max(minBytesPerSec, base * (1 - 0.5 * pressure));
+        } else if (r > 0) {
+            r = r * 1.1 + minBytesPerSec;
+            if (maxBytesPerSec > 0) {
+                r = Math.min(r, maxBytesPerSec);
+            } else if (r > 2 * observed) {
+                r = 0; // The limit no longer binds, stop throttling.
+            }
+        }
+        if (maxBytesPerSec > 0 && (r == 0 || r > maxBytesPerSec)) {
+            r = maxBytesPerSec;
+        }
+        rate = r;
+    }
+
+    /**
+     * Current limit in bytes per second, 0 when writes are not limited.
+     */
+    public long getRateBytesPerSec() {
+        return (long) rate;
+    }
+
+    public int getLevel0Files() {
+        return level0Files;
+    }
+
+    public long getThrottledWrites() {
+        return throttledWrites.get();
+    }
+
+    public long getThrottledMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(throttledNanos.get());
+    }
+}
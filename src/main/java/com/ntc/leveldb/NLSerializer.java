@@ -15,14 +15,15 @@
  */
 package com.ntc.leveldb;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
-import java.io.DataInputStream;
-import java.io.DataOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
+ * Big-endian encoding of primitives, byte-compatible with DataOutputStream.
+ * The byte[]/offset and ByteBuffer variants write into caller-supplied
+ * memory and allocate nothing.
  *
  * @author nghiatc
  * @since Aug 20, 2015
@@ -31,166 +32,198 @@ public class NLSerializer {
 
     private static final Logger logger = LoggerFactory.getLogger(NLSerializer.class);
 
+    public static final int BOOL_SIZE = 1;
+    public static final int INT_SIZE = 4;
+    public static final int LONG_SIZE = 8;
+    public static final int FLOAT_SIZE = 4;
+    public static final int DOUBLE_SIZE = 8;
+
     public byte[] serializeBool(boolean b) {
-        try {
-            ByteArrayOutputStream bos = new ByteArrayOutputStream();
-            DataOutputStream dos = new DataOutputStream(bos);
-            dos.writeBoolean(b);
-            byte[] bb = bos.toByteArray();
-            dos.close();
-            bos.close();
-            return bb;
-        } catch (Exception ex) {
-            logger.error("NLSerializer.serializeBool " + ex.toString(), ex);
-        }
-        return null;
+        byte[] bb = new byte[BOOL_SIZE];
+        serializeBool(b, bb, 0);
+        return bb;
+    }
+
+    public int serializeBool(boolean b, byte[] buf, int offset) {
+        buf[offset] = (byte) (b ? 1 : 0);
+        return offset + BOOL_SIZE;
+    }
+
+    public void serializeBool(boolean b, ByteBuffer buf) {
+        buf.put((byte) (b ? 1 : 0));
     }
 
     public boolean deserializeBool(byte[] b) {
-        try {
-            ByteArrayInputStream bis = new ByteArrayInputStream(b, 0, b.length);
-            DataInputStream dis = new DataInputStream(bis);
-            boolean rs = dis.readBoolean();
-            dis.close();
-            bis.close();
-            return rs;
-        } catch (Exception ex) {
-            logger.error("NLSerializer.deserializeBool " + ex.toString(), ex);
+        if (!check(b, BOOL_SIZE, "deserializeBool")) {
+            return false;
         }
-        return false;
+        return deserializeBool(b, 0);
+    }
+
+    public boolean deserializeBool(byte[] b, int offset) {
+        return b[offset] != 0;
+    }
+
+    public boolean deserializeBool(ByteBuffer buf) {
+        return buf.get() != 0;
     }
 
     public byte[] serializeInt(int i) {
-        try {
-            ByteArrayOutputStream bos = new ByteArrayOutputStream();
-            DataOutputStream dos = new DataOutputStream(bos);
-            dos.writeInt(i);
-            byte[] bb = bos.toByteArray();
-            dos.close();
-            bos.close();
-            return bb;
-        } catch (Exception ex) {
-            logger.error("NLSerializer.serializeInt " + ex.toString(), ex);
-        }
-        return null;
+        byte[] bb = new byte[INT_SIZE];
+        serializeInt(i, bb, 0);
+        return bb;
+    }
+
+    public int serializeInt(int i, byte[] buf, int offset) {
+        buf[offset] = (byte) (i >>> 24);
+        buf[offset + 1] = (byte) (i >>> 16);
+        buf[offset + 2] = (byte) (i >>> 8);
+        buf[offset + 3] = (byte) i;
+        return offset + INT_SIZE;
+    }
+
+    public void serializeInt(int i, ByteBuffer buf) {
+        buf.put((byte) (i >>> 24));
+        buf.put((byte) (i >>> 16));
+        buf.put((byte) (i >>> 8));
+        buf.put((byte) i);
     }
 
     public int deserializeInt(byte[] b) {
-        try {
-            ByteArrayInputStream bis = new ByteArrayInputStream(b, 0, b.length);
-            DataInputStream dis = new DataInputStream(bis);
-            int rs = dis.readInt();
-            dis.close();
-            bis.close();
-            return rs;
-        } catch (Exception ex) {
-            logger.error("NLSerializer.deserializeInt " + ex.toString(), ex);
+        if (!check(b, INT_SIZE, "deserializeInt")) {
+            return 0;
         }
-        return 0;
+        return deserializeInt(b, 0);
+    }
+
+    public int deserializeInt(byte[] b, int offset) {
+        return ((b[offset] & 0xFF) << 24)
+                | ((b[offset + 1] & 0xFF) << 16)
+                | ((b[offset + 2] & 0xFF) << 8)
+                | (b[offset + 3] & 0xFF);
+    }
+
+    public int deserializeInt(ByteBuffer buf) {
+        return ((buf.get() & 0xFF) << 24)
+                | ((buf.get() & 0xFF) << 16)
+                | ((buf.get() & 0xFF) << 8)
+                | (buf.get() & 0xFF);
     }
 
     public byte[] serializeLong(long l) {
-        try {
-            ByteArrayOutputStream bos = new ByteArrayOutputStream();
-            DataOutputStream dos = new DataOutputStream(bos);
-            dos.writeLong(l);
-            byte[] bb = bos.toByteArray();
-            dos.close();
-            bos.close();
-            return bb;
-        } catch (Exception ex) {
-            logger.error("NLSerializer.serializeLong " + ex.toString(), ex);
-        }
-        return null;
+        byte[] bb = new byte[LONG_SIZE];
+        serializeLong(l, bb, 0);
+        return bb;
+    }
+
+    public int serializeLong(long l, byte[] buf, int offset) {
+        buf[offset] = (byte) (l >>> 56);
+        buf[offset + 1] = (byte) (l >>> 48);
+        buf[offset + 2] = (byte) (l >>> 40);
+        buf[offset + 3] = (byte) (l >>> 32);
+        buf[offset + 4] = (byte) (l >>> 24);
+        buf[offset + 5] = (byte) (l >>> 16);
+        buf[offset + 6] = (byte) (l >>> 8);
+        buf[offset + 7] = (byte) l;
+        return offset + LONG_SIZE;
+    }
+
+    public void serializeLong(long l, ByteBuffer buf) {
+        serializeInt((int) (l >>> 32), buf);
+        serializeInt((int) l, buf);
     }
 
     public long deserializeLong(byte[] b) {
-        try {
-            ByteArrayInputStream bis = new ByteArrayInputStream(b, 0, b.length);
-            DataInputStream dis = new DataInputStream(bis);
-            long rs = dis.readLong();
-            dis.close();
-            bis.close();
-            return rs;
-        } catch (Exception ex) {
-            logger.error("NLSerializer.deserializeLong " + ex.toString(), ex);
+        if (!check(b, LONG_SIZE, "deserializeLong")) {
+            return 0;
         }
-        return 0;
+        return deserializeLong(b, 0);
+    }
+
+    public long deserializeLong(byte[] b, int offset) {
+        return ((long) deserializeInt(b, offset) << 32) | (deserializeInt(b, offset + 4) & 0xFFFFFFFFL);
+    }
+
+    public long deserializeLong(ByteBuffer buf) {
+        long hi = deserializeInt(buf);
+        return (hi << 32) | (deserializeInt(buf) & 0xFFFFFFFFL);
     }
 
     public byte[] serializeFloat(float f) {
-        try {
-            ByteArrayOutputStream bos = new ByteArrayOutputStream();
-            DataOutputStream dos = new DataOutputStream(bos);
-            dos.writeFloat(f);
-            byte[] bb = bos.toByteArray();
-            dos.close();
-            bos.close();
-            return bb;
-        } catch (Exception ex) {
-            logger.error("NLSerializer.serializeFloat " + ex.toString(), ex);
-        }
-        return null;
+        return serializeInt(Float.floatToIntBits(f));
+    }
+
+    public int serializeFloat(float f, byte[] buf, int offset) {
+        return serializeInt(Float.floatToIntBits(f), buf, offset);
+    }
+
+    public void serializeFloat(float f, ByteBuffer buf) {
+        serializeInt(Float.floatToIntBits(f), buf);
     }
 
     public float deserializeFloat(byte[] b) {
-        try {
-            ByteArrayInputStream bis = new ByteArrayInputStream(b, 0, b.length);
-            DataInputStream dis = new DataInputStream(bis);
-            float rs = dis.readFloat();
-            dis.close();
-            bis.close();
-            return rs;
-        } catch (Exception ex) {
-            logger.error("NLSerializer.deserializeFloat " + ex.toString(), ex);
+        if (!check(b, FLOAT_SIZE, "deserializeFloat")) {
+            return 0;
         }
-        return 0;
+        return deserializeFloat(b, 0);
+    }
+
+    public float deserializeFloat(byte[] b, int offset) {
+        return Float.intBitsToFloat(deserializeInt(b, offset));
+    }
+
+    public float deserializeFloat(ByteBuffer buf) {
+        return Float.intBitsToFloat(deserializeInt(buf));
     }
 
     public byte[] serializeDouble(double d) {
-        try {
-            ByteArrayOutputStream bos = new ByteArrayOutputStream();
-            DataOutputStream dos = new DataOutputStream(bos);
-            dos.writeDouble(d);
-            byte[] bb = bos.toByteArray();
-            dos.close();
-            bos.close();
-            return bb;
-        } catch (Exception ex) {
-            logger.error("NLSerializer.serializeDouble " + ex.toString(), ex);
-        }
-        return null;
+        return serializeLong(Double.doubleToLongBits(d));
+    }
+
+    public int serializeDouble(double d, byte[] buf, int offset) {
+        return serializeLong(Double.doubleToLongBits(d), buf, offset);
+    }
+
+    public void serializeDouble(double d, ByteBuffer buf) {
+        serializeLong(Double.doubleToLongBits(d), buf);
     }
 
     public double deserializeDouble(byte[] b) {
-        try {
-            ByteArrayInputStream bis = new ByteArrayInputStream(b, 0, b.length);
-            DataInputStream dis = new DataInputStream(bis);
-            double rs = dis.readDouble();
-            dis.close();
-            bis.close();
-            return rs;
-        } catch (Exception ex) {
-            logger.error("NLSerializer.deserializeDouble " + ex.toString(), ex);
+        if (!check(b, DOUBLE_SIZE, "deserializeDouble")) {
+            return 0;
         }
-        return 0;
+        return deserializeDouble(b, 0);
+    }
+
+    public double deserializeDouble(byte[] b, int offset) {
+        return Double.longBitsToDouble(deserializeLong(b, offset));
+    }
+
+    public double deserializeDouble(ByteBuffer buf) {
+        return Double.longBitsToDouble(deserializeLong(buf));
     }
 
     public byte[] serializeString(String s) {
-        try {
-            return s.getBytes("UTF-8");
-        } catch (Exception ex) {
-            logger.error("NLSerializer.serializeString " + ex.toString(), ex);
+        if (s == null) {
+            logger.error("NLSerializer.serializeString null input");
+            return null;
         }
-        return null;
+        return s.getBytes(StandardCharsets.UTF_8);
     }
 
     public String deserializeString(byte[] s) {
-        try {
-            return new String(s, "UTF-8");
-        } catch (Exception ex) {
-            logger.error("NLSerializer.deserializeString " + ex.toString(), ex);
+        if (s == null) {
+            logger.error("NLSerializer.deserializeString null input");
+            return null;
+        }
+        return new String(s, StandardCharsets.UTF_8);
+    }
+
+    private boolean check(byte[] b, int size, String method) {
+        if (b == null || b.length < size) {
+            logger.error("NLSerializer." + method + " expected " + size + " bytes, got " + (b == null ? "null" : b.length));
+            return false;
         }
-        return null;
+        return true;
     }
 }
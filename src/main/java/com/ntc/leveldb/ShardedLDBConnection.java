@@ -0,0 +1,471 @@
+/*
+ * Copyright 2026 nghiatc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ntc.leveldb;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import org.fusesource.leveldbjni.JniDBFactory;
+import static org.fusesource.leveldbjni.JniDBFactory.bytes;
+import org.iq80.leveldb.DBException;
+import org.iq80.leveldb.Options;
+
+/**
+ * Connection that hash-partitions keys across N LevelDB instances stored in
+ * pathDB/shard-0 .. shard-(N-1), each with its own Options, writer queue and
+ * compaction thread. Batches are split per shard and written in parallel;
+ * scans merge the shards back into key order.
+ * <p>
+ * A batch is atomic within each shard but not across shards. The number of
+ * shards is recorded in pathDB/SHARDS and can not change after creation.
+ *
+ * @author nghiatc
+ * @since Oct 18, 2026
+ */
+public class ShardedLDBConnection implements LDBStore {
+
+    private static final String SHARDS_FILE = "SHARDS";
+
+    private final String dbDirectory;
+    private final LDBConnection[] shards;
+    private final ExecutorService executor;
+
+    public ShardedLDBConnection(String pathDB, int numShards) throws IOException {
+        this(pathDB, numShards, 50L * 1048576); // 50MB cache shared by all shards
+    }
+
+    public ShardedLDBConnection(String pathDB, int numShards, long totalCacheSize) throws IOException {
+        this(pathDB, defaultOptions(numShards, totalCacheSize));
+    }
+
+    public ShardedLDBConnection(String pathDB, Options[] shardOptions) throws IOException {
+        if (pathDB == null || pathDB.isEmpty()) {
+            throw new ExceptionInInitializerError("Path to DB not empty.");
+        }
+        if (shardOptions == null || shardOptions.length == 0) {
+            throw new ExceptionInInitializerError("Number of shards must be positive.");
+        }
+        dbDirectory = pathDB;
+        File dbDir = new File(pathDB);
+        if (!dbDir.exists()) {
+            if (!dbDir.mkdirs()) {
+                throw new ExceptionInInitializerError("Path directory database can not created for: " + pathDB);
+            }
+        }
+        checkShardCount(dbDir, shardOptions.length);
+        shards = new LDBConnection[shardOptions.length];
+        try {
+            for (int i = 0; i < shards.length; i++) {
+                shards[i] = new LDBConnection(new File(dbDir, "shard-" + i).getPath(), shardOptions[i]);
+            }
+        } catch (IOException | RuntimeException ex) {
+            for (LDBConnection shard : shards) {
+                if (shard != null) {
+                    shard.close();
+                }
+            }
+            throw ex;
+        }
+        AtomicInteger seq = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(shards.length, r -> {
+            Thread t = new Thread(r, "ldb-shard-" + seq.getAndIncrement());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    private static Options[] defaultOptions(int numShards, long totalCacheSize) {
+        if (numShards <= 0) {
+            throw new ExceptionInInitializerError("Number of shards must be positive: " + numShards);
+        }
+        Options[] rs = new Options[numShards];
+        for (int i = 0; i < numShards; i++) {
+            rs[i] = new Options().createIfMissing(true);
+            rs[i].cacheSize(totalCacheSize / numShards);
+        }
+        return rs;
+    }
+
+    private static void checkShardCount(File dbDir, int numShards) throws IOException {
+        File f = new File(dbDir, SHARDS_FILE);
+        if (f.exists()) {
+            String s = new String(Files.readAllBytes(f.toPath()), StandardCharsets.UTF_8).trim();
+            if (Integer.parseInt(s) != numShards) {
+                throw new ExceptionInInitializerError("Database " + dbDir + " has " + s + " shards, not " + numShards);
+            }
+        } else {
+            Files.write(f.toPath(), String.valueOf(numShards).getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    public String getDbDirectory() {
+        return dbDirectory;
+    }
+
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    /**
+     * Underlying connections, e.g. to enable caches or metrics per shard.
+     */
+    public List<LDBConnection> getShards() {
+        return Collections.unmodifiableList(Arrays.asList(shards));
+    }
+
+    /**
+     * Shard of a key. The hash is part of the on-disk layout and must never change.
+     */
+    public int shardOf(byte[] key) {
+        int h = Arrays.hashCode(key);
+        h ^= (h >>> 16);
+        h *= 0x85EBCA6B;
+        h ^= (h >>> 13);
+        return (h & 0x7FFFFFFF) % shards.length;
+    }
+
+    private LDBConnection shard(String key) {
+        return shards[shardOf(bytes(key))];
+    }
+
+    private LDBConnection shard(byte[] key) {
+        return shards[shardOf(key)];
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+        for (LDBConnection shard : shards) {
+            shard.close();
+        }
+    }
+
+    private interface ShardTask<T> {
+        void run(LDBConnection shard, T part) throws IOException;
+    }
+
+    /**
+     * Run task on every non-null part in parallel, the last one on the caller thread.
+     */
+    private <T> void parallel(List<T> parts, ShardTask<T> task) throws IOException {
+        List<Future<?>> futures = new ArrayList<>();
+        int last = -1;
+        for (int i = 0; i < parts.size(); i++) {
+            if (parts.get(i) != null) {
+                if (last >= 0) {
+                    final int idx = last;
+                    futures.add(executor.submit(() -> {
+                        task.run(shards[idx], parts.get(idx));
+                        return null;
+                    }));
+                }
+                last = i;
+            }
+        }
+        if (last >= 0) {
+            task.run(shards[last], parts.get(last));
+        }
+        for (Future<?> f : futures) {
+            try {
+                f.get();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new DBException(ex);
+            } catch (ExecutionException ex) {
+                Throwable cause = ex.getCause();
+                if (cause instanceof IOException) {
+                    throw (IOException) cause;
+                }
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                throw new DBException(cause);
+            }
+        }
+    }
+
+    private <T> void parallelUnchecked(List<T> parts, ShardTask<T> task) {
+        try {
+            parallel(parts, task);
+        } catch (IOException ex) {
+            throw new DBException(ex);
+        }
+    }
+
+    private <K, V> List<Map<K, V>> split(Map<K, V> mapData, Function<K, byte[]> keyBytes) {
+        List<Map<K, V>> parts = new ArrayList<>(Collections.nCopies(shards.length, (Map<K, V>) null));
+        for (Map.Entry<K, V> e : mapData.entrySet()) {
+            if (e.getKey() == null) {
+                continue;
+            }
+            int idx = shardOf(keyBytes.apply(e.getKey()));
+            Map<K, V> part = parts.get(idx);
+            if (part == null) {
+                part = new LinkedHashMap<>();
+                parts.set(idx, part);
+            }
+            part.put(e.getKey(), e.getValue());
+        }
+        return parts;
+    }
+
+    private <K> List<List<K>> split(List<K> listKey, Function<K, byte[]> keyBytes) {
+        List<List<K>> parts = new ArrayList<>(Collections.nCopies(shards.length, (List<K>) null));
+        for (K key : listKey) {
+            if (key == null) {
+                continue;
+            }
+            int idx = shardOf(keyBytes.apply(key));
+            List<K> part = parts.get(idx);
+            if (part == null) {
+                part = new ArrayList<>();
+                parts.set(idx, part);
+            }
+            part.add(key);
+        }
+        return parts;
+    }
+
+    @Override
+    public void put(String key, String value) {
+        if (key != null && !key.isEmpty()) {
+            shard(key).put(key, value);
+        }
+    }
+
+    @Override
+    public void putBatch(Map<String, String> mapData) throws IOException {
+        if (mapData != null && !mapData.isEmpty()) {
+            parallel(split(mapData, JniDBFactory::bytes), LDBConnection::putBatch);
+        }
+    }
+
+    @Override
+    public void putByte(byte[] key, byte[] value) {
+        if (key != null && key.length > 0) {
+            shard(key).putByte(key, value);
+        }
+    }
+
+    @Override
+    public void putBatchByte(Map<byte[], byte[]> mapData) throws IOException {
+        if (mapData != null && !mapData.isEmpty()) {
+            parallel(split(mapData, Function.identity()), LDBConnection::putBatchByte);
+        }
+    }
+
+    @Override
+    public void writeByte(byte[] key, byte[] value) {
+        if (key != null && key.length > 0) {
+            shard(key).writeByte(key, value);
+        }
+    }
+
+    /**
+     * One WriteBatch per shard: atomic within a shard, not across shards.
+     */
+    @Override
+    public void writeBatchByte(Map<byte[], byte[]> mutations) throws IOException {
+        if (mutations != null && !mutations.isEmpty()) {
+            parallel(split(mutations, Function.identity()), LDBConnection::writeBatchByte);
+        }
+    }
+
+    @Override
+    public String get(String key) {
+        if (key != null && !key.isEmpty()) {
+            return shard(key).get(key);
+        }
+        return "";
+    }
+
+    @Override
+    public Map<String, String> getList(List<String> listKey) {
+        Map<String, String> rs = new LinkedHashMap<>();
+        if (listKey != null && !listKey.isEmpty()) {
+            List<List<String>> parts = split(listKey, JniDBFactory::bytes);
+            List<Map<String, String>> found = new ArrayList<>(Collections.nCopies(shards.length, (Map<String, String>) null));
+            parallelUnchecked(parts, (shard, part) -> found.set(indexOf(shard), shard.getList(part)));
+            for (String key : listKey) {
+                if (key != null && !key.isEmpty()) {
+                    rs.put(key, found.get(shardOf(bytes(key))).get(key));
+                }
+            }
+        }
+        return rs;
+    }
+
+    @Override
+    public byte[] getByte(byte[] key) {
+        if (key != null && key.length > 0) {
+            return shard(key).getByte(key);
+        }
+        return null;
+    }
+
+    @Override
+    public Map<byte[], byte[]> getListByte(List<byte[]> listKey) {
+        Map<byte[], byte[]> rs = new LinkedHashMap<>();
+        if (listKey != null && !listKey.isEmpty()) {
+            List<List<byte[]>> parts = split(listKey, Function.identity());
+            List<Map<byte[], byte[]>> found = new ArrayList<>(Collections.nCopies(shards.length, (Map<byte[], byte[]>) null));
+            parallelUnchecked(parts, (shard, part) -> found.set(indexOf(shard), shard.getListByte(part)));
+            for (byte[] key : listKey) {
+                if (key != null && key.length > 0) {
+                    // Shard results are keyed by the same array instances.
+                    rs.put(key, found.get(shardOf(key)).get(key));
+                }
+            }
+        }
+        return rs;
+    }
+
+    private int indexOf(LDBConnection shard) {
+        for (int i = 0; i < shards.length; i++) {
+            if (shards[i] == shard) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public void delete(String key) {
+        if (key != null && !key.isEmpty()) {
+            shard(key).delete(key);
+        }
+    }
+
+    @Override
+    public void deleteList(List<String> listKey) {
+        if (listKey != null && !listKey.isEmpty()) {
+            parallelUnchecked(split(listKey, JniDBFactory::bytes), LDBConnection::deleteList);
+        }
+    }
+
+    @Override
+    public void deleteBatch(List<String> listKey) throws IOException {
+        if (listKey != null && !listKey.isEmpty()) {
+            parallel(split(listKey, JniDBFactory::bytes), LDBConnection::deleteBatch);
+        }
+    }
+
+    @Override
+    public void deleteByte(byte[] key) {
+        if (key != null && key.length > 0) {
+            shard(key).deleteByte(key);
+        }
+    }
+
+    @Override
+    public void deleteListByte(List<byte[]> listKey) {
+        if (listKey != null && !listKey.isEmpty()) {
+            parallelUnchecked(split(listKey, Function.identity()), LDBConnection::deleteListByte);
+        }
+    }
+
+    @Override
+    public void deleteBatchByte(List<byte[]> listKey) throws IOException {
+        if (listKey != null && !listKey.isEmpty()) {
+            parallel(split(listKey, Function.identity()), LDBConnection::deleteBatchByte);
+        }
+    }
+
+    private <K, V> LDBCursor<K, V> merge(byte[] from, byte[] to, int limit, boolean reverse,
+            Function<byte[], K> keyDecoder, Function<byte[], V> valueDecoder) {
+        List<LDBCursor<byte[], byte[]>> sources = new ArrayList<>(shards.length);
+        for (LDBConnection shard : shards) {
+            sources.add(shard.scanByte(from, to, limit, reverse, shard.getReadOptions()));
+        }
+        return new LDBMergeCursor<>(sources, limit, reverse, keyDecoder, valueDecoder);
+    }
+
+    @Override
+    public LDBCursor<String, String> scan(String from, String to, int limit) {
+        return merge(from != null ? bytes(from) : null, to != null ? bytes(to) : null, limit, false,
+                JniDBFactory::asString, JniDBFactory::asString);
+    }
+
+    @Override
+    public LDBCursor<String, String> scanReverse(String from, String to, int limit) {
+        return merge(from != null ? bytes(from) : null, to != null ? bytes(to) : null, limit, true,
+                JniDBFactory::asString, JniDBFactory::asString);
+    }
+
+    @Override
+    public LDBCursor<String, String> scanPrefix(String prefix) {
+        byte[] p = bytes(prefix);
+        return merge(p, LDBBytes.prefixEnd(p), 0, false, JniDBFactory::asString, JniDBFactory::asString);
+    }
+
+    @Override
+    public LDBCursor<String, String> scanPrefixReverse(String prefix) {
+        byte[] p = bytes(prefix);
+        return merge(p, LDBBytes.prefixEnd(p), 0, true, JniDBFactory::asString, JniDBFactory::asString);
+    }
+
+    @Override
+    public LDBCursor<byte[], byte[]> scanByte(byte[] from, byte[] to, int limit) {
+        return merge(from, to, limit, false, Function.identity(), Function.identity());
+    }
+
+    @Override
+    public LDBCursor<byte[], byte[]> scanReverseByte(byte[] from, byte[] to, int limit) {
+        return merge(from, to, limit, true, Function.identity(), Function.identity());
+    }
+
+    @Override
+    public LDBCursor<byte[], byte[]> scanPrefixByte(byte[] prefix) {
+        return merge(prefix, LDBBytes.prefixEnd(prefix), 0, false, Function.identity(), Function.identity());
+    }
+
+    @Override
+    public LDBCursor<byte[], byte[]> scanPrefixReverseByte(byte[] prefix) {
+        return merge(prefix, LDBBytes.prefixEnd(prefix), 0, true, Function.identity(), Function.identity());
+    }
+
+    @Override
+    public int incInt(String key, int value) {
+        if (key == null || key.isEmpty()) {
+            return 0;
+        }
+        return shard(key).incInt(key, value);
+    }
+
+    @Override
+    public long incLong(String key, long value) {
+        if (key == null || key.isEmpty()) {
+            return 0L;
+        }
+        return shard(key).incLong(key, value);
+    }
+
+    @Override
+    public long getCounter(String key) {
+        if (key == null || key.isEmpty()) {
+            return 0L;
+        }
+        return shard(key).getCounter(key);
+    }
+}
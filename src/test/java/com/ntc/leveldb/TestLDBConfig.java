@@ -0,0 +1,132 @@
+/*
+ * Copyright 2026 nghiatc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.ntc.leveldb;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import org.iq80.leveldb.CompressionType;
+import org.iq80.leveldb.Options;
+import org.junit.*;
+
+/**
+ *
+ * @author nghiatc
+ * @since Oct 18, 2026
+ */
+public class TestLDBConfig {
+    private static String dbPath = "./db-config";
+    
+    @AfterClass
+    public static void clean() {
+        try {
+            // Delete folder db. https://www.baeldung.com/java-delete-directory
+            Files.walk(new File(dbPath).toPath()).sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+    
+    @Test
+    public void testParseSize() {
+        Assert.assertEquals("testParseSize plain", 1234, LDBConfig.parseSize("k", "1234"));
+        Assert.assertEquals("testParseSize KB", 4096, LDBConfig.parseSize("k", "4KB"));
+        Assert.assertEquals("testParseSize M", 64L * 1048576, LDBConfig.parseSize("k", "64m"));
+        Assert.assertEquals("testParseSize GB", 2L << 30, LDBConfig.parseSize("k", "2 GB"));
+    }
+    
+    @Test
+    public void testIntRange() {
+        Properties props = new Properties();
+        props.setProperty("leveldb.writeBufferSize", "4GB");
+        props.setProperty("leveldb.blockSize", "8KB");
+        LDBConfig config = new LDBConfig(props, null, Collections.emptyMap());
+        Assert.assertEquals("testIntRange fits", 8192, config.getInt("leveldb.blockSize", 0));
+        try {
+            config.getInt("leveldb.writeBufferSize", 0);
+            Assert.fail("testIntRange overflow");
+        } catch (IllegalArgumentException expected) {
+        }
+        try {
+            LDBConfig.parseSize("k", "9999999999GB");
+            Assert.fail("testIntRange parseSize overflow");
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+    
+    @Test
+    public void testProfilesAndOverrides() throws Exception {
+        Properties props = new Properties();
+        props.setProperty("leveldb.cacheSize", "50MB");
+        props.setProperty("leveldb.blockSize", "8KB");
+        props.setProperty("leveldb.compression", "none");
+        props.setProperty("production.leveldb.cacheSize", "256MB");
+        
+        LDBConfig base = new LDBConfig(props, null, Collections.emptyMap());
+        Assert.assertEquals("testProfiles base", 50L * 1048576, base.toOptions().cacheSize());
+        Assert.assertEquals("testProfiles compression", CompressionType.NONE, base.toOptions().compressionType());
+        Assert.assertEquals("testProfiles default", new Options().maxOpenFiles(), base.toOptions().maxOpenFiles());
+        
+        LDBConfig prod = new LDBConfig(props, "production", Collections.emptyMap());
+        Assert.assertEquals("testProfiles profile", 256L * 1048576, prod.toOptions().cacheSize());
+        Assert.assertEquals("testProfiles inherited", 8192, prod.toOptions().blockSize());
+        
+        LDBConfig env = new LDBConfig(props, "production", Collections.singletonMap("LEVELDB_CACHESIZE", "1GB"));
+        Assert.assertEquals("testProfiles env", 1L << 30, env.toOptions().cacheSize());
+        
+        LDBConfig envProfile = new LDBConfig(props, null, Collections.singletonMap("LEVELDB_PROFILE", "production"));
+        Assert.assertEquals("testProfiles env profile", "production", envProfile.getProfile());
+    }
+    
+    @Test
+    public void testDevelopmentProperties() throws Exception {
+        LDBConfig config = LDBConfig.load(LDBConfig.DEFAULT_PATH, "production");
+        Assert.assertEquals("testDevelopmentProperties cacheSize", 256L * 1048576, config.toOptions().cacheSize());
+        Properties props = new Properties();
+        props.setProperty("leveldb.cache.maxBytes", "1MB");
+        props.setProperty("leveldb.metrics.enabled", "true");
+        props.setProperty("leveldb.sync", "true");
+        LDBConnection conn = new LDBConfig(props, null, Collections.emptyMap()).open(dbPath);
+        try {
+            Assert.assertTrue("testDevelopmentProperties cache", conn.getCache().isEnabled());
+            Assert.assertTrue("testDevelopmentProperties metrics", conn.getMetrics().isEnabled());
+            Assert.assertTrue("testDevelopmentProperties sync", conn.getWriteOptions().sync());
+        } finally {
+            conn.close();
+        }
+    }
+    
+    @Test
+    public void testOpenSingleOnce() throws Exception {
+        Properties props = new Properties();
+        props.setProperty("leveldb.sync", "true");
+        LDBConfig config = new LDBConfig(props, null, Collections.emptyMap());
+        String singlePath = dbPath + "-single";
+        LDBSingleConnection conn = config.openSingle(singlePath);
+        try {
+            Assert.assertTrue("testOpenSingleOnce applied", conn.getWriteOptions().sync());
+            conn.getWriteOptions().sync(false);
+            Assert.assertSame("testOpenSingleOnce shared", conn, config.openSingle(singlePath));
+            Assert.assertFalse("testOpenSingleOnce not re-applied", conn.getWriteOptions().sync());
+        } finally {
+            conn.close();
+            Files.walk(new File(singlePath).toPath()).sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+}
@@ -0,0 +1,1006 @@
+/*
+ * Copyright 2026 nghiatc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ntc.leveldb;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import org.iq80.leveldb.DB;
+import org.iq80.leveldb.ReadOptions;
+import org.iq80.leveldb.WriteOptions;
+import org.junit.*;
+
+/**
+ *
+ * @author nghiatc
+ * @since Oct 18, 2026
+ */
+public class TestLDBConnection {
+    private static NLSerializer nls;
+    private static String dbPath = "./db-conn";
+    private LDBConnection conn;
+    
+    @BeforeClass
+    public static void init() {
+        nls = new NLSerializer();
+    }
+    
+    @AfterClass
+    public static void clean() {
+        try {
+            // Delete folder db. https://www.baeldung.com/java-delete-directory
+            Files.walk(new File(dbPath).toPath()).sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+ 
+    @Before
+    public void beforeEachTest() throws Exception {
+        conn = new LDBConnection(dbPath);
+    }
+ 
+    @After
+    public void afterEachTest() {
+        conn.close();
+    }
+    
+    @Test
+    public void testCounterWriteBehind() throws Exception {
+        String key = "wb-counter";
+        conn.enableCounterWriteBehind(60000, 1000000);
+        for (int i=0; i<100; i++) {
+            conn.incLong(key, 1);
+        }
+        Assert.assertEquals("testCounterWriteBehind pending", 100L, conn.getCounter(key));
+        Assert.assertEquals("testCounterWriteBehind inc0", 100L, conn.incLong(key, 0));
+        Assert.assertEquals("testCounterWriteBehind not flushed", null, conn.getByte(nls.serializeString(key)));
+        
+        conn.flushCounters();
+        Assert.assertEquals("testCounterWriteBehind flushed", 100L, nls.deserializeLong(conn.getByte(nls.serializeString(key))));
+        Assert.assertEquals("testCounterWriteBehind evicted", 0, conn.getMetrics().getGauge("counters.pending"));
+        Assert.assertEquals("testCounterWriteBehind after evict", 101L, conn.incLong(key, 1));
+        Assert.assertEquals("testCounterWriteBehind pending again", 1, conn.getMetrics().getGauge("counters.pending"));
+        conn.incLong(key, -1);
+        
+        conn.incLong(key, 5);
+        conn.close();
+        conn = new LDBConnection(dbPath);
+        Assert.assertEquals("testCounterWriteBehind close", 105L, conn.getCounter(key));
+    }
+    
+    @Test
+    public void testScan() throws Exception {
+        Map<String, String> mapData = new LinkedHashMap<>();
+        for (int i=0; i<10; i++) {
+            mapData.put("scan:" + i, "v" + i);
+        }
+        conn.putBatch(mapData);
+        conn.put("scao", "before");
+        conn.put("scan;", "after");
+        
+        List<String> keys = new ArrayList<>();
+        try (LDBCursor<String, String> c = conn.scan("scan:2", "scan:6", 0)) {
+            while (c.hasNext()) {
+                keys.add(c.next().getKey());
+            }
+        }
+        Assert.assertEquals("testScan range", Arrays.asList("scan:2", "scan:3", "scan:4", "scan:5"), keys);
+        
+        keys.clear();
+        try (LDBCursor<String, String> c = conn.scanReverse("scan:2", "scan:6", 3)) {
+            c.forEachRemaining(e -> keys.add(e.getKey()));
+        }
+        Assert.assertEquals("testScan reverse", Arrays.asList("scan:5", "scan:4", "scan:3"), keys);
+        
+        try (LDBCursor<String, String> c = conn.scanPrefix("scan:")) {
+            Assert.assertEquals("testScan prefix", 10, c.stream().count());
+        }
+        
+        keys.clear();
+        try (LDBCursor<String, String> c = conn.scanPrefixReverse("scan:")) {
+            c.forEachRemaining(e -> keys.add(e.getKey()));
+        }
+        Assert.assertEquals("testScan prefix reverse size", 10, keys.size());
+        Assert.assertEquals("testScan prefix reverse first", "scan:9", keys.get(0));
+        Assert.assertEquals("testScan prefix reverse last", "scan:0", keys.get(9));
+        
+        try (LDBCursor<byte[], byte[]> c = conn.scanReverseByte(nls.serializeString("scan:"), nls.serializeString("scan;"), 1)) {
+            Assert.assertTrue("testScan last", c.hasNext());
+            Assert.assertEquals("testScan last key", "scan:9", nls.deserializeString(c.next().getKey()));
+            Assert.assertFalse("testScan limit", c.hasNext());
+        }
+        
+        try (LDBCursor<byte[], byte[]> c = conn.scanReverseByte(nls.serializeString("scao"), null, 0)) {
+            Assert.assertTrue("testScan open end", c.hasNext());
+            Assert.assertTrue("testScan open end key", nls.deserializeString(c.next().getKey()).compareTo("scao") >= 0);
+        }
+    }
+    
+    @Test
+    public void testGetListParallel() throws Exception {
+        Map<String, String> mapData = new LinkedHashMap<>();
+        for (int i=0; i<1000; i++) {
+            mapData.put("mget" + i, "v" + i);
+        }
+        conn.putBatch(mapData);
+        List<String> listKey = new ArrayList<>(mapData.keySet());
+        Collections.shuffle(listKey, new Random(7));
+        listKey.add("mget-missing");
+        
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            conn.setMultiGetExecutor(executor, 64);
+            Map<String, String> rs = conn.getList(listKey);
+            Assert.assertEquals("testGetListParallel order", listKey, new ArrayList<>(rs.keySet()));
+            for (String k : mapData.keySet()) {
+                Assert.assertEquals("testGetListParallel value", mapData.get(k), rs.get(k));
+            }
+            Assert.assertNull("testGetListParallel missing", rs.get("mget-missing"));
+        } finally {
+            executor.shutdown();
+        }
+        
+        // One worker, no queue: later shards are rejected while the first may still be reading.
+        ThreadPoolExecutor rejecting = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new SynchronousQueue<>());
+        try {
+            conn.setMultiGetExecutor(rejecting, 64);
+            try {
+                conn.getList(listKey);
+                Assert.fail("testGetListParallel rejected");
+            } catch (RejectedExecutionException ex) {
+                // expected
+            }
+            conn.setMultiGetExecutor(null, 64);
+            Assert.assertEquals("testGetListParallel after failure", "v1", conn.getList(listKey).get("mget1"));
+        } finally {
+            rejecting.shutdown();
+        }
+    }
+    
+    @Test
+    public void testGroupCommit() throws Exception {
+        conn.enableGroupCommit(64 * 1024, 2);
+        List<Thread> listTh = new ArrayList<>();
+        List<CompletableFuture<Void>> futures = Collections.synchronizedList(new ArrayList<>());
+        for (int t=0; t<4; t++) {
+            final int idx = t;
+            listTh.add(new Thread(() -> {
+                for (int i=0; i<250; i++) {
+                    futures.add(conn.putQueued("gc:" + idx + ":" + i, "v" + i));
+                }
+            }));
+        }
+        for (Thread t : listTh) {
+            t.start();
+        }
+        for (Thread t : listTh) {
+            t.join();
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(10, TimeUnit.SECONDS);
+        Assert.assertEquals("testGroupCommit put", "v7", conn.get("gc:3:7"));
+        
+        conn.deleteQueued("gc:3:7").get(10, TimeUnit.SECONDS);
+        Assert.assertNull("testGroupCommit delete", conn.get("gc:3:7"));
+        try (LDBCursor<String, String> c = conn.scanPrefix("gc:")) {
+            Assert.assertEquals("testGroupCommit count", 999, c.stream().count());
+        }
+    }
+    
+    @Test
+    public void testGroupCommitBackpressure() throws Exception {
+        // A disk that stalls: every write waits until the latch opens.
+        CountDownLatch disk = new CountDownLatch(1);
+        DB slow = (DB) Proxy.newProxyInstance(DB.class.getClassLoader(), new Class<?>[]{DB.class}, (proxy, method, args) -> {
+            if (method.getName().equals("write")) {
+                disk.await();
+            }
+            try {
+                return method.invoke(conn.getDb(), args);
+            } catch (InvocationTargetException ex) {
+                throw ex.getCause();
+            }
+        });
+        LDBGroupCommit gc = new LDBGroupCommit(slow, null, null, 1, 0, 2);
+        try {
+            Assert.assertEquals("testGroupCommitBackpressure capacity", 2, gc.getMaxQueued());
+            List<CompletableFuture<Void>> futures = Collections.synchronizedList(new ArrayList<>());
+            futures.add(gc.put("bp:0".getBytes(), "v".getBytes()));
+            long deadline = System.currentTimeMillis() + 5000;
+            while (gc.getQueueSize() > 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(5);
+            }
+            futures.add(gc.put("bp:1".getBytes(), "v".getBytes()));
+            futures.add(gc.put("bp:2".getBytes(), "v".getBytes()));
+            Thread writer = new Thread(() -> futures.add(gc.put("bp:3".getBytes(), "v".getBytes())));
+            writer.start();
+            while (writer.getState() != Thread.State.WAITING && System.currentTimeMillis() < deadline) {
+                Thread.sleep(5);
+            }
+            Assert.assertEquals("testGroupCommitBackpressure blocked", Thread.State.WAITING, writer.getState());
+            Assert.assertEquals("testGroupCommitBackpressure queue full", 2, gc.getQueueSize());
+            disk.countDown();
+            writer.join(5000);
+            Assert.assertFalse("testGroupCommitBackpressure released", writer.isAlive());
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(10, TimeUnit.SECONDS);
+            Assert.assertEquals("testGroupCommitBackpressure written", "v", conn.get("bp:3"));
+        } finally {
+            disk.countDown();
+            gc.close();
+        }
+    }
+    
+    @Test
+    public void testReadWriteOptions() throws Exception {
+        WriteOptions sync = new WriteOptions().sync(true);
+        ReadOptions noCache = new ReadOptions().fillCache(false).verifyChecksums(true);
+        conn.put("opt:1", "v1", sync);
+        conn.putByte(nls.serializeString("opt:2"), nls.serializeString("v2"), sync);
+        Assert.assertEquals("testReadWriteOptions get", "v1", conn.get("opt:1", noCache));
+        Assert.assertEquals("testReadWriteOptions getList", "v2", conn.getList(Arrays.asList("opt:2"), noCache).get("opt:2"));
+        try (LDBCursor<String, String> c = conn.scanPrefix("opt:", false, noCache)) {
+            Assert.assertEquals("testReadWriteOptions scan", 2, c.stream().count());
+        }
+        conn.deleteBatch(Arrays.asList("opt:1", "opt:2"), sync);
+        Assert.assertNull("testReadWriteOptions delete", conn.get("opt:1"));
+        
+        conn.setWriteOptions(sync);
+        Assert.assertTrue("testReadWriteOptions default", conn.getWriteOptions().sync());
+    }
+    
+    @Test
+    public void testCache() throws Exception {
+        conn.enableCache(1024 * 1024, true);
+        LDBCache cache = conn.getCache();
+        conn.put("cache:1", "v1");
+        Assert.assertEquals("testCache load", "v1", conn.get("cache:1"));
+        Assert.assertEquals("testCache hit", "v1", conn.get("cache:1"));
+        Assert.assertEquals("testCache hit count", 1, cache.getHitCount());
+        
+        conn.put("cache:1", "v2");
+        Assert.assertEquals("testCache put coherent", "v2", conn.get("cache:1"));
+        
+        Assert.assertNull("testCache absent", conn.get("cache:none"));
+        Assert.assertNull("testCache negative", conn.get("cache:none"));
+        Assert.assertEquals("testCache negative count", 1, cache.getNegativeHitCount());
+        conn.put("cache:none", "now");
+        Assert.assertEquals("testCache negative coherent", "now", conn.get("cache:none"));
+        
+        conn.delete("cache:1");
+        Assert.assertNull("testCache delete coherent", conn.get("cache:1"));
+        
+        byte[] bk = nls.serializeString("cache:counter");
+        conn.incLong("cache:counter", 3);
+        Assert.assertEquals("testCache counter", 3L, nls.deserializeLong(conn.getByte(bk)));
+        conn.incLong("cache:counter", 4);
+        Assert.assertEquals("testCache counter coherent", 7L, nls.deserializeLong(conn.getByte(bk)));
+        
+        conn.getByte(bk)[0] = 42;
+        Assert.assertEquals("testCache copy", 7L, nls.deserializeLong(conn.getByte(bk)));
+        
+        Map<String, String> mapData = new LinkedHashMap<>();
+        for (int i=0; i<2000; i++) {
+            mapData.put("cache:big" + i, "value" + i);
+        }
+        conn.putBatch(mapData);
+        conn.enableCache(16 * 1024, false);
+        for (String k : mapData.keySet()) {
+            conn.get(k);
+        }
+        Assert.assertTrue("testCache bounded", cache.getSizeBytes() <= 16 * 1024);
+        Assert.assertTrue("testCache evictions", cache.getEvictionCount() > 0);
+    }
+    
+    @Test
+    public void testMetrics() throws Exception {
+        LDBMetrics metrics = conn.getMetrics();
+        conn.put("metric:0", "v");
+        Assert.assertEquals("testMetrics disabled", 0, metrics.getCount(LDBMetrics.Op.PUT));
+        
+        conn.enableMetrics();
+        for (int i=0; i<100; i++) {
+            conn.put("metric:" + i, "value" + i);
+            conn.get("metric:" + i);
+        }
+        Assert.assertEquals("testMetrics put count", 100, metrics.getCount(LDBMetrics.Op.PUT));
+        Assert.assertEquals("testMetrics get count", 100, metrics.getCount(LDBMetrics.Op.GET));
+        Assert.assertTrue("testMetrics bytes out", metrics.getBytesOut(LDBMetrics.Op.GET) > 0);
+        LDBHistogram latency = metrics.getLatency(LDBMetrics.Op.PUT);
+        Assert.assertTrue("testMetrics p50", latency.getPercentile(50) > 0);
+        Assert.assertTrue("testMetrics p99", latency.getPercentile(99) >= latency.getPercentile(50));
+        Assert.assertTrue("testMetrics stats", conn.getProperty("leveldb.stats").contains("Compactions"));
+        
+        LDBMetricsJmxExporter jmx = new LDBMetricsJmxExporter();
+        conn.exportMetrics(jmx);
+        Object count = ManagementFactory.getPlatformMBeanServer().getAttribute(jmx.getObjectName(), "put.count");
+        Assert.assertEquals("testMetrics jmx", 100L, count);
+        Assert.assertNotNull("testMetrics jmx sstables", ManagementFactory.getPlatformMBeanServer().getAttribute(jmx.getObjectName(), "leveldb.sstables"));
+        conn.close();
+        Assert.assertFalse("testMetrics jmx stop", ManagementFactory.getPlatformMBeanServer().isRegistered(jmx.getObjectName()));
+        conn = new LDBConnection(dbPath);
+    }
+    
+    @Test
+    public void testByteBuffer() {
+        LDBBufferPool pool = new LDBBufferPool(1 << 20, 4L << 20);
+        byte[] value = new byte[100000];
+        new Random(7).nextBytes(value);
+        ByteBuffer key = ByteBuffer.allocateDirect(8);
+        key.put("buf:blob".getBytes()).flip();
+        ByteBuffer src = pool.acquire(value.length);
+        src.put(value).flip();
+        conn.put(key, src);
+        Assert.assertEquals("testByteBuffer key position", 0, key.position());
+        Assert.assertArrayEquals("testByteBuffer getByte", value, conn.getByte("buf:blob".getBytes()));
+        pool.release(src);
+        
+        ByteBuffer small = ByteBuffer.allocateDirect(10);
+        Assert.assertEquals("testByteBuffer too small", value.length, conn.get(key, small));
+        Assert.assertEquals("testByteBuffer untouched", 0, small.position());
+        
+        ByteBuffer dst = pool.acquire(value.length);
+        Assert.assertEquals("testByteBuffer pooled", 1, pool.getHits());
+        Assert.assertEquals("testByteBuffer get", value.length, conn.get(key, dst));
+        dst.flip();
+        Assert.assertEquals("testByteBuffer get content", ByteBuffer.wrap(value), dst);
+        pool.release(dst);
+        
+        ByteBuffer buf = conn.getBuffer(key, pool);
+        Assert.assertTrue("testByteBuffer direct", buf.isDirect());
+        Assert.assertEquals("testByteBuffer getBuffer", ByteBuffer.wrap(value), buf);
+        pool.release(buf);
+        Assert.assertEquals("testByteBuffer missing", -1, conn.get(ByteBuffer.wrap("buf:none".getBytes()), dst));
+        Assert.assertNull("testByteBuffer missing buffer", conn.getBuffer(ByteBuffer.wrap("buf:none".getBytes()), pool));
+    }
+    
+    @Test
+    public void testBulkLoad() throws Exception {
+        List<Map.Entry<byte[], byte[]>> entries = new ArrayList<>();
+        for (int i=0; i<20000; i++) {
+            entries.add(new AbstractMap.SimpleEntry<>(String.format("bulk:%05d", i).getBytes(), ("v" + i).getBytes()));
+        }
+        Collections.shuffle(entries, new Random(1));
+        // Duplicate key read last must win, even across spilled runs and merge passes.
+        Random rnd = new Random(2);
+        for (int i=0; i<200; i++) {
+            entries.add(rnd.nextInt(entries.size()), new AbstractMap.SimpleEntry<>(String.format("bulk:%05d", rnd.nextInt(20000)).getBytes(), ("dup" + i).getBytes()));
+        }
+        entries.add(new AbstractMap.SimpleEntry<>("bulk:00042".getBytes(), "last".getBytes()));
+        Map<String, String> expected = new HashMap<>();
+        for (Map.Entry<byte[], byte[]> e : entries) {
+            expected.put(new String(e.getKey()), new String(e.getValue()));
+        }
+        conn.enableCache(1 << 20, true);
+        conn.put("bulk:00007", "old");
+        Assert.assertEquals("testBulkLoad before", "old", conn.get("bulk:00007"));
+        
+        LDBBulkLoader.Stats stats = conn.newBulkLoader().setMemoryBudget(64 * 1024).setBatchBytes(16 * 1024)
+                .setMaxFanIn(4).setCompactAtEnd(true).load(entries.iterator());
+        Assert.assertEquals("testBulkLoad read", 20201, stats.getEntriesRead());
+        Assert.assertEquals("testBulkLoad written", 20000, stats.getEntriesWritten());
+        Assert.assertTrue("testBulkLoad spilled", stats.getRunsSpilled() > 4);
+        Assert.assertTrue("testBulkLoad merge passes", stats.getMergePasses() > 1);
+        Assert.assertTrue("testBulkLoad batches", stats.getBatches() > 1);
+        Assert.assertEquals("testBulkLoad dup", "last", conn.get("bulk:00042"));
+        Assert.assertEquals("testBulkLoad overwrite", expected.get("bulk:00007"), conn.get("bulk:00007"));
+        
+        int n = 0;
+        try (LDBCursor<String, String> cursor = conn.scanPrefix("bulk:")) {
+            while (cursor.hasNext()) {
+                Map.Entry<String, String> e = cursor.next();
+                Assert.assertEquals("testBulkLoad value", expected.get(e.getKey()), e.getValue());
+                n++;
+            }
+        }
+        Assert.assertEquals("testBulkLoad count", 20000, n);
+        
+        stats = conn.bulkLoad(entries.subList(0, 10).stream());
+        Assert.assertEquals("testBulkLoad in memory", 0, stats.getRunsSpilled());
+    }
+    
+    @Test
+    public void testDump() throws Exception {
+        Map<String, String> data = new TreeMap<>();
+        for (int i=0; i<5000; i++) {
+            data.put(String.format("dump:%05d", i), "value" + i);
+        }
+        conn.putBatch(data);
+        File dumpDir = Files.createTempDirectory("ldb-dump").toFile();
+        File full = new File(dumpDir, "full.dump");
+        File part = new File(dumpDir, "part.dump");
+        LDBConnection target = new LDBConnection(new File(dumpDir, "db").getPath());
+        try {
+            LDBDump.Stats exported = conn.newDump().setCompress(true).setBlockSize(4096).export(full, "dump:".getBytes());
+            Assert.assertTrue("testDump entries", exported.getEntries() >= 5000);
+            Assert.assertTrue("testDump compressed", exported.getFileBytes() < exported.getBytes());
+            Assert.assertTrue("testDump blocks", exported.getBlocks() > 1);
+            
+            conn.newDump().setBlockSize(4096).export(part, "dump:".getBytes());
+            long size = part.length();
+            try (RandomAccessFile raf = new RandomAccessFile(part, "rw")) {
+                raf.setLength(size / 2);
+            }
+            LDBDump.Stats stats = conn.newDump().setBlockSize(4096).resume(part);
+            Assert.assertEquals("testDump resume entries", exported.getEntries(), stats.getEntries());
+            Assert.assertEquals("testDump resume size", size, part.length());
+            Assert.assertArrayEquals("testDump resume", Files.readAllBytes(part.toPath()),
+                    readDump(conn.newDump().setBlockSize(4096), "dump:".getBytes()));
+            
+            stats = target.importDump(full);
+            Assert.assertEquals("testDump import", exported.getEntries(), stats.getEntries());
+            for (Map.Entry<String, String> e : data.entrySet()) {
+                Assert.assertEquals("testDump value", e.getValue(), target.get(e.getKey()));
+            }
+            Assert.assertNull("testDump from key", target.getByte("bulk:00001".getBytes()));
+            
+            try (RandomAccessFile raf = new RandomAccessFile(full, "rw")) {
+                raf.setLength(full.length() - 1);
+            }
+            try {
+                target.importDump(full);
+                Assert.fail("testDump truncated");
+            } catch (IOException ex) {
+                // expected
+            }
+        } finally {
+            target.close();
+            Files.walk(dumpDir.toPath()).sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+    
+    private static byte[] readDump(LDBDump dump, byte[] fromKey) throws Exception {
+        File f = File.createTempFile("ldb-dump", ".dump");
+        try {
+            dump.export(f, fromKey);
+            return Files.readAllBytes(f.toPath());
+        } finally {
+            f.delete();
+        }
+    }
+    
+    @Test
+    public void testAsync() throws Exception {
+        try (LDBAsyncConnection async = new LDBAsyncConnection(conn, 2, 16)) {
+            Map<String, String> data = new HashMap<>();
+            for (int i=0; i<10; i++) {
+                data.put("async:" + i, "v" + i);
+            }
+            async.putBatchAsync(data).get(5, TimeUnit.SECONDS);
+            async.putAsync("async:x", "x").get(5, TimeUnit.SECONDS);
+            Assert.assertEquals("testAsync get", "x", async.getAsync("async:x").get(5, TimeUnit.SECONDS));
+            Assert.assertEquals("testAsync getList", "v3", async.getListAsync(Arrays.asList("async:3")).get(5, TimeUnit.SECONDS).get("async:3"));
+            List<Map.Entry<String, String>> scan = async.scanAsync("async:", "async:9", 0).get(5, TimeUnit.SECONDS);
+            Assert.assertEquals("testAsync scan", 9, scan.size());
+            Assert.assertEquals("testAsync inc", 3L, (long) async.incLongAsync("async:counter", 3).get(5, TimeUnit.SECONDS));
+            async.deleteAsync("async:x").get(5, TimeUnit.SECONDS);
+            Assert.assertNull("testAsync delete", conn.get("async:x"));
+            
+            byte[] invalid = LDBBytes.concat(LDBBytes.INDEX_PREFIX, "async".getBytes());
+            try {
+                async.putByteAsync(invalid, "v".getBytes()).get(5, TimeUnit.SECONDS);
+                Assert.fail("testAsync invalid key put");
+            } catch (ExecutionException ex) {
+                Assert.assertTrue("testAsync invalid key put cause", ex.getCause() instanceof IllegalArgumentException);
+            }
+            try {
+                async.putBatchByteAsync(Collections.singletonMap(invalid, "v".getBytes())).get(5, TimeUnit.SECONDS);
+                Assert.fail("testAsync invalid key batch");
+            } catch (ExecutionException ex) {
+                Assert.assertTrue("testAsync invalid key batch cause", ex.getCause() instanceof IllegalArgumentException);
+            }
+            Assert.assertNull("testAsync invalid key not written", conn.getDb().get(invalid));
+        }
+        
+        // One thread, one queue slot: a third call while the first blocks is refused, not queued.
+        CountDownLatch release = new CountDownLatch(1);
+        LDBStore blocking = (LDBStore) java.lang.reflect.Proxy.newProxyInstance(LDBStore.class.getClassLoader(),
+                new Class<?>[]{LDBStore.class}, (proxy, method, args) -> {
+                    release.await();
+                    return "v";
+                });
+        LDBAsyncConnection async = new LDBAsyncConnection(blocking, 1, 1);
+        CompletableFuture<String> f1 = async.getAsync("a");
+        Thread.sleep(100);
+        CompletableFuture<String> f2 = async.getAsync("b");
+        CompletableFuture<String> f3 = async.getAsync("c");
+        Assert.assertTrue("testAsync rejected", f3.isCompletedExceptionally());
+        Assert.assertEquals("testAsync rejected count", 1, async.getRejectedCount());
+        release.countDown();
+        Assert.assertEquals("testAsync f1", "v", f1.get(5, TimeUnit.SECONDS));
+        Assert.assertEquals("testAsync f2", "v", f2.get(5, TimeUnit.SECONDS));
+        async.close();
+        Assert.assertTrue("testAsync closed", async.getAsync("d").isCompletedExceptionally());
+    }
+    
+    @Test
+    public void testWriteThrottle() throws Exception {
+        LDBWriteThrottle throttle = conn.getWriteThrottle();
+        // Sampler effectively off; the test drives adjust itself.
+        throttle.enable(0, 0, 3600000);
+        throttle.setMinBytesPerSec(1024);
+        byte[] value = new byte[10000];
+        for (int i=0; i<100; i++) {
+            conn.putByte(("throttle:" + i).getBytes(), value);
+        }
+        throttle.adjust(LDBWriteThrottle.LEVEL0_COMPACTION_TRIGGER, TimeUnit.SECONDS.toNanos(1));
+        Assert.assertEquals("testWriteThrottle calm", 0, throttle.getRateBytesPerSec());
+        
+        for (int i=0; i<100; i++) {
+            conn.putByte(("throttle:" + i).getBytes(), value);
+        }
+        throttle.adjust(LDBWriteThrottle.LEVEL0_SLOWDOWN_TRIGGER, TimeUnit.SECONDS.toNanos(1));
+        long rate = throttle.getRateBytesPerSec();
+        Assert.assertTrue("testWriteThrottle limited " + rate, rate > 0 && rate < 1000000);
+        Assert.assertEquals("testWriteThrottle gauge", rate, conn.getMetrics().getGauge("throttle.rateBytesPerSec"));
+        
+        long start = System.nanoTime();
+        Map<byte[], byte[]> batch = new HashMap<>();
+        batch.put("throttle:a".getBytes(), new byte[(int) rate / 2]);
+        batch.put("throttle:b".getBytes(), new byte[(int) rate / 2]);
+        conn.putBatchByte(batch);
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        Assert.assertTrue("testWriteThrottle waited " + elapsedMs, elapsedMs >= 800);
+        Assert.assertEquals("testWriteThrottle throttled", 1, throttle.getThrottledWrites());
+        
+        for (int i=0; i<20 && throttle.getRateBytesPerSec() > 0; i++) {
+            throttle.adjust(0, TimeUnit.SECONDS.toNanos(1));
+        }
+        Assert.assertEquals("testWriteThrottle recovered", 0, throttle.getRateBytesPerSec());
+        conn.disableWriteThrottle();
+        Assert.assertEquals("testWriteThrottle disabled", 0, throttle.acquire(1 << 30));
+    }
+    
+    @Test
+    public void testTtl() throws Exception {
+        conn.put("ttl:a", "short", 50);
+        conn.put("ttl:b", "long", 3600000);
+        conn.put("ttl:c", "plain");
+        Assert.assertEquals("testTtl live", "short", conn.get("ttl:a"));
+        Assert.assertEquals("testTtl no expiry", -1, conn.getTtl("ttl:c"));
+        Assert.assertEquals("testTtl missing", -2, conn.getTtl("ttl:none"));
+        long ttl = conn.getTtl("ttl:b");
+        Assert.assertTrue("testTtl remaining " + ttl, ttl > 3500000 && ttl <= 3600000);
+        Thread.sleep(100);
+        
+        Assert.assertNull("testTtl expired", conn.get("ttl:a"));
+        Assert.assertNull("testTtl expired byte", conn.getByte(nls.serializeString("ttl:a")));
+        Assert.assertEquals("testTtl expired ttl", -2, conn.getTtl("ttl:a"));
+        Map<String, String> list = conn.getList(Arrays.asList("ttl:a", "ttl:b", "ttl:c"));
+        Assert.assertNull("testTtl getList expired", list.get("ttl:a"));
+        Assert.assertEquals("testTtl getList live", "long", list.get("ttl:b"));
+        List<String> keys = new ArrayList<>();
+        try (LDBCursor<String, String> cursor = conn.scanPrefix("ttl:")) {
+            while (cursor.hasNext()) {
+                Map.Entry<String, String> e = cursor.next();
+                keys.add(e.getKey() + "=" + e.getValue());
+            }
+        }
+        Assert.assertEquals("testTtl scan", Arrays.asList("ttl:b=long", "ttl:c=plain"), keys);
+        try (LDBCursor<String, String> cursor = conn.scan("ttl:", null, 1)) {
+            Assert.assertEquals("testTtl scan limit", "ttl:b", cursor.next().getKey());
+            Assert.assertFalse("testTtl scan limit end", cursor.hasNext());
+        }
+        
+        LDBTtlSweeper sweeper = conn.getTtlSweeper();
+        long passes = sweeper.getPasses();
+        while (sweeper.getPasses() == passes) {
+            sweeper.sweepStep(10);
+        }
+        Assert.assertNull("testTtl swept", conn.getDb().get(nls.serializeString("ttl:a")));
+        Assert.assertTrue("testTtl swept count", sweeper.getExpired() >= 1);
+        Assert.assertTrue("testTtl kept", LDBTtl.isTtl(conn.getDb().get(nls.serializeString("ttl:b"))));
+        
+        conn.enableTtlSweeper(100000, 100);
+        conn.put("ttl:d", "gone", 1);
+        long deadline = System.currentTimeMillis() + 10000;
+        while (conn.getDb().get(nls.serializeString("ttl:d")) != null && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Assert.assertNull("testTtl background", conn.getDb().get(nls.serializeString("ttl:d")));
+        conn.disableTtlSweeper();
+        Assert.assertFalse("testTtl stopped", conn.getTtlSweeper().isRunning());
+        
+        // Stopping while a step runs waits for that step only, not for the stop timeout.
+        long t0 = System.currentTimeMillis();
+        for (int i=0; i<20; i++) {
+            conn.enableTtlSweeper(1000000, 1000);
+            Thread.sleep(2);
+            conn.disableTtlSweeper();
+        }
+        Assert.assertTrue("testTtl stop does not stall", System.currentTimeMillis() - t0 < 5000);
+        
+        // Plain puts and deletes take the key stripe, so neither the sweeper nor compareAndSet can be overtaken.
+        byte[] k = nls.serializeString("ttl:guard");
+        Lock stripe = conn.getKeyLocks().getLock(k);
+        stripe.lock();
+        Thread writer;
+        try {
+            writer = new Thread(() -> conn.putByte(k, nls.serializeString("v")));
+            writer.start();
+            writer.join(200);
+            Assert.assertTrue("testTtl put waits for the stripe", writer.isAlive());
+            Assert.assertNull("testTtl put not written yet", conn.getDb().get(k));
+        } finally {
+            stripe.unlock();
+        }
+        writer.join();
+        Assert.assertArrayEquals("testTtl put written", nls.serializeString("v"), conn.getByte(k));
+        conn.deleteByte(k);
+    }
+    
+    private List<String> indexKeys(LDBCursor<String, String> cursor) {
+        List<String> rs = new ArrayList<>();
+        try (LDBCursor<String, String> c = cursor) {
+            while (c.hasNext()) {
+                rs.add(c.next().getKey());
+            }
+        }
+        return rs;
+    }
+    
+    private int countIndexEntries(String name) {
+        byte[] prefix = LDBBytes.concat(("\u0000idx\u0000" + name).getBytes(), new byte[1]);
+        int n = 0;
+        try (LDBCursor<byte[], byte[]> c = LDBCursor.open(conn.getDb(), null, prefix, LDBBytes.prefixEnd(prefix), 0, false)) {
+            while (c.hasNext()) {
+                c.next();
+                n++;
+            }
+        }
+        return n;
+    }
+    
+    @Test
+    public void testIndex() throws Exception {
+        conn.addIndex("city", v -> v.startsWith("city=") ? v.substring(5) : null);
+        conn.put("user:1", "city=HN");
+        conn.put("user:2", "city=SG");
+        conn.put("user:3", "city=HN");
+        conn.put("user:x", "no city");
+        Assert.assertEquals("testIndex equal", Arrays.asList("user:1", "user:3"), indexKeys(conn.scanIndex("city", "HN")));
+        
+        conn.put("user:1", "city=SG");
+        conn.delete("user:3");
+        Assert.assertEquals("testIndex moved", Arrays.asList(), indexKeys(conn.scanIndex("city", "HN")));
+        Assert.assertEquals("testIndex moved to", Arrays.asList("user:1", "user:2"), indexKeys(conn.scanIndex("city", "SG")));
+        
+        Map<String, String> batch = new LinkedHashMap<>();
+        batch.put("user:4", "city=HCM");
+        batch.put("user:5", "city=HCM");
+        conn.putBatch(batch);
+        conn.deleteBatch(Arrays.asList("user:5"));
+        Assert.assertEquals("testIndex range", Arrays.asList("user:4"), indexKeys(conn.scanIndex("city", "HCM", "HN", 0)));
+        Assert.assertEquals("testIndex range open", Arrays.asList("user:4", "user:1", "user:2"), indexKeys(conn.scanIndex("city", null, null, 0)));
+        
+        conn.putWithOld("user:2", "city=HN", "city=SG");
+        Assert.assertEquals("testIndex supplied old", Arrays.asList("user:1"), indexKeys(conn.scanIndex("city", "SG")));
+        
+        conn.enableCache(1 << 20, true);
+        Assert.assertEquals("testIndex cached", "city=HCM", conn.get("user:4"));
+        conn.put("user:4", "city=HN");
+        Assert.assertEquals("testIndex cached old", Arrays.asList("user:2", "user:4"), indexKeys(conn.scanIndex("city", "HN")));
+        Assert.assertEquals("testIndex entries", 3, countIndexEntries("city"));
+        
+        conn.put("user:6", "city=DN", 1);
+        Thread.sleep(20);
+        Assert.assertEquals("testIndex expired", Arrays.asList(), indexKeys(conn.scanIndex("city", "DN")));
+        long passes = conn.getTtlSweeper().getPasses();
+        while (conn.getTtlSweeper().getPasses() == passes) {
+            conn.getTtlSweeper().sweepStep(100);
+        }
+        Assert.assertEquals("testIndex swept", 3, countIndexEntries("city"));
+        
+        conn.getDb().put(nls.serializeString("user:7"), nls.serializeString("city=HUE"));
+        Assert.assertEquals("testIndex bypassed", Arrays.asList(), indexKeys(conn.scanIndex("city", "HUE")));
+        conn.rebuildIndex("city");
+        Assert.assertEquals("testIndex rebuilt", Arrays.asList("user:7"), indexKeys(conn.scanIndex("city", "HUE")));
+        Assert.assertEquals("testIndex rebuilt entries", 4, countIndexEntries("city"));
+        
+        try (LDBCursor<byte[], byte[]> cursor = conn.scanByte(null, null, 0)) {
+            while (cursor.hasNext()) {
+                Assert.assertFalse("testIndex scan skips reserved", LDBBytes.isReserved(cursor.next().getKey()));
+            }
+        }
+        try (LDBReadSession session = conn.openReadSession();
+                LDBCursor<byte[], byte[]> cursor = session.scanByte(null, null, 0, true)) {
+            while (cursor.hasNext()) {
+                Assert.assertFalse("testIndex session scan skips reserved", LDBBytes.isReserved(cursor.next().getKey()));
+            }
+        }
+        byte[] reserved = LDBBytes.concat(LDBBytes.INDEX_PREFIX, "x".getBytes());
+        conn.putByte(reserved, nls.serializeString("city=HN"));
+        Assert.assertNull("testIndex reserved key rejected", conn.getDb().get(reserved));
+        Assert.assertEquals("testIndex reserved entries", 4, countIndexEntries("city"));
+        
+        conn.dropIndex("city");
+        Assert.assertEquals("testIndex dropped", 0, countIndexEntries("city"));
+        conn.deleteList(Arrays.asList("user:1", "user:2", "user:4", "user:7", "user:x"));
+    }
+    
+    @Test
+    public void testZeroPrefixedKeys() throws Exception {
+        byte[] k42 = nls.serializeLong(42L);
+        byte[][] records = {k42, {0, 'a'}, {0, 'i', 'd', 'x'}, {0, 'z'}};
+        byte[] internal = LDBBytes.concat(LDBBytes.INDEX_PREFIX, "zp\0k".getBytes());
+        conn.getDb().put(internal, new byte[0]);
+        for (byte[] k : records) {
+            conn.putByte(k, nls.serializeString("v"));
+        }
+        Assert.assertArrayEquals("testZeroPrefixedKeys get", nls.serializeString("v"), conn.getByte(k42));
+        
+        List<byte[]> keys = new ArrayList<>();
+        try (LDBCursor<byte[], byte[]> cursor = conn.scanByte(new byte[]{0, 0}, new byte[]{0, (byte) 0xFF}, 0)) {
+            cursor.forEachRemaining(e -> keys.add(e.getKey()));
+        }
+        Assert.assertEquals("testZeroPrefixedKeys scan", records.length, keys.size());
+        for (int i=0; i<records.length; i++) {
+            Assert.assertArrayEquals("testZeroPrefixedKeys scan order", records[i], keys.get(i));
+        }
+        keys.clear();
+        try (LDBCursor<byte[], byte[]> cursor = conn.scanReverseByte(new byte[]{0, 0}, new byte[]{0, (byte) 0xFF}, 0)) {
+            cursor.forEachRemaining(e -> keys.add(e.getKey()));
+        }
+        Assert.assertEquals("testZeroPrefixedKeys reverse", records.length, keys.size());
+        Assert.assertArrayEquals("testZeroPrefixedKeys reverse first", records[records.length - 1], keys.get(0));
+        try (LDBCursor<byte[], byte[]> cursor = conn.scanByte(k42, null, 1)) {
+            Assert.assertArrayEquals("testZeroPrefixedKeys scan from", k42, cursor.next().getKey());
+        }
+        
+        for (byte[] k : records) {
+            conn.deleteByte(k);
+            Assert.assertNull("testZeroPrefixedKeys delete", conn.getByte(k));
+        }
+        conn.deleteByte(internal);
+        Assert.assertNull("testZeroPrefixedKeys delete reserved", conn.getDb().get(internal));
+    }
+    
+    @Test
+    public void testReadSession() throws Exception {
+        conn.put("rs:a", "1");
+        conn.put("rs:b", "1");
+        LDBReadSession session = conn.openReadSession();
+        Map<String, String> batch = new LinkedHashMap<>();
+        batch.put("rs:a", "2");
+        batch.put("rs:b", "2");
+        batch.put("rs:c", "2");
+        conn.putBatch(batch);
+        
+        Assert.assertEquals("testReadSession get", "1", session.get("rs:a"));
+        Assert.assertEquals("testReadSession live", "2", conn.get("rs:a"));
+        Map<String, String> list = session.getList(Arrays.asList("rs:a", "rs:b", "rs:c"));
+        Assert.assertEquals("testReadSession getList b", "1", list.get("rs:b"));
+        Assert.assertNull("testReadSession getList c", list.get("rs:c"));
+        List<String> keys = new ArrayList<>();
+        try (LDBCursor<String, String> cursor = session.scanPrefix("rs:", false)) {
+            while (cursor.hasNext()) {
+                Map.Entry<String, String> e = cursor.next();
+                keys.add(e.getKey() + "=" + e.getValue());
+            }
+        }
+        Assert.assertEquals("testReadSession scan", Arrays.asList("rs:a=1", "rs:b=1"), keys);
+        Assert.assertEquals("testReadSession count", 1, conn.getMetrics().getGauge("readSessions.count"));
+        
+        LDBCursor<String, String> open = session.scanPrefix("rs:", false);
+        Assert.assertEquals("testReadSession open cursor", "rs:a", open.next().getKey());
+        session.close();
+        try {
+            open.hasNext();
+            Assert.fail("testReadSession cursor after close");
+        } catch (IllegalStateException ex) {
+            // expected
+        }
+        open.close();
+        session.close();
+        Assert.assertEquals("testReadSession closed count", 0, conn.getReadSessions().getOpenCount());
+        try {
+            session.get("rs:a");
+            Assert.fail("testReadSession read after close");
+        } catch (IllegalStateException ex) {
+            // expected
+        }
+        
+        conn.setReadSessionMaxAge(50);
+        LDBReadSession leaked = conn.openReadSession();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!leaked.isClosed() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Assert.assertTrue("testReadSession reaped", leaked.isClosed());
+        Assert.assertEquals("testReadSession reaped count", 1, conn.getReadSessions().getReaped());
+        conn.setReadSessionMaxAge(0);
+    }
+    
+    @Test
+    public void testAtomic() throws Exception {
+        conn.enableCache(1 << 20, true);
+        conn.delete("cas:a");
+        Assert.assertNull("testAtomic absent", conn.get("cas:a"));
+        Assert.assertTrue("testAtomic set absent", conn.compareAndSet("cas:a", null, "1"));
+        Assert.assertFalse("testAtomic set absent again", conn.compareAndSet("cas:a", null, "1"));
+        Assert.assertEquals("testAtomic cached", "1", conn.get("cas:a"));
+        Assert.assertTrue("testAtomic swap", conn.compareAndSet("cas:a", "1", "2"));
+        Assert.assertFalse("testAtomic stale", conn.compareAndSet("cas:a", "1", "3"));
+        Assert.assertEquals("testAtomic swapped", "2", conn.get("cas:a"));
+        
+        conn.delete("cas:b");
+        Assert.assertNull("testAtomic putIfAbsent", conn.putIfAbsent("cas:b", "x"));
+        Assert.assertEquals("testAtomic putIfAbsent exists", "x", conn.putIfAbsent("cas:b", "y"));
+        Assert.assertNull("testAtomic update delete", conn.update("cas:b", v -> null));
+        Assert.assertNull("testAtomic deleted", conn.get("cas:b"));
+        
+        Assert.assertFalse("testAtomic null key cas", conn.compareAndSet(null, null, "1"));
+        Assert.assertFalse("testAtomic empty key cas", conn.compareAndSetByte(new byte[0], null, new byte[]{1}));
+        Assert.assertNull("testAtomic null key putIfAbsent", conn.putIfAbsent(null, "x"));
+        Assert.assertNull("testAtomic null value putIfAbsent", conn.putIfAbsent("cas:c", null));
+        Assert.assertNull("testAtomic null key update", conn.update(null, v -> "x"));
+        Assert.assertNull("testAtomic empty key update", conn.update("", v -> "x"));
+        
+        conn.put("cas:stock", "4000");
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t=0; t<threads; t++) {
+            executor.execute(() -> {
+                for (int i=0; i<500; i++) {
+                    conn.update("cas:stock", v -> String.valueOf(Integer.parseInt(v) - 1));
+                    String v;
+                    do {
+                        v = conn.get("cas:n");
+                    } while (!conn.compareAndSet("cas:n", v, String.valueOf(v == null ? 1 : Integer.parseInt(v) + 1)));
+                }
+                done.countDown();
+            });
+        }
+        done.await(60, TimeUnit.SECONDS);
+        executor.shutdown();
+        Assert.assertEquals("testAtomic update", "0", conn.get("cas:stock"));
+        Assert.assertEquals("testAtomic cas loop", "4000", conn.get("cas:n"));
+        conn.deleteList(Arrays.asList("cas:a", "cas:n", "cas:stock"));
+    }
+    
+    @Test
+    public void testMerge() throws Exception {
+        conn.addMergeOperator("sum:", LDBMergeOperator.SUM_LONG);
+        conn.addMergeOperator("max:", LDBMergeOperator.MAX_LONG);
+        conn.addMergeOperator("list:", LDBMergeOperator.LIST_APPEND);
+        conn.addMergeOperator("last:", (key, base, operands) -> operands.get(operands.size() - 1));
+        byte[] sum = nls.serializeString("sum:a");
+        conn.deleteByte(sum);
+        for (int i=1; i<=100; i++) {
+            conn.mergeLong("sum:a", i);
+            conn.mergeLong("max:a", i % 37);
+        }
+        Assert.assertEquals("testMerge sum", 5050L, (long) LDBCodecs.LONG.decode(conn.getByte(sum)));
+        Assert.assertEquals("testMerge max", 36L, (long) LDBCodecs.LONG.decode(conn.getByte(nls.serializeString("max:a"))));
+        conn.merge("list:a", "x");
+        conn.merge("list:a", "y");
+        conn.merge("last:a", "1");
+        conn.merge("last:a", "2");
+        Assert.assertEquals("testMerge custom", "2", conn.get("last:a"));
+        Map<String, String> list = conn.getList(Arrays.asList("last:a", "list:a"));
+        List<byte[]> elements = LDBMergeOperator.decodeList(nls.serializeString(list.get("list:a")));
+        Assert.assertEquals("testMerge list", 2, elements.size());
+        Assert.assertEquals("testMerge list last", "y", nls.deserializeString(elements.get(1)));
+        
+        conn.merge(null, "x");
+        conn.merge("list:a", "");
+        conn.mergeByte(null, LDBCodecs.LONG.encode(1L));
+        List<String> scanned = new ArrayList<>();
+        try (LDBCursor<String, String> cursor = conn.scanPrefixReverse("l")) {
+            while (cursor.hasNext()) {
+                Map.Entry<String, String> e = cursor.next();
+                scanned.add(e.getKey() + "=" + e.getValue());
+            }
+        }
+        Assert.assertEquals("testMerge scan folded", Arrays.asList("list:a=" + list.get("list:a"), "last:a=2"), scanned);
+        try (LDBCursor<byte[], byte[]> cursor = conn.scanByte(sum, null, 1)) {
+            Assert.assertEquals("testMerge scan sum", 5050L, (long) LDBCodecs.LONG.decode(cursor.next().getValue()));
+        }
+        
+        try (LDBReadSession session = conn.openReadSession()) {
+            conn.mergeLong("sum:a", 1000);
+            Assert.assertEquals("testMerge session", 5050L, (long) LDBCodecs.LONG.decode(session.getByte(sum)));
+        }
+        conn.getMerger().compactStep(1);
+        Assert.assertEquals("testMerge compacted", 203, conn.compactMerges());
+        Assert.assertEquals("testMerge no operands", 0, countOperands());
+        Assert.assertEquals("testMerge folded", 6050L, (long) LDBCodecs.LONG.decode(conn.getDb().get(sum)));
+        Assert.assertEquals("testMerge after compact", 6050L, (long) LDBCodecs.LONG.decode(conn.getByte(sum)));
+        
+        conn.mergeLong("sum:a", 1);
+        Assert.assertTrue("testMerge update", conn.compareAndSetByte(sum, LDBCodecs.LONG.encode(6051L), LDBCodecs.LONG.encode(10L)));
+        conn.mergeLong("sum:a", 5);
+        Assert.assertEquals("testMerge after update", 15L, (long) LDBCodecs.LONG.decode(conn.getByte(sum)));
+        conn.putByte(sum, LDBCodecs.LONG.encode(100L));
+        Assert.assertEquals("testMerge put resets", 100L, (long) LDBCodecs.LONG.decode(conn.getByte(sum)));
+        conn.mergeLong("sum:a", 1);
+        conn.deleteByte(sum);
+        Assert.assertNull("testMerge delete", conn.getByte(sum));
+        
+        int threads = 4;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch done = new CountDownLatch(threads);
+        conn.enableMergeCompaction(100000, 50);
+        for (int t=0; t<threads; t++) {
+            executor.execute(() -> {
+                for (int i=0; i<1000; i++) {
+                    conn.mergeLong("sum:a", 1);
+                }
+                done.countDown();
+            });
+        }
+        done.await(60, TimeUnit.SECONDS);
+        executor.shutdown();
+        conn.disableMergeCompaction();
+        Assert.assertEquals("testMerge concurrent", 4000L, (long) LDBCodecs.LONG.decode(conn.getByte(sum)));
+        conn.compactMerges();
+        Assert.assertEquals("testMerge concurrent folded", 4000L, (long) LDBCodecs.LONG.decode(conn.getDb().get(sum)));
+        
+        // Operands left by an earlier run with a high sequence: new ones must still sort after them.
+        byte[] listKey = nls.serializeString("list:b");
+        conn.deleteByte(listKey);
+        conn.getDb().put(LDBBytes.concat(LDBBytes.concat(LDBMerger.PREFIX, LDBBytes.escape(listKey)),
+                LDBCodecs.LONG.encode(Long.MAX_VALUE / 2)), nls.serializeString("old"));
+        LDBMerger restarted = new LDBMerger(conn.getDb(), conn.getKeyLocks(), conn.getIndexer(), conn.getWriteOptions());
+        restarted.add(nls.serializeString("list:"), LDBMergeOperator.LIST_APPEND);
+        restarted.merge(listKey, nls.serializeString("new"), conn.getWriteOptions());
+        elements = LDBMergeOperator.decodeList(restarted.get(listKey, null, System.currentTimeMillis()));
+        Assert.assertEquals("testMerge restart order", "new", nls.deserializeString(elements.get(1)));
+        conn.deleteList(Arrays.asList("sum:a", "max:a", "list:a", "last:a", "list:b"));
+        Assert.assertEquals("testMerge cleaned", 0, countOperands());
+    }
+    
+    private int countOperands() {
+        int n = 0;
+        try (LDBCursor<byte[], byte[]> c = LDBCursor.open(conn.getDb(), null, LDBMerger.PREFIX, LDBBytes.prefixEnd(LDBMerger.PREFIX), 0, false)) {
+            while (c.hasNext()) {
+                c.next();
+                n++;
+            }
+        }
+        return n;
+    }
+    
+    @Test
+    public void testHistogram() {
+        LDBHistogram h = new LDBHistogram();
+        for (int i=1; i<=10000; i++) {
+            h.record(i * 1000L);
+        }
+        Assert.assertEquals("testHistogram count", 10000, h.getCount());
+        Assert.assertEquals("testHistogram p50", 5000000, h.getPercentile(50), 5000000 * 0.07);
+        Assert.assertEquals("testHistogram p99", 9900000, h.getPercentile(99), 9900000 * 0.07);
+        Assert.assertEquals("testHistogram max", 10000000, h.getMax());
+    }
+}
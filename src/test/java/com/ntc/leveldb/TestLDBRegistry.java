@@ -0,0 +1,218 @@
+/*
+ * Copyright 2026 nghiatc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.ntc.leveldb;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import org.iq80.leveldb.Options;
+import org.junit.*;
+
+/**
+ *
+ * @author nghiatc
+ * @since Oct 18, 2026
+ */
+public class TestLDBRegistry {
+    private static String dbPath = "./db-registry";
+    
+    @AfterClass
+    public static void clean() {
+        try {
+            // Delete folder db. https://www.baeldung.com/java-delete-directory
+            Files.walk(new File(dbPath).toPath()).sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+    
+    @Test
+    public void testLruReopen() throws Exception {
+        try (LDBRegistry registry = new LDBRegistry(2, 8L * 1048576)) {
+            Assert.assertEquals("testLruReopen cache split", 4L * 1048576, registry.getCacheSizePerDb());
+            for (String tenant : Arrays.asList("a", "b", "c")) {
+                try (LDBRegistry.Handle h = registry.acquire(dbPath + "/" + tenant)) {
+                    h.getConnection().put("tenant", tenant);
+                    Assert.assertEquals("testLruReopen cacheSize", 4L * 1048576, h.getConnection().getOptions().cacheSize());
+                }
+            }
+            Assert.assertEquals("testLruReopen open", 2, registry.getOpenCount());
+            Assert.assertEquals("testLruReopen evicted", 1, registry.getEvictions());
+            Assert.assertFalse("testLruReopen lru closed", registry.isOpen(dbPath + "/a"));
+            
+            try (LDBRegistry.Handle h = registry.acquire(dbPath + "/a")) {
+                Assert.assertEquals("testLruReopen reopened", "a", h.getConnection().get("tenant"));
+            }
+            Assert.assertEquals("testLruReopen opens", 4, registry.getOpens());
+            Assert.assertFalse("testLruReopen b evicted", registry.isOpen(dbPath + "/b"));
+        }
+    }
+    
+    @Test
+    public void testRefCount() throws Exception {
+        try (LDBRegistry registry = new LDBRegistry(1, 1048576)) {
+            LDBRegistry.Handle h1 = registry.acquire(dbPath + "/x");
+            LDBRegistry.Handle h2 = registry.acquire(dbPath + "/x");
+            Assert.assertSame("testRefCount shared", h1.getConnection(), h2.getConnection());
+            // Both in use: over maxOpen rather than closing a database in use.
+            LDBRegistry.Handle h3 = registry.acquire(dbPath + "/y");
+            Assert.assertEquals("testRefCount over max", 2, registry.getOpenCount());
+            h1.close();
+            h1.close();
+            Assert.assertTrue("testRefCount still referenced", registry.isOpen(dbPath + "/x"));
+            h2.getConnection().put("k", "v");
+            h2.close();
+            Assert.assertFalse("testRefCount released", registry.isOpen(dbPath + "/x"));
+            Assert.assertEquals("testRefCount open", 1, registry.getOpenCount());
+            h3.close();
+            try {
+                h1.getConnection();
+                Assert.fail("testRefCount closed handle");
+            } catch (IllegalStateException ex) {
+                // expected
+            }
+        }
+    }
+    
+    @Test
+    public void testOpenFailure() throws Exception {
+        try (LDBRegistry registry = new LDBRegistry(2, 1048576)) {
+            registry.setOptions(new Options().createIfMissing(false));
+            for (int i=0; i<3; i++) {
+                try {
+                    registry.acquire(dbPath + "/missing-" + i);
+                    Assert.fail("testOpenFailure missing");
+                } catch (Exception ex) {
+                    // expected
+                }
+            }
+            Assert.assertEquals("testOpenFailure entries", 0, registry.getEntryCount());
+            Assert.assertEquals("testOpenFailure open", 0, registry.getOpenCount());
+            registry.setOptions(new Options().createIfMissing(true));
+            try (LDBRegistry.Handle h = registry.acquire(dbPath + "/missing-0")) {
+                h.getConnection().put("k", "v");
+            }
+            Assert.assertEquals("testOpenFailure reopen", 1, registry.getEntryCount());
+        }
+    }
+    
+    @Test
+    public void testMemoryGovernor() throws Exception {
+        LDBMemoryGovernor governor = new LDBMemoryGovernor(60L * 1048576, 3);
+        LDBConnection a = governor.open(dbPath + "/gov-a");
+        LDBConnection b = governor.open(dbPath + "/gov-b");
+        LDBConnection c = governor.open(dbPath + "/gov-c");
+        Assert.assertEquals("testMemoryGovernor cache", 15L * 1048576, a.getOptions().cacheSize());
+        Assert.assertEquals("testMemoryGovernor write buffer", 5 * 1048576 / 2, a.getOptions().writeBufferSize());
+        Assert.assertEquals("testMemoryGovernor allocated", 60L * 1048576, governor.getAllocatedBytes());
+        
+        a.enableMetrics();
+        for (int i=0; i<1000; i++) {
+            a.get("key" + i);
+        }
+        governor.sample();
+        Assert.assertTrue("testMemoryGovernor heat", governor.getUsage().get(new File(dbPath + "/gov-a").getAbsolutePath()).getHeat() > 0);
+        Assert.assertFalse("testMemoryGovernor hot", governor.isOffTarget(dbPath + "/gov-a"));
+        Assert.assertTrue("testMemoryGovernor cold", governor.isOffTarget(dbPath + "/gov-b"));
+        
+        governor.close(b);
+        b = governor.open(dbPath + "/gov-b");
+        Assert.assertTrue("testMemoryGovernor smaller share", b.getOptions().cacheSize() < 15L * 1048576);
+        Assert.assertEquals("testMemoryGovernor usage", 3, governor.getUsage().size());
+        governor.close(a);
+        governor.close(b);
+        governor.close(c);
+        Assert.assertEquals("testMemoryGovernor freed", 0, governor.getAllocatedBytes());
+        
+        try (LDBRegistry registry = new LDBRegistry(10, 1048576)) {
+            registry.setMemoryGovernor(governor);
+            try (LDBRegistry.Handle h = registry.acquire(dbPath + "/gov-a")) {
+                Assert.assertTrue("testMemoryGovernor registry", h.getConnection().getOptions().cacheSize() > 1048576);
+            }
+            Assert.assertEquals("testMemoryGovernor registry usage", 1, governor.getUsage().size());
+        }
+        Assert.assertEquals("testMemoryGovernor registry freed", 0, governor.getAllocatedBytes());
+    }
+    
+    @Test
+    public void testCloseWhileOpening() throws Exception {
+        LDBRegistry registry = new LDBRegistry(10, 1048576);
+        // The registry closes after acquire checked it, while the database is opening.
+        LDBMemoryGovernor governor = new LDBMemoryGovernor(60L * 1048576, 3) {
+            @Override
+            public LDBConnection open(String pathDB, Options template) throws IOException {
+                registry.close();
+                return super.open(pathDB, template);
+            }
+        };
+        registry.setMemoryGovernor(governor);
+        try {
+            registry.acquire(dbPath + "/late");
+            Assert.fail("testCloseWhileOpening refused");
+        } catch (IllegalStateException ex) {
+            // expected
+        }
+        Assert.assertEquals("testCloseWhileOpening open", 0, registry.getOpenCount());
+        Assert.assertEquals("testCloseWhileOpening entries", 0, registry.getEntryCount());
+        Assert.assertEquals("testCloseWhileOpening freed", 0, governor.getAllocatedBytes());
+        // The connection was closed, so the database can be opened again.
+        LDBConnection conn = new LDBConnection(dbPath + "/late");
+        conn.close();
+    }
+    
+    @Test
+    public void testMemoryGovernorExhausted() throws Exception {
+        // Room for 3 databases at the 1MB cache + 2 x 1MB write buffer floors.
+        LDBMemoryGovernor governor = new LDBMemoryGovernor(10L * 1048576, 10);
+        List<LDBConnection> conns = new ArrayList<>();
+        for (int i=0; i<3; i++) {
+            conns.add(governor.open(dbPath + "/exh-" + i));
+        }
+        Assert.assertEquals("testMemoryGovernorExhausted allocated", 9L * 1048576, governor.getAllocatedBytes());
+        try {
+            governor.open(dbPath + "/exh-3");
+            Assert.fail("testMemoryGovernorExhausted refused");
+        } catch (IllegalStateException ex) {
+            // expected
+        }
+        Assert.assertEquals("testMemoryGovernorExhausted nothing reserved", 3, governor.getUsage().size());
+        Assert.assertTrue("testMemoryGovernorExhausted within budget", governor.getAllocatedBytes() <= governor.getTotalBytes());
+        
+        try (LDBRegistry registry = new LDBRegistry(10, 1048576)) {
+            registry.setMemoryGovernor(governor);
+            try {
+                registry.acquire(dbPath + "/exh-3");
+                Assert.fail("testMemoryGovernorExhausted registry refused");
+            } catch (IllegalStateException ex) {
+                // expected
+            }
+            Assert.assertEquals("testMemoryGovernorExhausted registry entries", 0, registry.getEntryCount());
+            
+            governor.close(conns.remove(0));
+            try (LDBRegistry.Handle h = registry.acquire(dbPath + "/exh-3")) {
+                Assert.assertNotNull("testMemoryGovernorExhausted reopen", h.getConnection());
+            }
+        }
+        for (LDBConnection conn : conns) {
+            governor.close(conn);
+        }
+        Assert.assertEquals("testMemoryGovernorExhausted freed", 0, governor.getAllocatedBytes());
+    }
+}
@@ -176,6 +176,36 @@ public class TestLDBSingleConnection {
         }
     }
     
+    @Test
+    public void testIncManyKeys() {
+        try {
+            final int k = 8;
+            final int n = 500;
+            final int keys = 16;
+            List<Thread> listTh = new ArrayList<>();
+            for (int i=0; i<k; i++) {
+                listTh.add(new Thread(() -> {
+                    for (int j=0; j<n; j++) {
+                        conn.incLong("stripe" + (j % keys), 1);
+                    }
+                }));
+            }
+            for (Thread t : listTh) {
+                t.start();
+            }
+            for (Thread t : listTh) {
+                t.join();
+            }
+            long total = 0;
+            for (int i=0; i<keys; i++) {
+                total += conn.incLong("stripe" + i, 0);
+            }
+            Assert.assertEquals("testIncManyKeys", k*n, total);
+        } catch (InterruptedException e) {
+            e.printStackTrace();
+        }
+    }
+    
     private static final String keyCounter = "counter";
     
     private class CounterRunable implements Runnable {
@@ -236,4 +266,18 @@ public class TestLDBSingleConnection {
         long rs1 = nls.deserializeLong(conn.getByte(bk));
         return rs1;
     }
+    
+    @Test
+    public void testCloseReopen() throws Exception {
+        String path = "./db-reopen";
+        LDBSingleConnection c1 = LDBSingleConnection.getInstance(path);
+        c1.put("reopen", "v1");
+        Assert.assertSame("testCloseReopen same", c1, LDBSingleConnection.getInstance(path));
+        c1.close();
+        LDBSingleConnection c2 = LDBSingleConnection.getInstance(path);
+        Assert.assertNotSame("testCloseReopen new instance", c1, c2);
+        Assert.assertEquals("testCloseReopen data", "v1", c2.get("reopen"));
+        c2.close();
+        Files.walk(new File(path).toPath()).sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+    }
 }
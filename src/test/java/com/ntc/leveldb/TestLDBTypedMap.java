@@ -0,0 +1,177 @@
+/*
+ * Copyright 2026 nghiatc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.ntc.leveldb;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import org.junit.*;
+
+/**
+ *
+ * @author nghiatc
+ * @since Oct 18, 2026
+ */
+public class TestLDBTypedMap {
+    private static String dbPath = "./db-typed";
+    private static LDBConnection conn;
+    
+    @BeforeClass
+    public static void init() throws Exception {
+        conn = new LDBConnection(dbPath);
+    }
+    
+    @AfterClass
+    public static void clean() {
+        try {
+            conn.close();
+            // Delete folder db. https://www.baeldung.com/java-delete-directory
+            Files.walk(new File(dbPath).toPath()).sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+    
+    @Test
+    public void testCodecs() {
+        NLSerializer nls = new NLSerializer();
+        Assert.assertArrayEquals("testCodecs int", nls.serializeInt(-123456), LDBCodecs.INT.encode(-123456));
+        Assert.assertArrayEquals("testCodecs long", nls.serializeLong(Long.MIN_VALUE + 7), LDBCodecs.LONG.encode(Long.MIN_VALUE + 7));
+        Assert.assertArrayEquals("testCodecs double", nls.serializeDouble(3.25), LDBCodecs.DOUBLE.encode(3.25));
+        String text = "key-é-中-😀-\ud800";
+        Assert.assertArrayEquals("testCodecs string", text.getBytes(StandardCharsets.UTF_8), LDBCodecs.STRING.encode(text));
+        Assert.assertEquals("testCodecs string decode", "key-é-中-😀-?", LDBCodecs.STRING.decode(LDBCodecs.STRING.encode(text)));
+        
+        long[] longs = {Long.MIN_VALUE, -300, -1, 0, 1, 63, 64, 300, Long.MAX_VALUE};
+        for (long v : longs) {
+            Assert.assertEquals("testCodecs varlong", v, (long) LDBCodecs.VARLONG.decode(LDBCodecs.VARLONG.encode(v)));
+            Assert.assertEquals("testCodecs varlong size", LDBCodecs.VARLONG.encodedSize(v), LDBCodecs.VARLONG.encode(v).length);
+            Assert.assertEquals("testCodecs ordered long", v, (long) LDBCodecs.ORDERED_LONG.decode(LDBCodecs.ORDERED_LONG.encode(v)));
+            Assert.assertEquals("testCodecs varint", (int) v, (int) LDBCodecs.VARINT.decode(LDBCodecs.VARINT.encode((int) v)));
+        }
+        Assert.assertEquals("testCodecs varlong small", 1, LDBCodecs.VARLONG.encode(-1L).length);
+        for (int i = 1; i < longs.length; i++) {
+            Assert.assertTrue("testCodecs order long", LDBBytes.compare(LDBCodecs.ORDERED_LONG.encode(longs[i - 1]), LDBCodecs.ORDERED_LONG.encode(longs[i])) < 0);
+            Assert.assertTrue("testCodecs order int", LDBBytes.compare(LDBCodecs.ORDERED_INT.encode((int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, longs[i - 1]))),
+                    LDBCodecs.ORDERED_INT.encode((int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, longs[i])))) < 0);
+        }
+    }
+    
+    @Test
+    public void testTypedMap() throws Exception {
+        LDBTypedMap<Long, String> users = new LDBTypedMap<>(conn, "user:".getBytes(), LDBCodecs.ORDERED_LONG, LDBCodecs.STRING);
+        LDBTypedMap<Long, String> other = new LDBTypedMap<>(conn, "uses:".getBytes(), LDBCodecs.ORDERED_LONG, LDBCodecs.STRING);
+        Map<Long, String> data = new LinkedHashMap<>();
+        for (long i = -50; i < 50; i++) {
+            data.put(i * 1000, "name" + i);
+        }
+        users.putAll(data);
+        other.put(1L, "other");
+        
+        Assert.assertEquals("testTypedMap get", "name-3", users.get(-3000L));
+        Assert.assertNull("testTypedMap absent", users.get(1L));
+        Map<Long, String> rs = users.getList(Arrays.asList(5000L, -5000L, 7L));
+        Assert.assertEquals("testTypedMap getList", Arrays.asList(5000L, -5000L, 7L), new ArrayList<>(rs.keySet()));
+        Assert.assertEquals("testTypedMap getList value", "name-5", rs.get(-5000L));
+        Assert.assertNull("testTypedMap getList absent", rs.get(7L));
+        
+        List<Long> keys = new ArrayList<>();
+        try (LDBCursor<Long, String> cursor = users.scan(-2000L, 2000L, 0)) {
+            cursor.forEachRemaining(e -> keys.add(e.getKey()));
+        }
+        Assert.assertEquals("testTypedMap numeric range", Arrays.asList(-2000L, -1000L, 0L, 1000L), keys);
+        
+        keys.clear();
+        try (LDBCursor<Long, String> cursor = users.scanReverse(null, null, 0)) {
+            cursor.forEachRemaining(e -> keys.add(e.getKey()));
+        }
+        Assert.assertEquals("testTypedMap prefix only", 100, keys.size());
+        Assert.assertEquals("testTypedMap reverse", Long.valueOf(49000L), keys.get(0));
+        
+        users.delete(0L);
+        users.deleteAll(Arrays.asList(1000L, 2000L));
+        Assert.assertNull("testTypedMap delete", users.get(0L));
+        Assert.assertNull("testTypedMap deleteAll", users.get(2000L));
+        Assert.assertEquals("testTypedMap other", "other", other.get(1L));
+        
+        LDBTypedMap<String, Long> counters = new LDBTypedMap<>(conn, LDBCodecs.STRING, LDBCodecs.LONG);
+        conn.incLong("typed-counter", 42);
+        Assert.assertEquals("testTypedMap counter", Long.valueOf(42), counters.get("typed-counter"));
+    }
+    
+    @Test
+    public void testOrderedKeysAndEmptyValues() throws Exception {
+        Assert.assertFalse("testOrdered int not reserved", LDBBytes.isReserved(LDBCodecs.ORDERED_INT.encode(Integer.MIN_VALUE)));
+        Assert.assertFalse("testOrdered long not reserved", LDBBytes.isReserved(LDBCodecs.ORDERED_LONG.encode(Long.MIN_VALUE)));
+        Assert.assertEquals("testOrdered int min", Integer.MIN_VALUE, (int) LDBCodecs.ORDERED_INT.decode(LDBCodecs.ORDERED_INT.encode(Integer.MIN_VALUE)));
+        
+        LDBTypedMap<Long, String> plain = new LDBTypedMap<>(conn, LDBCodecs.ORDERED_LONG, LDBCodecs.STRING);
+        long[] keys = {Long.MIN_VALUE, -(1L << 60), -1, 0, 7};
+        for (long k : keys) {
+            plain.put(k, "v" + k);
+        }
+        Assert.assertEquals("testOrdered negative get", "v" + Long.MIN_VALUE, plain.get(Long.MIN_VALUE));
+        List<Long> seen = new ArrayList<>();
+        try (LDBCursor<Long, String> cursor = plain.scan(Long.MIN_VALUE, Long.MAX_VALUE, 0)) {
+            cursor.forEachRemaining(e -> seen.add(e.getKey()));
+        }
+        Assert.assertEquals("testOrdered unprefixed scan", Arrays.asList(Long.MIN_VALUE, -(1L << 60), -1L, 0L, 7L), seen);
+        
+        LDBTypedMap<String, String> strings = new LDBTypedMap<>(conn, "str:".getBytes(), LDBCodecs.STRING, LDBCodecs.STRING);
+        try {
+            strings.put("empty", "");
+            Assert.fail("testOrdered empty value put");
+        } catch (IllegalArgumentException expected) {
+        }
+        try {
+            strings.putAll(Collections.singletonMap("empty", ""));
+            Assert.fail("testOrdered empty value putAll");
+        } catch (IllegalArgumentException expected) {
+        }
+        Assert.assertNull("testOrdered empty value absent", strings.get("empty"));
+    }
+    
+    @Test
+    public void testPlainNumericKeys() throws Exception {
+        LDBTypedMap<Integer, String> ints = new LDBTypedMap<>(conn, LDBCodecs.INT, LDBCodecs.STRING);
+        ints.put(5, "five");
+        ints.put(7, "seven");
+        Assert.assertEquals("testPlainNumericKeys get", "five", ints.get(5));
+        List<Integer> seen = new ArrayList<>();
+        try (LDBCursor<Integer, String> cursor = ints.scan(0, 10, 0)) {
+            cursor.forEachRemaining(e -> seen.add(e.getKey()));
+        }
+        Assert.assertEquals("testPlainNumericKeys scan", Arrays.asList(5, 7), seen);
+        ints.deleteAll(Arrays.asList(5, 7));
+        Assert.assertNull("testPlainNumericKeys delete", ints.get(5));
+        
+        LDBTypedMap<Long, String> longs = new LDBTypedMap<>(conn, LDBCodecs.LONG, LDBCodecs.STRING);
+        longs.put(42L, "answer");
+        Assert.assertEquals("testPlainNumericKeys long", "answer", longs.get(42L));
+        long colliding = LDBCodecs.LONG.decode(ByteBuffer.wrap(LDBBytes.concat(LDBBytes.INDEX_PREFIX, new byte[3])));
+        try {
+            longs.put(colliding, "x");
+            Assert.fail("testPlainNumericKeys reserved");
+        } catch (IllegalArgumentException expected) {
+        }
+        longs.delete(42L);
+    }
+}
@@ -16,6 +16,9 @@
 
 package com.ntc.leveldb;
 
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.nio.ByteBuffer;
 import org.junit.*;
 
 /**
@@ -88,4 +91,49 @@ public class TestNLSerializer {
         String s2 = nls.deserializeString(ss);
         Assert.assertEquals("testSDString", s1, s2);
     }
+    
+    @Test
+    public void testCompatDataOutputStream() throws Exception {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        DataOutputStream dos = new DataOutputStream(bos);
+        dos.writeBoolean(true);
+        dos.writeInt(-123456789);
+        dos.writeLong(Long.MIN_VALUE + 987654321L);
+        dos.writeFloat(-1.5F);
+        dos.writeDouble(Math.PI);
+        dos.close();
+        byte[] expected = bos.toByteArray();
+        
+        byte[] buf = new byte[expected.length];
+        int off = nls.serializeBool(true, buf, 0);
+        off = nls.serializeInt(-123456789, buf, off);
+        off = nls.serializeLong(Long.MIN_VALUE + 987654321L, buf, off);
+        off = nls.serializeFloat(-1.5F, buf, off);
+        off = nls.serializeDouble(Math.PI, buf, off);
+        Assert.assertEquals("testCompat length", expected.length, off);
+        Assert.assertArrayEquals("testCompat bytes", expected, buf);
+        
+        ByteBuffer bb = ByteBuffer.allocateDirect(expected.length);
+        nls.serializeBool(true, bb);
+        nls.serializeInt(-123456789, bb);
+        nls.serializeLong(Long.MIN_VALUE + 987654321L, bb);
+        nls.serializeFloat(-1.5F, bb);
+        nls.serializeDouble(Math.PI, bb);
+        bb.flip();
+        Assert.assertEquals("testCompat bb bool", true, nls.deserializeBool(bb));
+        Assert.assertEquals("testCompat bb int", -123456789, nls.deserializeInt(bb));
+        Assert.assertEquals("testCompat bb long", Long.MIN_VALUE + 987654321L, nls.deserializeLong(bb));
+        Assert.assertEquals("testCompat bb float", -1.5F, nls.deserializeFloat(bb), 0F);
+        Assert.assertEquals("testCompat bb double", Math.PI, nls.deserializeDouble(bb), 0D);
+        
+        Assert.assertEquals("testCompat off int", -123456789, nls.deserializeInt(expected, 1));
+        Assert.assertEquals("testCompat off long", Long.MIN_VALUE + 987654321L, nls.deserializeLong(expected, 5));
+        Assert.assertEquals("testCompat off double", Math.PI, nls.deserializeDouble(expected, 17), 0D);
+    }
+    
+    @Test
+    public void testInvalidInput() {
+        Assert.assertEquals("testInvalidInput null", 0, nls.deserializeInt((byte[]) null));
+        Assert.assertEquals("testInvalidInput short", 0L, nls.deserializeLong(new byte[4]));
+    }
 }
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2026 nghiatc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.ntc.leveldb;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import static org.fusesource.leveldbjni.JniDBFactory.bytes;
+import org.junit.*;
+
+/**
+ *
+ * @author nghiatc
+ * @since Oct 18, 2026
+ */
+public class TestShardedLDBConnection {
+    private static String dbPath = "./db-sharded";
+    private static ShardedLDBConnection conn;
+    
+    @BeforeClass
+    public static void init() throws Exception {
+        conn = new ShardedLDBConnection(dbPath, 4);
+    }
+    
+    @AfterClass
+    public static void clean() {
+        try {
+            conn.close();
+            // Delete folder db. https://www.baeldung.com/java-delete-directory
+            Files.walk(new File(dbPath).toPath()).sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+    
+    @Test
+    public void testRouting() {
+        conn.put("route:1", "one");
+        Assert.assertEquals("testRouting get", "one", conn.get("route:1"));
+        int idx = conn.shardOf(bytes("route:1"));
+        Assert.assertEquals("testRouting shard", "one", conn.getShards().get(idx).get("route:1"));
+        Assert.assertNull("testRouting other shard", conn.getShards().get((idx + 1) % 4).getByte(bytes("route:1")));
+        Assert.assertEquals("testRouting inc", 5L, conn.incLong("route:counter", 5));
+        Assert.assertEquals("testRouting counter", 5L, conn.getCounter("route:counter"));
+        conn.delete("route:1");
+        Assert.assertNull("testRouting delete", conn.getByte(bytes("route:1")));
+        Assert.assertEquals("testRouting null key", "", conn.get(null));
+        Assert.assertEquals("testRouting empty key", "", conn.get(""));
+    }
+    
+    @Test
+    public void testBatch() throws Exception {
+        Map<String, String> data = new LinkedHashMap<>();
+        List<String> keys = new ArrayList<>();
+        for (int i=0; i<1000; i++) {
+            data.put("batch:" + i, "value" + i);
+            keys.add("batch:" + i);
+        }
+        conn.putBatch(data);
+        Collections.reverse(keys);
+        Map<String, String> rs = conn.getList(keys);
+        Assert.assertEquals("testBatch order", keys, new ArrayList<>(rs.keySet()));
+        for (String key : keys) {
+            Assert.assertEquals("testBatch value", data.get(key), rs.get(key));
+        }
+        conn.deleteBatch(keys);
+        Assert.assertNull("testBatch delete", conn.getByte(bytes("batch:7")));
+        Assert.assertFalse("testBatch scan", conn.scanPrefix("batch:").hasNext());
+    }
+    
+    @Test
+    public void testScan() throws Exception {
+        Map<String, String> data = new HashMap<>();
+        for (int i=0; i<100; i++) {
+            data.put(String.format("scan:%03d", i), "v" + i);
+        }
+        conn.putBatch(data);
+        
+        List<String> keys = new ArrayList<>();
+        try (LDBCursor<String, String> cursor = conn.scanPrefix("scan:")) {
+            cursor.forEachRemaining(e -> keys.add(e.getKey()));
+        }
+        List<String> expected = new ArrayList<>(new TreeSet<>(data.keySet()));
+        Assert.assertEquals("testScan prefix", expected, keys);
+        
+        keys.clear();
+        try (LDBCursor<String, String> cursor = conn.scanReverse("scan:", "scan:090", 5)) {
+            cursor.forEachRemaining(e -> keys.add(e.getKey()));
+        }
+        Assert.assertEquals("testScan reverse", Arrays.asList("scan:089", "scan:088", "scan:087", "scan:086", "scan:085"), keys);
+    }
+    
+    @Test(expected = ExceptionInInitializerError.class)
+    public void testShardCountMismatch() throws Exception {
+        new ShardedLDBConnection(dbPath, 8);
+    }
+}